@@ -0,0 +1,39 @@
+package com.getir.library_management.cache;
+
+import com.getir.library_management.index.Trigrams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+// Cache key for searchBooks(title, author, isbn, genre, availableOnly, pageable).
+// Terms are lower-cased because the search is case-insensitive, the sort order is part of the key, and the
+// generation of the search's terms is appended so that writes touching those terms move it to a fresh key.
+@Component(BookSearchKeyGenerator.NAME)
+@RequiredArgsConstructor
+public class BookSearchKeyGenerator implements KeyGenerator {
+
+    public static final String NAME = "bookSearchKeyGenerator";
+
+    private final SearchCacheGenerations generations;
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        String title = (String) params[0];
+        String author = (String) params[1];
+        String isbn = (String) params[2];
+        String genre = (String) params[3];
+        boolean availableOnly = (Boolean) params[4];
+        Pageable pageable = (Pageable) params[5];
+
+        return Trigrams.normalize(title) + '_' + Trigrams.normalize(author) + '_' + Trigrams.normalize(isbn) + '_'
+                + Trigrams.normalize(genre) + (availableOnly ? "_available" : "") + '_' + page(pageable) + '_' + pageable.getSort()
+                + "_g" + generations.generationOf(title, author, isbn, genre);
+    }
+
+    private static String page(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getPageNumber() + "_" + pageable.getPageSize() : "unpaged";
+    }
+}
@@ -0,0 +1,144 @@
+package com.getir.library_management.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Carries cache invalidations and token revocations between application instances over Redis pub/sub.
+// Also keeps the shared copy of the search cache generations in a Redis hash, so every instance (including one that
+// just started) derives the same bookSearchCache keys. Without a Redis cache every call is a local no-op.
+@Slf4j
+@Component
+public class CacheInvalidationBus {
+
+    // Redis hash holding the search cache generations shared by all instances
+    static final String GENERATIONS_KEY = "library:cache:search-generations";
+
+    // Identifies this instance, so it ignores its own messages
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean distributed;
+    private final String channel;
+
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${spring.cache.type:simple}") String cacheType,
+                                @Value("${library.cache.invalidation.channel:library:cache:invalidation}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.distributed = "redis".equalsIgnoreCase(cacheType);
+        this.channel = channel;
+    }
+
+    public boolean isDistributed() {
+        return distributed;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    // Registers a handler for invalidations published by other instances
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    // Tells other instances to drop a key (or the whole cache when key is null) from their local tier
+    public void publishEviction(String cache, String key) {
+        publish(new CacheInvalidation(nodeId, cache, key, null, null));
+    }
+
+    // Tells other instances to reject the user's tokens issued with a lower version
+    public void publishTokenRevocation(Long userId, int minimumVersion) {
+        publish(new CacheInvalidation(nodeId, null, null, null, Map.of(userId, minimumVersion)));
+    }
+
+    // Increments the shared generation counters and broadcasts their new values.
+    // Returns the new values, or an empty map when Redis is not used or not reachable.
+    public Map<Long, Long> incrementGenerations(Collection<Long> counters) {
+        if (!distributed || counters.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ordered = new ArrayList<>(counters);
+        Map<Long, Long> values = new HashMap<>();
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                byte[] hash = GENERATIONS_KEY.getBytes(StandardCharsets.UTF_8);
+                for (Long counter : ordered) {
+                    connection.hashCommands().hIncrBy(hash, counter.toString().getBytes(StandardCharsets.UTF_8), 1);
+                }
+                return null;
+            });
+            for (int i = 0; i < ordered.size(); i++) {
+                values.put(ordered.get(i), ((Number) results.get(i)).longValue());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update shared search cache generations: {}", e.getMessage());
+            return Map.of();
+        }
+        publish(new CacheInvalidation(nodeId, null, null, values, null));
+        return values;
+    }
+
+    // Reads every shared generation counter, or an empty map when Redis is not used or not reachable
+    public Map<Long, Long> loadGenerations() {
+        if (!distributed) {
+            return Map.of();
+        }
+        try {
+            Map<Long, Long> values = new HashMap<>();
+            redisTemplate.<String, String>opsForHash().entries(GENERATIONS_KEY)
+                    .forEach((counter, value) -> values.put(Long.parseLong(counter), Long.parseLong(value)));
+            return values;
+        } catch (RuntimeException e) {
+            log.warn("Could not load shared search cache generations: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // Entry point for messages received on the invalidation channel
+    public void onMessage(String message) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message, CacheInvalidation.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", message);
+            return;
+        }
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        if (!distributed) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(invalidation));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Other instances fall back to their short local TTL
+            log.warn("Could not publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    // A key eviction (key set), a whole-cache clear (key null), a set of updated search generations (cache null)
+    // or the minimum token versions of users whose tokens were revoked (cache null)
+    public record CacheInvalidation(String origin, String cache, String key, Map<Long, Long> generations,
+                                    Map<Long, Integer> tokenVersions) {
+    }
+}
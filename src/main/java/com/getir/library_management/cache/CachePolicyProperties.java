@@ -0,0 +1,20 @@
+package com.getir.library_management.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Per-cache policies: library.cache.caches.<cache name>.{ttl, max-entries, cache-nulls, refresh-ahead, serializer}
+@Data
+@ConfigurationProperties(prefix = "library.cache")
+public class CachePolicyProperties {
+
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    // The cache's policy, or the defaults when it has none
+    public CacheSpec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, new CacheSpec());
+    }
+}
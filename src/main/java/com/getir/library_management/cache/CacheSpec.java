@@ -0,0 +1,37 @@
+package com.getir.library_management.cache;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+// Policy of one cache, bound from library.cache.caches.<name>
+@Data
+public class CacheSpec {
+
+    // Lifetime of an entry in Redis; defaults to spring.cache.redis.time-to-live
+    private Duration ttl;
+
+    // Upper bound on the cache's entries in Redis, oldest written are dropped first; 0 means unbounded
+    private long maxEntries;
+
+    // Whether a null result is cached (as a marker) or recomputed on every call
+    private boolean cacheNulls = true;
+
+    // Fraction of the TTL after which a read triggers a background recompute while the old value is still
+    // served, e.g. 0.8; 0 disables refresh-ahead. Applies to @Cacheable(sync = true) methods.
+    private double refreshAhead;
+
+    // Redis value format: jdk or compact
+    private String serializer = "jdk";
+
+    // Copy with the TTL filled in from the default when unset
+    public CacheSpec withDefaultTtl(Duration defaultTtl) {
+        CacheSpec resolved = new CacheSpec();
+        resolved.setTtl(ttl != null ? ttl : defaultTtl);
+        resolved.setMaxEntries(maxEntries);
+        resolved.setCacheNulls(cacheNulls);
+        resolved.setRefreshAhead(refreshAhead);
+        resolved.setSerializer(serializer);
+        return resolved;
+    }
+}
@@ -0,0 +1,62 @@
+package com.getir.library_management.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Keeps a sorted set of write times per cache, so a cache can be held to a maximum number of Redis entries,
+// and reads the remaining TTL of entries for refresh-ahead.
+// Assumes the default "<cache>::<key>" Redis key layout of RedisCacheManager.
+@RequiredArgsConstructor
+public class RedisEntryTracker {
+
+    private final StringRedisTemplate redisTemplate;
+
+    // Records a write and returns the keys (oldest first) that now exceed maxEntries and must be evicted
+    public List<String> recordWrite(String cacheName, String key, long now, Duration ttl, long maxEntries) {
+        String index = indexKey(cacheName);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection commands = (StringRedisConnection) connection;
+            commands.zAdd(index, now, key);
+            // Entries older than the TTL have already expired in Redis
+            commands.zRemRangeByScore(index, Double.NEGATIVE_INFINITY, now - ttl.toMillis());
+            commands.zCard(index);
+            commands.pExpire(index, ttl.toMillis());
+            return null;
+        });
+        long size = ((Number) results.get(2)).longValue();
+        if (maxEntries <= 0 || size <= maxEntries) {
+            return List.of();
+        }
+        Set<ZSetOperations.TypedTuple<String>> overflow = redisTemplate.opsForZSet().popMin(index, size - maxEntries);
+        return overflow == null ? List.of() : overflow.stream()
+                .map(ZSetOperations.TypedTuple::getValue)
+                .collect(Collectors.toList());
+    }
+
+    public void forget(String cacheName, String key) {
+        redisTemplate.opsForZSet().remove(indexKey(cacheName), key);
+    }
+
+    public void forgetAll(String cacheName) {
+        redisTemplate.delete(indexKey(cacheName));
+    }
+
+    // Milliseconds until the entry expires in Redis, or a negative value when it is gone or never expires
+    public long remainingTtlMillis(String cacheName, String key) {
+        Long remaining = redisTemplate.getExpire(cacheName + "::" + key, TimeUnit.MILLISECONDS);
+        return remaining == null ? -1 : remaining;
+    }
+
+    private static String indexKey(String cacheName) {
+        return "cache-index::" + cacheName;
+    }
+}
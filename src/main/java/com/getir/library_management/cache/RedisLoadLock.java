@@ -0,0 +1,32 @@
+package com.getir.library_management.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Short-lived Redis lock (SET NX PX) that lets one instance load a missing cache entry while others wait for it
+@RequiredArgsConstructor
+public class RedisLoadLock {
+
+    // Deletes the lock only if it still holds our token, so an expired lock taken over by someone else survives
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    // Returns the owner token when the lock was acquired, or null when another caller holds it
+    public String tryAcquire(String key, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl)) ? token : null;
+    }
+
+    public void release(String key, String token) {
+        redisTemplate.execute(RELEASE, List.of(key), token);
+    }
+}
@@ -0,0 +1,118 @@
+package com.getir.library_management.cache;
+
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.index.Trigrams;
+import com.getir.library_management.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generation counters for bookSearchCache keys.
+// A book write bumps the counters of every trigram of its field values; a cached search embeds the counters of its
+// own terms in its key, so only searches whose terms could match the written book move to a new key.
+// With a Redis cache the counters are mirrored from a shared hash, so all instances build the same keys.
+@Component
+@RequiredArgsConstructor
+public class SearchCacheGenerations {
+
+    // Searchable fields: title, author, isbn, genre
+    private static final int FIELD_COUNT = 4;
+
+    // Counter of a whole field, used for terms that cannot be decomposed into trigrams (no real trigram uses it)
+    private static final long FIELD_WIDE = 0xFFFF_FFFF_FFFFL;
+
+    // Counter bumped by every write, used for searches without any filter
+    private static final long GLOBAL = -1L;
+
+    private final CacheInvalidationBus bus;
+
+    // Counter key -> generation. Trigram keys carry the field above the 48 trigram bits.
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Starts from the shared counters and follows the updates made by other instances
+    @PostConstruct
+    void init() {
+        advance(bus.loadGenerations());
+        bus.subscribe(invalidation -> {
+            if (invalidation.generations() != null) {
+                advance(invalidation.generations());
+            }
+        });
+    }
+
+    // Records that the book's current values change once the surrounding transaction commits.
+    // Call it before mutating a book (old values) and after saving it (new values).
+    public void touch(Book book) {
+        String[] values = {book.getTitle(), book.getAuthor(), book.getIsbn(), book.getGenre()};
+        TransactionHooks.afterCommit(() -> bump(values));
+    }
+
+    // Combined generation of everything the given search depends on
+    public long generationOf(String title, String author, String isbn, String genre) {
+        String[] terms = {title, author, isbn, genre};
+        long generation = 0;
+        boolean anyFilter = false;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            String term = Trigrams.normalize(terms[field]);
+            if (term == null) {
+                continue;
+            }
+            anyFilter = true;
+            generation += termGeneration(field, term);
+        }
+        return anyFilter ? generation : current(GLOBAL);
+    }
+
+    // Number of counters tracked so far
+    public int size() {
+        return generations.size();
+    }
+
+    // Every trigram of a matching value is also a trigram of the term, so the sum moves whenever a match is written.
+    // Short terms and LIKE wildcards have no usable trigrams and fall back to the field-wide counter.
+    private long termGeneration(int field, String term) {
+        if (term.length() < 3 || term.indexOf('%') >= 0 || term.indexOf('_') >= 0) {
+            return current(key(field, FIELD_WIDE));
+        }
+        long generation = 0;
+        for (long trigram : Trigrams.of(term)) {
+            generation += current(key(field, trigram));
+        }
+        return generation;
+    }
+
+    private void bump(String[] values) {
+        Set<Long> counters = new HashSet<>();
+        counters.add(GLOBAL);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            counters.add(key(field, FIELD_WIDE));
+            for (long trigram : Trigrams.of(Trigrams.normalize(values[field]))) {
+                counters.add(key(field, trigram));
+            }
+        }
+        // Local bump first, so this instance never serves a stale page even if Redis is unreachable
+        counters.forEach(counter -> generations.computeIfAbsent(counter, k -> new AtomicLong()).incrementAndGet());
+        advance(bus.incrementGenerations(counters));
+    }
+
+    // Moves counters forward to the given values; they never go back
+    private void advance(Map<Long, Long> values) {
+        values.forEach((counter, value) ->
+                generations.computeIfAbsent(counter, k -> new AtomicLong()).accumulateAndGet(value, Math::max));
+    }
+
+    private long current(long counter) {
+        AtomicLong generation = generations.get(counter);
+        return generation == null ? 0 : generation.get();
+    }
+
+    private static long key(int field, long trigram) {
+        return ((long) field << 48) | trigram;
+    }
+}
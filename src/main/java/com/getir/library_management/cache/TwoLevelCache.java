@@ -0,0 +1,468 @@
+package com.getir.library_management.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Near cache: a bounded in-JVM map (L1) in front of a shared Redis cache (L2).
+// Hits in L1 need no network hop or decoding. Writes go to both levels and are broadcast so other instances drop
+// their L1 copy. While Redis is unreachable the cache keeps working from L1 alone and retries Redis periodically.
+// Misses through get(key, loader) are single-flight: concurrent callers for a key share one load in this JVM, and a
+// short Redis lock makes other instances wait for that load's result instead of repeating the query.
+// With refresh-ahead, a read of an entry close to expiry recomputes it in the background while still returning it.
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    // How often a caller waiting for another instance's load checks Redis
+    private static final long REMOTE_POLL_INTERVAL_MS = 25;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local;
+    private final Cache remote;
+    private final CacheInvalidationBus bus;
+    private final RedisLoadLock loadLock;
+    private final RedisEntryTracker tracker;
+    private final CacheSpec spec;
+    private final TwoLevelCacheSettings settings;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+
+    // Loads currently running in this JVM, by local key
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Keys with a background refresh queued or running
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Redis is skipped until this instant after a failure
+    private volatile long remoteDownUntil;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder localCoalesced = new LongAdder();
+    private final LongAdder remoteCoalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder trimmed = new LongAdder();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local,
+                         Cache remote,
+                         CacheInvalidationBus bus,
+                         RedisLoadLock loadLock,
+                         RedisEntryTracker tracker,
+                         CacheSpec spec,
+                         TwoLevelCacheSettings settings,
+                         Executor refreshExecutor,
+                         Clock clock) {
+        super(spec.isCacheNulls());
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.bus = bus;
+        this.loadLock = loadLock;
+        this.tracker = tracker;
+        this.spec = spec;
+        this.settings = settings;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        LocalEntry entry = lookupEntry(key);
+        return entry == null ? null : entry.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        LocalEntry entry = lookupEntry(key);
+        if (entry != null) {
+            if (clock.millis() >= entry.refreshAt()) {
+                refreshInBackground(key, valueLoader);
+            }
+            return (T) fromStoreValue(entry.value());
+        }
+
+        // Join a load of the same key that is already running in this JVM
+        String localKey = localKey(key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, flight);
+        if (running != null) {
+            localCoalesced.increment();
+            return (T) fromStoreValue(await(running));
+        }
+
+        try {
+            // A load that finished between the miss and taking the slot has already filled L1
+            LocalEntry loaded = local.getIfPresent(localKey);
+            Object storeValue = loaded != null ? loaded.value() : storeForm(loadOnce(key, localKey, valueLoader));
+            flight.complete(storeValue);
+            return (T) fromStoreValue(storeValue);
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        // Null results are simply not kept when the cache does not store nulls
+        if (value == null && !isAllowNullValues()) {
+            return;
+        }
+        puts.increment();
+        String localKey = localKey(key);
+        long now = clock.millis();
+        local.put(localKey, new LocalEntry(toStoreValue(value), refreshAt(now, spec.getTtl().toMillis())));
+        if (remoteAvailable()) {
+            try {
+                remote.put(key, value);
+                enforceMaxEntries(localKey, now);
+            } catch (RuntimeException e) {
+                remoteFailed("write", e);
+            }
+        }
+        bus.publishEviction(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        if (remoteAvailable()) {
+            try {
+                remote.evict(key);
+                if (tracker != null && spec.getMaxEntries() > 0) {
+                    tracker.forget(name, localKey);
+                }
+            } catch (RuntimeException e) {
+                remoteFailed("evict", e);
+            }
+        }
+        bus.publishEviction(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (remoteAvailable()) {
+            try {
+                remote.clear();
+                if (tracker != null && spec.getMaxEntries() > 0) {
+                    tracker.forgetAll(name);
+                }
+            } catch (RuntimeException e) {
+                remoteFailed("clear", e);
+            }
+        }
+        bus.publishEviction(name, null);
+    }
+
+    // Drops a key from L1 only, on behalf of another instance (null clears L1)
+    void evictLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    // L1 first, then Redis; a Redis hit is copied into L1 together with its refresh deadline
+    private LocalEntry lookupEntry(Object key) {
+        String localKey = localKey(key);
+        LocalEntry entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            localHits.increment();
+            return entry;
+        }
+
+        if (remoteAvailable()) {
+            try {
+                ValueWrapper wrapper = remote.get(key);
+                if (wrapper != null) {
+                    entry = new LocalEntry(toStoreValue(wrapper.get()), remoteRefreshAt(localKey));
+                    local.put(localKey, entry);
+                    remoteHits.increment();
+                    return entry;
+                }
+            } catch (SerializationException e) {
+                // An entry written in an unknown or newer format is a miss, not an outage
+                log.debug("Ignoring unreadable entry in cache '{}': {}", name, e.getMessage());
+            } catch (RuntimeException e) {
+                remoteFailed("read", e);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Loads the value unless another instance already holds the load lock, in which case its result is awaited
+    private Object loadOnce(Object key, String localKey, Callable<?> valueLoader) {
+        if (loadLock == null || !remoteAvailable()) {
+            return load(key, valueLoader);
+        }
+
+        String lockKey = lockKey(localKey);
+        String token;
+        try {
+            token = loadLock.tryAcquire(lockKey, settings.loadLockTtl());
+        } catch (RuntimeException e) {
+            remoteFailed("lock", e);
+            return load(key, valueLoader);
+        }
+
+        if (token != null) {
+            try {
+                return load(key, valueLoader);
+            } finally {
+                releaseQuietly(lockKey, token);
+            }
+        }
+
+        Object fromOtherInstance = awaitRemote(key, localKey);
+        return fromOtherInstance != null ? fromStoreValue(fromOtherInstance) : load(key, valueLoader);
+    }
+
+    // Polls Redis for the value another instance is loading; null when it does not show up in time
+    private Object awaitRemote(Object key, String localKey) {
+        long deadline = clock.millis() + settings.loadWait().toMillis();
+        while (clock.millis() < deadline && remoteAvailable()) {
+            try {
+                Thread.sleep(REMOTE_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            try {
+                ValueWrapper wrapper = remote.get(key);
+                if (wrapper != null) {
+                    Object storeValue = toStoreValue(wrapper.get());
+                    local.put(localKey, new LocalEntry(storeValue, remoteRefreshAt(localKey)));
+                    remoteCoalesced.increment();
+                    return storeValue;
+                }
+            } catch (SerializationException e) {
+                return null;
+            } catch (RuntimeException e) {
+                remoteFailed("read", e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        loads.increment();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    // Recomputes an entry that is close to expiry, at most once at a time per key and across instances
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        if (refreshExecutor == null || !refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(key, localKey, valueLoader);
+                } catch (RuntimeException e) {
+                    // The current value stays in place until it expires
+                    log.warn("Background refresh of '{}' in cache '{}' failed: {}", localKey, name, e.getMessage());
+                } finally {
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private void refresh(Object key, String localKey, Callable<?> valueLoader) {
+        if (loadLock == null || !remoteAvailable()) {
+            refreshes.increment();
+            load(key, valueLoader);
+            return;
+        }
+        String lockKey = lockKey(localKey);
+        String token = loadLock.tryAcquire(lockKey, settings.loadLockTtl());
+        if (token == null) {
+            // Another instance is recomputing it; pick up its result on the next Redis read
+            local.invalidate(localKey);
+            return;
+        }
+        try {
+            refreshes.increment();
+            load(key, valueLoader);
+        } finally {
+            releaseQuietly(lockKey, token);
+        }
+    }
+
+    // Drops the oldest Redis entries once the cache holds more than its maximum
+    private void enforceMaxEntries(String localKey, long now) {
+        if (tracker == null || spec.getMaxEntries() <= 0) {
+            return;
+        }
+        List<String> overflow = tracker.recordWrite(name, localKey, now, spec.getTtl(), spec.getMaxEntries());
+        for (String evicted : overflow) {
+            remote.evict(evicted);
+            local.invalidate(evicted);
+            trimmed.increment();
+        }
+    }
+
+    // Instant after which a read should trigger a refresh of an entry written at writtenAt
+    private long refreshAt(long writtenAt, long ttlMillis) {
+        if (spec.getRefreshAhead() <= 0 || spec.getRefreshAhead() >= 1) {
+            return Long.MAX_VALUE;
+        }
+        return writtenAt + (long) (ttlMillis * spec.getRefreshAhead());
+    }
+
+    // Refresh deadline of an entry read from Redis, derived from its remaining TTL there
+    private long remoteRefreshAt(String localKey) {
+        if (tracker == null || spec.getRefreshAhead() <= 0 || spec.getRefreshAhead() >= 1) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = tracker.remainingTtlMillis(name, localKey);
+        if (remaining < 0) {
+            return Long.MAX_VALUE;
+        }
+        long ttl = spec.getTtl().toMillis();
+        return refreshAt(clock.millis() + remaining - ttl, ttl);
+    }
+
+    private void releaseQuietly(String lockKey, String token) {
+        try {
+            loadLock.release(lockKey, token);
+        } catch (RuntimeException e) {
+            // The lock expires on its own
+            remoteFailed("unlock", e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public long getLocalHitCount() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    // Values produced by running the loader (database queries)
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    // Callers that shared a load already running in this JVM
+    public long getLocalCoalescedCount() {
+        return localCoalesced.sum();
+    }
+
+    // Callers that received a value loaded by another instance while it held the load lock
+    public long getRemoteCoalescedCount() {
+        return remoteCoalesced.sum();
+    }
+
+    // Entries recomputed ahead of their expiry
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    // Redis entries dropped to stay within max-entries
+    public long getTrimmedCount() {
+        return trimmed.sum();
+    }
+
+    public long getLocalSize() {
+        return local.estimatedSize();
+    }
+
+    public boolean isRemoteAvailable() {
+        return remoteAvailable();
+    }
+
+    private boolean remoteAvailable() {
+        return clock.millis() >= remoteDownUntil;
+    }
+
+    private void remoteFailed(String operation, RuntimeException e) {
+        if (remoteAvailable()) {
+            log.warn("Redis {} failed for cache '{}', serving from the local cache for {}: {}",
+                    operation, name, settings.remoteRetryAfter(), e.getMessage());
+        }
+        remoteDownUntil = clock.millis() + settings.remoteRetryAfter().toMillis();
+    }
+
+    // Store form of a loaded value; a null that is not cached stays null
+    private Object storeForm(Object value) {
+        return value == null && !isAllowNullValues() ? null : toStoreValue(value);
+    }
+
+    private String lockKey(String localKey) {
+        return "lock::" + name + "::" + localKey;
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    // L1 value (in store form) and the instant after which reading it triggers a refresh
+    public record LocalEntry(Object value, long refreshAt) {
+    }
+}
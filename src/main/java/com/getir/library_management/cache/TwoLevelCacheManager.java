@@ -0,0 +1,105 @@
+package com.getir.library_management.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Creates a TwoLevelCache per cache name with that cache's policy, backed by the given Redis cache manager, and
+// applies the invalidations broadcast by other instances to the local tiers
+public class TwoLevelCacheManager implements CacheManager {
+
+    // Background refreshes beyond this backlog are skipped; callers keep getting the current value
+    private static final int REFRESH_QUEUE_CAPACITY = 100;
+
+    private final CacheManager remote;
+    private final CacheInvalidationBus bus;
+    private final RedisLoadLock loadLock;
+    private final RedisEntryTracker tracker;
+    private final CachePolicyProperties policies;
+    private final Duration defaultTtl;
+    private final TwoLevelCacheSettings settings;
+    private final Clock clock;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote,
+                                CacheInvalidationBus bus,
+                                RedisLoadLock loadLock,
+                                RedisEntryTracker tracker,
+                                CachePolicyProperties policies,
+                                Duration defaultTtl,
+                                Collection<String> initialCacheNames,
+                                TwoLevelCacheSettings settings,
+                                Clock clock) {
+        this.remote = remote;
+        this.bus = bus;
+        this.loadLock = loadLock;
+        this.tracker = tracker;
+        this.policies = policies;
+        this.defaultTtl = defaultTtl;
+        this.settings = settings;
+        this.clock = clock;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(
+                1, 2, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+                task -> {
+                    Thread thread = new Thread(task, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        initialCacheNames.forEach(this::getCache);
+        bus.subscribe(invalidation -> {
+            if (invalidation.cache() == null) {
+                return;
+            }
+            TwoLevelCache cache = caches.get(invalidation.cache());
+            if (cache != null) {
+                cache.evictLocal(invalidation.key());
+            }
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    // Stops the refresh threads when the application context closes
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private TwoLevelCache createCache(String name) {
+        CacheSpec spec = policies.specFor(name).withDefaultTtl(defaultTtl);
+
+        // The local level never outlives or outgrows the Redis level; its short TTL also bounds staleness
+        // when an invalidation message is lost
+        long localMaxEntries = spec.getMaxEntries() > 0
+                ? Math.min(settings.localMaxEntries(), spec.getMaxEntries())
+                : settings.localMaxEntries();
+        Duration localTtl = spec.getTtl().compareTo(settings.localTtl()) < 0 ? spec.getTtl() : settings.localTtl();
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.LocalEntry> local = Caffeine.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterWrite(localTtl)
+                .build();
+
+        return new TwoLevelCache(name, local, remote.getCache(name), bus, loadLock, tracker, spec, settings,
+                refreshExecutor, clock);
+    }
+}
@@ -0,0 +1,80 @@
+package com.getir.library_management.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+// Publishes the standard cache.gets / cache.puts meters for a TwoLevelCache, plus hits split by level
+public class TwoLevelCacheMetrics extends CacheMeterBinder<TwoLevelCache> {
+
+    public TwoLevelCacheMetrics(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoLevelCache cache = getCache();
+        return cache == null ? null : cache.getLocalSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoLevelCache cache = getCache();
+        return cache == null ? 0 : cache.getLocalHitCount() + cache.getRemoteHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        TwoLevelCache cache = getCache();
+        return cache == null ? null : cache.getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return null;
+    }
+
+    @Override
+    protected long putCount() {
+        TwoLevelCache cache = getCache();
+        return cache == null ? 0 : cache.getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.level.hits", getCache(), TwoLevelCache::getLocalHitCount)
+                .tags(getTagsWithCacheName()).tag("level", "local")
+                .description("Hits served from the in-JVM tier without a network hop")
+                .register(registry);
+        FunctionCounter.builder("cache.level.hits", getCache(), TwoLevelCache::getRemoteHitCount)
+                .tags(getTagsWithCacheName()).tag("level", "redis")
+                .description("Hits served from Redis after a local miss")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", getCache(), TwoLevelCache::getLoadCount)
+                .tags(getTagsWithCacheName())
+                .description("Misses that ran the loader (database query)")
+                .register(registry);
+        FunctionCounter.builder("cache.loads.coalesced", getCache(), TwoLevelCache::getLocalCoalescedCount)
+                .tags(getTagsWithCacheName()).tag("scope", "local")
+                .description("Misses that shared a load already running in this instance (queries saved)")
+                .register(registry);
+        FunctionCounter.builder("cache.loads.coalesced", getCache(), TwoLevelCache::getRemoteCoalescedCount)
+                .tags(getTagsWithCacheName()).tag("scope", "remote")
+                .description("Misses answered by another instance's load while it held the load lock (queries saved)")
+                .register(registry);
+        FunctionCounter.builder("cache.refreshes", getCache(), TwoLevelCache::getRefreshCount)
+                .tags(getTagsWithCacheName())
+                .description("Entries recomputed in the background before they expired")
+                .register(registry);
+        FunctionCounter.builder("cache.redis.trimmed", getCache(), TwoLevelCache::getTrimmedCount)
+                .tags(getTagsWithCacheName())
+                .description("Redis entries dropped to keep the cache within its max-entries")
+                .register(registry);
+        Gauge.builder("cache.redis.available", getCache(), cache -> cache.isRemoteAvailable() ? 1 : 0)
+                .tags(getTagsWithCacheName())
+                .description("1 while Redis is used as the second cache level, 0 while degraded to local only")
+                .register(registry);
+    }
+}
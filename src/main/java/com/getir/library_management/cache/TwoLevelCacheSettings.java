@@ -0,0 +1,15 @@
+package com.getir.library_management.cache;
+
+import java.time.Duration;
+
+// Tuning shared by all two-level caches
+// localMaxEntries / localTtl: bounds of the in-JVM level
+// remoteRetryAfter: how long Redis is skipped after a failure
+// loadLockTtl / loadWait: lifetime of the cross-instance load lock, and how long a caller waits for another
+// instance's load before loading itself
+public record TwoLevelCacheSettings(long localMaxEntries,
+                                    Duration localTtl,
+                                    Duration remoteRetryAfter,
+                                    Duration loadLockTtl,
+                                    Duration loadWait) {
+}
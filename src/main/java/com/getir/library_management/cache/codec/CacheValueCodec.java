@@ -0,0 +1,19 @@
+package com.getir.library_management.cache.codec;
+
+// Compact binary form of one cached value type.
+// Each codec owns a tag and a schema version; the version is stored with every value so a codec can still read
+// entries written by an older release, and rejects newer ones (they are then treated as cache misses).
+public interface CacheValueCodec<T> {
+
+    // Stable identifier written in front of every value of this type; never reuse a retired tag
+    int tag();
+
+    // Current schema version written with new values
+    int version();
+
+    Class<T> type();
+
+    void write(T value, CompactOutput out);
+
+    T read(CompactInput in, int version);
+}
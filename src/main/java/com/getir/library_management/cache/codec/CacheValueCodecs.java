@@ -0,0 +1,104 @@
+package com.getir.library_management.cache.codec;
+
+import com.getir.library_management.dto.book.BookResponseDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.List;
+
+// Codecs for the DTOs kept in Redis caches
+public final class CacheValueCodecs {
+
+    private CacheValueCodecs() {
+    }
+
+    // Codecs registered with every CompactCacheSerializer
+    public static List<CacheValueCodec<?>> defaults() {
+        return List.of(new BookResponseCodec(), new BorrowResponseCodec());
+    }
+
+    static void requireVersion(CacheValueCodec<?> codec, int version) {
+        if (version < 1 || version > codec.version()) {
+            throw new SerializationException("Unsupported schema version " + version + " for " + codec.type().getSimpleName());
+        }
+    }
+
+    // v1: id, title, author, isbn, genre, publicationDate, availability
+    static final class BookResponseCodec implements CacheValueCodec<BookResponseDto> {
+
+        @Override
+        public int tag() {
+            return 16;
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public Class<BookResponseDto> type() {
+            return BookResponseDto.class;
+        }
+
+        @Override
+        public void write(BookResponseDto value, CompactOutput out) {
+            out.writeNullableId(value.getId());
+            out.writeString(value.getTitle());
+            out.writeString(value.getAuthor());
+            out.writeString(value.getIsbn());
+            out.writeString(value.getGenre());
+            out.writeString(value.getPublicationDate());
+            out.writeBoolean(value.isAvailability());
+        }
+
+        @Override
+        public BookResponseDto read(CompactInput in, int version) {
+            requireVersion(this, version);
+            return new BookResponseDto(in.readNullableId(), in.readString(), in.readString(), in.readString(),
+                    in.readString(), in.readString(), in.readBoolean());
+        }
+    }
+
+    // v1: id, userFullName, bookTitle, borrowDate, dueDate, returnDate
+    static final class BorrowResponseCodec implements CacheValueCodec<BorrowResponseDto> {
+
+        @Override
+        public int tag() {
+            return 17;
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public Class<BorrowResponseDto> type() {
+            return BorrowResponseDto.class;
+        }
+
+        @Override
+        public void write(BorrowResponseDto value, CompactOutput out) {
+            out.writeNullableId(value.getId());
+            out.writeString(value.getUserFullName());
+            out.writeString(value.getBookTitle());
+            out.writeDate(value.getBorrowDate());
+            out.writeDate(value.getDueDate());
+            out.writeDate(value.getReturnDate());
+        }
+
+        @Override
+        public BorrowResponseDto read(CompactInput in, int version) {
+            requireVersion(this, version);
+            return BorrowResponseDto.builder()
+                    .id(in.readNullableId())
+                    .userFullName(in.readString())
+                    .bookTitle(in.readString())
+                    .borrowDate(in.readDate())
+                    .dueDate(in.readDate())
+                    .returnDate(in.readDate())
+                    .build();
+        }
+    }
+}
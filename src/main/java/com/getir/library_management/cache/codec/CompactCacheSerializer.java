@@ -0,0 +1,237 @@
+package com.getir.library_management.cache.codec;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact binary Redis serializer for cached DTOs, lists and pages.
+// Layout: format version, flags, then the body (deflated and prefixed with its raw length above the threshold).
+// The body is a tree of tagged values; strings and collections are length-prefixed and numbers are varints.
+// Types without a codec fall back to JDK serialization.
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+    static final int FORMAT_VERSION = 1;
+    static final int FLAG_DEFLATED = 1;
+
+    // Built-in tags; DTO codecs use 16 and up
+    private static final int TAG_NULL_VALUE = 0;
+    private static final int TAG_PAGE = 1;
+    private static final int TAG_LIST = 2;
+    private static final int TAG_JDK = 3;
+
+    // Schema version of the page wrapper: paged flag, number, size, sort, total, content
+    private static final int PAGE_VERSION = 1;
+
+    private final Map<Integer, CacheValueCodec<?>> codecsByTag = new HashMap<>();
+    private final Map<Class<?>, CacheValueCodec<?>> codecsByType = new HashMap<>();
+    private final JdkSerializationRedisSerializer fallback;
+    private final int compressionThreshold;
+
+    // compressionThreshold: bodies of at least this many bytes are deflated; 0 or less disables compression
+    public CompactCacheSerializer(List<CacheValueCodec<?>> codecs, int compressionThreshold, ClassLoader classLoader) {
+        for (CacheValueCodec<?> codec : codecs) {
+            if (codec.tag() < 16 || codecsByTag.putIfAbsent(codec.tag(), codec) != null) {
+                throw new IllegalArgumentException("Invalid or duplicate cache codec tag " + codec.tag());
+            }
+            codecsByType.put(codec.type(), codec);
+        }
+        this.fallback = new JdkSerializationRedisSerializer(classLoader);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        CompactOutput body = new CompactOutput(256);
+        writeValue(value, body);
+
+        CompactOutput out = new CompactOutput(body.size() + 8);
+        out.writeByte(FORMAT_VERSION);
+        if (compressionThreshold > 0 && body.size() >= compressionThreshold) {
+            byte[] raw = body.toByteArray();
+            out.writeByte(FLAG_DEFLATED);
+            out.writeVarInt(raw.length);
+            out.writeBytes(deflate(raw));
+        } else {
+            out.writeByte(0);
+            out.writeBytes(body.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        CompactInput header = new CompactInput(bytes, 0);
+        int formatVersion = header.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new SerializationException("Unsupported cache format version " + formatVersion);
+        }
+        int flags = header.readByte();
+        CompactInput body = header;
+        if ((flags & FLAG_DEFLATED) != 0) {
+            int rawLength = header.readVarInt();
+            body = new CompactInput(inflate(header.readBytes(header.remaining()), rawLength), 0);
+        }
+        return readValue(body);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeValue(Object value, CompactOutput out) {
+        if (value == null || value instanceof NullValue) {
+            out.writeVarInt(TAG_NULL_VALUE);
+            return;
+        }
+        CacheValueCodec codec = codecsByType.get(value.getClass());
+        if (codec != null) {
+            out.writeVarInt(codec.tag());
+            out.writeVarInt(codec.version());
+            codec.write(value, out);
+        } else if (value instanceof Page<?> page) {
+            out.writeVarInt(TAG_PAGE);
+            out.writeVarInt(PAGE_VERSION);
+            writePage(page, out);
+        } else if (value instanceof List<?> list) {
+            out.writeVarInt(TAG_LIST);
+            writeList(list, out);
+        } else {
+            out.writeVarInt(TAG_JDK);
+            byte[] serialized = fallback.serialize(value);
+            out.writeVarInt(serialized.length);
+            out.writeBytes(serialized);
+        }
+    }
+
+    private Object readValue(CompactInput in) {
+        int tag = in.readVarInt();
+        switch (tag) {
+            case TAG_NULL_VALUE:
+                return NullValue.INSTANCE;
+            case TAG_PAGE:
+                int pageVersion = in.readVarInt();
+                if (pageVersion != PAGE_VERSION) {
+                    throw new SerializationException("Unsupported page schema version " + pageVersion);
+                }
+                return readPage(in);
+            case TAG_LIST:
+                return readList(in);
+            case TAG_JDK:
+                return fallback.deserialize(in.readBytes(in.readVarInt()));
+            default:
+                CacheValueCodec<?> codec = codecsByTag.get(tag);
+                if (codec == null) {
+                    throw new SerializationException("Unknown cached value tag " + tag);
+                }
+                return codec.read(in, in.readVarInt());
+        }
+    }
+
+    private void writePage(Page<?> page, CompactOutput out) {
+        Pageable pageable = page.getPageable();
+        out.writeBoolean(pageable.isPaged());
+        if (pageable.isPaged()) {
+            out.writeVarInt(pageable.getPageNumber());
+            out.writeVarInt(pageable.getPageSize());
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        out.writeVarInt(orders.size());
+        for (Sort.Order order : orders) {
+            out.writeString(order.getProperty());
+            out.writeBoolean(order.isAscending());
+            out.writeBoolean(order.isIgnoreCase());
+        }
+        out.writeVarLong(page.getTotalElements());
+        writeList(page.getContent(), out);
+    }
+
+    private Page<Object> readPage(CompactInput in) {
+        boolean paged = in.readBoolean();
+        int number = paged ? in.readVarInt() : 0;
+        int size = paged ? in.readVarInt() : 0;
+        int orderCount = in.readVarInt();
+        List<Sort.Order> orders = new ArrayList<>(Math.min(orderCount, in.remaining()));
+        for (int i = 0; i < orderCount; i++) {
+            String property = in.readString();
+            Sort.Order order = in.readBoolean() ? Sort.Order.asc(property) : Sort.Order.desc(property);
+            orders.add(in.readBoolean() ? order.ignoreCase() : order);
+        }
+        long total = in.readVarLong();
+        List<Object> content = readList(in);
+
+        Pageable pageable = paged ? PageRequest.of(number, size, Sort.by(orders)) : Pageable.unpaged();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private void writeList(List<?> list, CompactOutput out) {
+        out.writeVarInt(list.size());
+        for (Object element : list) {
+            writeValue(element, out);
+        }
+    }
+
+    private List<Object> readList(CompactInput in) {
+        int count = in.readVarInt();
+        // Every element takes at least one byte, which bounds the allocation for corrupt input
+        List<Object> list = new ArrayList<>(Math.min(count, in.remaining()));
+        for (int i = 0; i < count; i++) {
+            Object element = readValue(in);
+            list.add(element instanceof NullValue ? null : element);
+        }
+        return list;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            CompactOutput out = new CompactOutput(raw.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.writeBytes(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int length = inflater.inflate(raw, offset, rawLength - offset);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += length;
+            }
+            if (offset != rawLength) {
+                throw new SerializationException("Truncated compressed cache value");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt compressed cache value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
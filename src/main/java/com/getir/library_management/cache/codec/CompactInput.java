@@ -0,0 +1,90 @@
+package com.getir.library_management.cache.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Reads what CompactOutput wrote, failing with a SerializationException on truncated or corrupt input
+public class CompactInput {
+
+    private final byte[] buffer;
+    private int position;
+
+    public CompactInput(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed variable-length integer in cached value");
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new SerializationException("Length out of range in cached value: " + value);
+        }
+        return (int) value;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public Long readNullableId() {
+        long value = readVarLong();
+        return value == 0 ? null : value - 1;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        require(length - 1);
+        String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+        position += length - 1;
+        return value;
+    }
+
+    public LocalDate readDate() {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        long zigZag = value - 1;
+        return LocalDate.ofEpochDay((zigZag >>> 1) ^ -(zigZag & 1));
+    }
+
+    public int remaining() {
+        return buffer.length - position;
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > buffer.length) {
+            throw new SerializationException("Truncated cached value");
+        }
+    }
+}
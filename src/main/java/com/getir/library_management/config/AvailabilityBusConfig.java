@@ -0,0 +1,36 @@
+package com.getir.library_management.config;
+
+import com.getir.library_management.service.impl.AvailabilityEventBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+// Cross-instance availability stream, used when distributed mode is switched on
+@Configuration
+@ConditionalOnProperty(name = "library.availability.distributed.enabled", havingValue = "true")
+public class AvailabilityBusConfig {
+
+    // Receives availability frames published by other instances. A single dispatch thread keeps each instance's
+    // frames in the order they were sent, which the sequence-based duplicate check relies on.
+    @Bean
+    public RedisMessageListenerContainer availabilityListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       AvailabilityEventBus bus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-listener");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        container.addMessageListener(
+                (message, pattern) -> bus.onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(bus.getChannel()));
+        return container;
+    }
+}
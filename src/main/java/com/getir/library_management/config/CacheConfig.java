@@ -0,0 +1,101 @@
+package com.getir.library_management.config;
+
+import com.getir.library_management.cache.CacheInvalidationBus;
+import com.getir.library_management.cache.CachePolicyProperties;
+import com.getir.library_management.cache.CacheSpec;
+import com.getir.library_management.cache.RedisEntryTracker;
+import com.getir.library_management.cache.RedisLoadLock;
+import com.getir.library_management.cache.TwoLevelCache;
+import com.getir.library_management.cache.TwoLevelCacheManager;
+import com.getir.library_management.cache.TwoLevelCacheMetrics;
+import com.getir.library_management.cache.TwoLevelCacheSettings;
+import com.getir.library_management.cache.codec.CacheValueCodecs;
+import com.getir.library_management.cache.codec.CompactCacheSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Two-level cache (in-JVM L1 in front of Redis L2) used whenever the Redis cache type is selected
+@Configuration
+@ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+@EnableConfigurationProperties(CachePolicyProperties.class)
+public class CacheConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             CacheInvalidationBus bus,
+                                             CachePolicyProperties policies,
+                                             @Value("${spring.cache.cache-names:}") List<String> cacheNames,
+                                             @Value("${spring.cache.redis.time-to-live:30m}") Duration defaultTtl,
+                                             @Value("${library.cache.local.max-entries:1000}") long localMaxEntries,
+                                             @Value("${library.cache.local.time-to-live:30s}") Duration localTtl,
+                                             @Value("${library.cache.redis-retry-after:5s}") Duration redisRetryAfter,
+                                             @Value("${library.cache.load-lock.ttl:5s}") Duration loadLockTtl,
+                                             @Value("${library.cache.load-lock.wait:3s}") Duration loadWait,
+                                             @Value("${library.cache.compression-threshold:1024}") int compressionThreshold) {
+        // Redis level: every cache with a policy gets its own TTL, null handling and value format
+        ClassLoader classLoader = getClass().getClassLoader();
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig(classLoader).entryTtl(defaultTtl);
+        RedisSerializationContext.SerializationPair<Object> compact = RedisSerializationContext.SerializationPair.fromSerializer(
+                new CompactCacheSerializer(CacheValueCodecs.defaults(), compressionThreshold, classLoader));
+
+        RedisCacheManager.RedisCacheManagerBuilder redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults);
+        policies.getCaches().forEach((name, policy) -> {
+            CacheSpec spec = policy.withDefaultTtl(defaultTtl);
+            RedisCacheConfiguration configuration = defaults.entryTtl(spec.getTtl());
+            if (!spec.isCacheNulls()) {
+                configuration = configuration.disableCachingNullValues();
+            }
+            if ("compact".equalsIgnoreCase(spec.getSerializer())) {
+                configuration = configuration.serializeValuesWith(compact);
+            }
+            redisCacheManager.withCacheConfiguration(name, configuration);
+        });
+
+        Set<String> initialCacheNames = new LinkedHashSet<>(cacheNames);
+        initialCacheNames.addAll(policies.getCaches().keySet());
+
+        TwoLevelCacheSettings settings = new TwoLevelCacheSettings(
+                localMaxEntries, localTtl, redisRetryAfter, loadLockTtl, loadWait);
+        return new TwoLevelCacheManager(redisCacheManager.build(), bus,
+                new RedisLoadLock(stringRedisTemplate), new RedisEntryTracker(stringRedisTemplate),
+                policies, defaultTtl, initialCacheNames, settings, Clock.systemUTC());
+    }
+
+    // Receives invalidations published by other instances
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus bus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> bus.onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(bus.getChannel()));
+        return container;
+    }
+
+    // Lets actuator publish cache.gets{result=hit|miss} for the two-level caches
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return TwoLevelCacheMetrics::new;
+    }
+}
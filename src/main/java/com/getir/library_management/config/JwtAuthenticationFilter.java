@@ -3,11 +3,14 @@ package com.getir.library_management.config;
 import com.getir.library_management.entity.User;
 import com.getir.library_management.repository.UserRepository;
 import com.getir.library_management.util.JwtService;
+import com.getir.library_management.util.TokenRevocationRegistry;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -24,6 +27,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    // When enabled, the principal is built from signed token claims instead of a database lookup
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -42,8 +50,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Extract the token from the header
         final String token = extractToken(authHeader);
 
+        // Verify the token once and read all of its claims
+        final Claims claims = jwtService.extractClaims(token);
+
         // Extract the user's email (username) from the token
-        final String email = jwtService.extractUsername(token);
+        final String email = claims.getSubject();
+
+        // Stateless mode: trust the signed claims, only consulting the in-memory revocation registry
+        if (stateless && hasIdentityClaims(claims)) {
+            if (email != null && isNotAuthenticated() && !isRevoked(claims)) {
+                SecurityContextHolder.getContext().setAuthentication(buildAuthToken(email, claims, request));
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
 
         // If email is extracted and no authentication is currently set
         if (email != null && isNotAuthenticated()) {
@@ -76,6 +96,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return SecurityContextHolder.getContext().getAuthentication() == null;
     }
 
+    // Tokens issued before stateless mode existed carry no user id or version and need the database path
+    private boolean hasIdentityClaims(Claims claims) {
+        return claims.get(JwtService.USER_ID_CLAIM) != null
+                && claims.get(JwtService.ROLE_CLAIM) != null
+                && claims.get(JwtService.TOKEN_VERSION_CLAIM) != null;
+    }
+
+    // Checks the token's user id and version against the revocation registry
+    private boolean isRevoked(Claims claims) {
+        Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+        Integer version = claims.get(JwtService.TOKEN_VERSION_CLAIM, Integer.class);
+        return tokenRevocationRegistry.isRevoked(userId, version);
+    }
+
+    // Creates an authentication token from the signed claims, using the email as principal
+    private UsernamePasswordAuthenticationToken buildAuthToken(String email, Claims claims, HttpServletRequest request) {
+        var authorities = List.of(new SimpleGrantedAuthority(claims.get(JwtService.ROLE_CLAIM, String.class)));
+        var token = new UsernamePasswordAuthenticationToken(email, null, authorities);
+        token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return token;
+    }
+
     // Creates an authentication token with the user's role and attaches request details
     private UsernamePasswordAuthenticationToken buildAuthToken(User user, HttpServletRequest request) {
         var authorities = List.of(new SimpleGrantedAuthority(user.getRole().name()));
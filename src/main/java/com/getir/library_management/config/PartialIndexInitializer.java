@@ -0,0 +1,45 @@
+package com.getir.library_management.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.List;
+
+// Creates the partial and operator-class indexes that JPA @Index cannot express.
+// Only PostgreSQL supports them; other databases (H2 in tests) keep the plain entity indexes.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartialIndexInitializer implements CommandLineRunner {
+
+    private static final List<String> POSTGRES_INDEXES = List.of(
+            // Open loans only: overdue lookups stay small however much returned history accumulates
+            "CREATE INDEX IF NOT EXISTS idx_borrowing_open_due_date ON borrowing (due_date, id) WHERE return_date IS NULL",
+            // ISBN prefix searches: LIKE 'prefix%' can only use a btree whose order ignores the collation
+            "CREATE INDEX IF NOT EXISTS idx_books_isbn_pattern ON books (isbn varchar_pattern_ops)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        String database = jdbcTemplate.execute((Connection connection) ->
+                JdbcUtils.commonDatabaseName(connection.getMetaData().getDatabaseProductName()));
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        for (String ddl : POSTGRES_INDEXES) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (RuntimeException e) {
+                // A missing index only costs speed, so startup continues
+                log.warn("Could not create index: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.getir.library_management.controller;
+
+import com.getir.library_management.dto.analytics.GenreUtilizationDto;
+import com.getir.library_management.dto.analytics.LoanDurationDto;
+import com.getir.library_management.dto.analytics.TopBookDto;
+import com.getir.library_management.service.interfaces.AnalyticsService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth") // Jwt required for all endpoints
+public class AnalyticsController {
+
+    // Period used when a bound is not given
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+
+    private final AnalyticsService analyticsService;
+
+    // Most borrowed books between two days, last 30 days by default - LIBRARIAN only
+    // GET http://localhost:8070/api/analytics/top-books?from=2024-01-01&to=2024-01-31&limit=10
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/top-books")
+    public ResponseEntity<List<TopBookDto>> getTopBooks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS);
+        return ResponseEntity.ok(analyticsService.getTopBooks(start, end, limit));
+    }
+
+    // Loans, active loans and share of books on loan per genre - LIBRARIAN only
+    // GET http://localhost:8070/api/analytics/genres
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/genres")
+    public ResponseEntity<List<GenreUtilizationDto>> getGenreUtilization() {
+        return ResponseEntity.ok(analyticsService.getGenreUtilization());
+    }
+
+    // Average loan length of the books returned between two days, last 30 days by default - LIBRARIAN only
+    // GET http://localhost:8070/api/analytics/loan-duration?from=2024-01-01&to=2024-01-31
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/loan-duration")
+    public ResponseEntity<LoanDurationDto> getLoanDuration(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS);
+        return ResponseEntity.ok(analyticsService.getLoanDuration(start, end));
+    }
+}
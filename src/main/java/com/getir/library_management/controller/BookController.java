@@ -1,8 +1,11 @@
 package com.getir.library_management.controller;
 
+import com.getir.library_management.dto.book.AvailabilityBitmapDto;
+import com.getir.library_management.dto.book.BookRecommendationDto;
 import com.getir.library_management.dto.book.BookResponseDto;
 import com.getir.library_management.dto.book.CreateBookRequestDto;
 import com.getir.library_management.dto.book.UpdateBookRequestDto;
+import com.getir.library_management.dto.page.CursorPageDto;
 import com.getir.library_management.service.interfaces.BookService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
@@ -12,7 +15,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -49,17 +55,75 @@ public class BookController {
         return ResponseEntity.ok(bookService.getAllBooks());
     }
 
-    // Search books with pagination - public
-    // GET http://localhost:8070/api/book/search?title=java&page=0&size=10&sort=title,asc
+    // Search books with pagination - public; availableOnly=true keeps only books that can be borrowed now
+    // GET http://localhost:8070/api/book/search?title=java&availableOnly=true&page=0&size=10&sort=title,asc
     @GetMapping("/search")
     public ResponseEntity<Page<BookResponseDto>> searchBooks(
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String isbn,
             @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
             @ParameterObject
             @PageableDefault(page = 0, size = 10, sort = "title", direction = Sort.Direction.ASC) Pageable pageable) {
-        return ResponseEntity.ok(bookService.searchBooks(title, author, isbn, genre, pageable));
+        return ResponseEntity.ok(bookService.searchBooks(title, author, isbn, genre, availableOnly, pageable));
+    }
+
+    // Search books with keyset (cursor) pagination, sorted by title or id - public
+    // GET http://localhost:8070/api/book/search/cursor?title=java&size=10&sort=title&cursor=...
+    @GetMapping("/search/cursor")
+    public ResponseEntity<CursorPageDto<BookResponseDto>> searchBooksByCursor(
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String isbn,
+            @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "title") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(bookService.searchBooksByCursor(title, author, isbn, genre, availableOnly, sort, cursor, size));
+    }
+
+    // Availability of every book as a bitmap: book n is bit n % 8 of byte n / 8 - public.
+    // Sent zlib-deflated when the client accepts it; the ETag lets clients revalidate without a download.
+    // GET http://localhost:8070/api/book/availability/bitmap
+    @GetMapping("/availability/bitmap")
+    public ResponseEntity<byte[]> getAvailabilityBitmap(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AvailabilityBitmapDto bitmap = bookService.getAvailabilityBitmap();
+        String etag = "\"" + Long.toHexString(bitmap.checksum()) + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Available-Count", Integer.toString(bitmap.availableCount()));
+        if (acceptEncoding != null && acceptEncoding.contains("deflate")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "deflate")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(bitmap.deflated());
+        }
+        return response.contentType(MediaType.APPLICATION_OCTET_STREAM).body(bitmap.bitmap());
+    }
+
+    // Books that readers of this book also borrowed - public
+    // GET http://localhost:8070/api/book/1/recommendations?limit=10
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<BookRecommendationDto>> getRecommendations(@PathVariable Long id,
+                                                                          @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.getRecommendations(id, limit));
+    }
+
+    // Rebuild the co-borrowing model from the whole borrowing history - LIBRARIAN only
+    // POST http://localhost:8070/api/book/recommendations/rebuild
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @PostMapping("/recommendations/rebuild")
+    public ResponseEntity<Void> rebuildRecommendations() {
+        bookService.rebuildRecommendations();
+        return ResponseEntity.noContent().build();
     }
 
     // Update book - LIBRARIAN only
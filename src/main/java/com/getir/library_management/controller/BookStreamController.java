@@ -1,12 +1,15 @@
 package com.getir.library_management.controller;
 
-import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.dto.book.AvailabilityFilterDto;
 import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
+import java.util.Set;
+
 // This controller exposes the book availability stream as a Server-Sent Event (SSE) endpoint
 @RestController
 @RequiredArgsConstructor
@@ -15,9 +18,16 @@ public class BookStreamController {
 
     private final BookAvailabilityServiceImpl bookAvailabilityService;
 
-    // Client connects to this endpoint and receives updates as they happen
+    // Client connects to this endpoint and receives updates as they happen.
+    // Optional bookIds and genre parameters limit the stream to those books; without them every update is sent.
+    // A new client first receives the availability bitmap as a "bitmap" event unless snapshot=false; a reconnecting
+    // client's Last-Event-ID header resumes the stream after the last event it received instead.
     @GetMapping(value = "/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<BookAvailabilityDto> streamAvailability() {
-        return bookAvailabilityService.getAvailabilityStream();
+    public Flux<ServerSentEvent<?>> streamAvailability(@RequestParam(required = false) Set<Long> bookIds,
+                                                       @RequestParam(name = "genre", required = false) Set<String> genres,
+                                                       @RequestParam(defaultValue = "true") boolean snapshot,
+                                                       @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return bookAvailabilityService.getAvailabilityEvents(
+                new AvailabilityFilterDto(bookIds, genres), lastEventId, snapshot);
     }
 }
@@ -2,6 +2,9 @@ package com.getir.library_management.controller;
 
 import com.getir.library_management.dto.borrow.BorrowRequestDto;
 import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.borrow.OverdueIndexReportDto;
+import com.getir.library_management.dto.page.CursorPageDto;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
 import com.getir.library_management.service.interfaces.BorrowingService;
 import com.getir.library_management.service.interfaces.OverdueReportService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,8 +16,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/borrowing")
@@ -26,6 +32,8 @@ public class BorrowingController {
 
     private final OverdueReportService overdueReportService;
 
+    private final OpenLoanDueDateIndex openLoanDueDateIndex;
+
     // Borrow book
     // POST http://localhost:8070/api/borrowing
     @PreAuthorize("hasRole('USER')")
@@ -41,6 +49,16 @@ public class BorrowingController {
         return ResponseEntity.ok(borrowingService.getBorrowingsByUser(id));
     }
 
+    // Get a user's borrowings newest first with keyset (cursor) pagination
+    // GET http://localhost:8070/api/borrowing/user/1/cursor?size=20&cursor=...
+    @GetMapping("/user/{id}/cursor")
+    public ResponseEntity<CursorPageDto<BorrowResponseDto>> getBorrowingsOfUserByCursor(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(borrowingService.getBorrowingsByUserByCursor(id, cursor, size));
+    }
+
     // Get all borrowings - LIBRARIAN only
     // GET http://localhost:8070/api/borrowing/all
     @PreAuthorize("hasRole('LIBRARIAN')")
@@ -49,6 +67,16 @@ public class BorrowingController {
         return ResponseEntity.ok(borrowingService.getAllBorrowings());
     }
 
+    // Get all borrowings newest first with keyset (cursor) pagination - LIBRARIAN only
+    // GET http://localhost:8070/api/borrowing/all/cursor?size=20&cursor=...
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/all/cursor")
+    public ResponseEntity<CursorPageDto<BorrowResponseDto>> getAllBorrowingsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(borrowingService.getAllBorrowingsByCursor(cursor, size));
+    }
+
     // Get overdue books - LIBRARIAN only
     // GET http://localhost:8070/api/borrowing/overdue
     @PreAuthorize("hasRole('LIBRARIAN')")
@@ -57,6 +85,14 @@ public class BorrowingController {
         return ResponseEntity.ok(borrowingService.getOverdueBooks());
     }
 
+    // Compare the in-memory overdue index with the database, rebuilding it when repair=true - LIBRARIAN only
+    // GET http://localhost:8070/api/borrowing/overdue/index/verify?repair=false
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/overdue/index/verify")
+    public ResponseEntity<OverdueIndexReportDto> verifyOverdueIndex(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(openLoanDueDateIndex.verify(repair));
+    }
+
     // Get all borrowings report - LIBRARIAN only
     // GET http://localhost:8070/api/borrowing/overdue/export
     @GetMapping("/overdue/export")
@@ -71,6 +107,30 @@ public class BorrowingController {
         return ResponseEntity.ok().headers(headers).body(csv);
     }
 
+    // Stream the overdue report row by row, optionally gzip-encoded - LIBRARIAN only
+    // GET http://localhost:8070/api/borrowing/overdue/export/stream?gzip=true
+    @GetMapping("/overdue/export/stream")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> streamOverdueBooksCsv(@RequestParam(defaultValue = "false") boolean gzip) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=overdue_books.csv");
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                overdueReportService.writeOverdueBooksCsv(compressed);
+                compressed.finish();
+            } else {
+                overdueReportService.writeOverdueBooksCsv(out);
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
     // Return borrowed book
     // PUT http://localhost:8070/api/borrowing/1
     @PreAuthorize("hasRole('USER')")
@@ -0,0 +1,73 @@
+package com.getir.library_management.controller;
+
+import com.getir.library_management.dto.report.ReportJobDto;
+import com.getir.library_management.dto.report.ReportType;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.InvalidReportTypeException;
+import com.getir.library_management.service.interfaces.ReportJobService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth") // Jwt required for all endpoints
+public class ReportController {
+
+    private final ReportJobService reportJobService;
+
+    // Start a report job (overdue or circulation); identical requests share one job - LIBRARIAN only
+    // POST http://localhost:8070/api/reports/overdue
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @PostMapping("/{type}")
+    public ResponseEntity<ReportJobDto> submitReport(@PathVariable String type) {
+        ReportJobDto job = reportJobService.submit(parseType(type));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    // Poll a report job - LIBRARIAN only
+    // GET http://localhost:8070/api/reports/jobs/{id}
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobDto> getReportJob(@PathVariable String id) {
+        return ResponseEntity.ok(reportJobService.getJob(id));
+    }
+
+    // Download the file of a finished report job - LIBRARIAN only
+    // GET http://localhost:8070/api/reports/jobs/{id}/download
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadReport(@PathVariable String id) {
+        ReportJobDto job = reportJobService.getJob(id);
+        Resource file = new FileSystemResource(reportJobService.getReportFile(id));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=" + job.getType().name().toLowerCase(Locale.ROOT) + "_report.csv");
+
+        return ResponseEntity.ok().headers(headers).body(file);
+    }
+
+    // Maps the path segment to a report type, rejecting unknown ones with 400
+    private static ReportType parseType(String type) {
+        try {
+            return ReportType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidReportTypeException(ExceptionMessages.INVALID_REPORT_TYPE);
+        }
+    }
+}
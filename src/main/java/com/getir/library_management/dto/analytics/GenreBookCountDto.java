@@ -0,0 +1,14 @@
+package com.getir.library_management.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Number of books in the catalog per genre
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenreBookCountDto {
+    private String genre;
+    private Long books;
+}
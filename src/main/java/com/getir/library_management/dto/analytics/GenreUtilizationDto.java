@@ -0,0 +1,20 @@
+package com.getir.library_management.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Loan activity of one genre
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenreUtilizationDto {
+    private String genre;
+    private long books; // Books of the genre in the catalog
+    private long loans; // Loans ever made
+    private long activeLoans; // Loans not yet returned
+    private long overdueLoans; // Active loans past their due date
+    private double utilization; // Share of the genre's books currently on loan
+}
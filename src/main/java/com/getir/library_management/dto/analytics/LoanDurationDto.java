@@ -0,0 +1,21 @@
+package com.getir.library_management.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// How long the loans returned in a period were kept
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDurationDto {
+    private LocalDate from;
+    private LocalDate to;
+    private long returnedLoans;
+    private double averageDays;
+    private long lateReturns; // Returned after their due date
+}
@@ -0,0 +1,23 @@
+package com.getir.library_management.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// One borrowing as the analytics snapshot stores it; read straight from the borrowing and book tables
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanFactDto {
+    private Long id;
+    private Long bookId;
+    private Long userId;
+    private String genre;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+}
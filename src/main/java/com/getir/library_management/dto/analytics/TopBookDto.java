@@ -0,0 +1,17 @@
+package com.getir.library_management.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A book with the number of times it was borrowed in the requested period
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopBookDto {
+    private Long bookId;
+    private String title;
+    private long loans;
+}
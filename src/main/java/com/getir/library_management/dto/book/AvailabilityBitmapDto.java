@@ -0,0 +1,6 @@
+package com.getir.library_management.dto.book;
+
+// The availability bitmap as served by the bitmap endpoint: the raw little-endian bytes (book n is bit n % 8 of
+// byte n / 8), the same bytes zlib-deflated, and a checksum of the bitmap used as its ETag
+public record AvailabilityBitmapDto(byte[] bitmap, byte[] deflated, long checksum, int availableCount) {
+}
@@ -0,0 +1,8 @@
+package com.getir.library_management.dto.book;
+
+// Initial state sent on the availability stream: the bitmap of available book ids (book n is bit n % 8 of byte n / 8),
+// zlib-deflated and Base64-encoded. Events after it are changes to apply on top.
+public record AvailabilityBitmapFrameDto(String encoding, String bitmap, int availableCount) {
+
+    public static final String DEFLATE_BASE64 = "deflate+base64";
+}
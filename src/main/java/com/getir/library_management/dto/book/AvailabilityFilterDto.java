@@ -0,0 +1,35 @@
+package com.getir.library_management.dto.book;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Books an availability stream subscriber wants to hear about: the listed books plus every book of the listed
+// genres. Without either, the subscriber receives the whole catalog. Genres match case-insensitively.
+public record AvailabilityFilterDto(Set<Long> bookIds, Set<String> genres) {
+
+    public static final AvailabilityFilterDto ALL = new AvailabilityFilterDto(Set.of(), Set.of());
+
+    public AvailabilityFilterDto {
+        bookIds = bookIds == null ? Set.of() : Set.copyOf(bookIds);
+        genres = genres == null ? Set.of() : genres.stream()
+                .filter(genre -> genre != null && !genre.isBlank())
+                .map(AvailabilityFilterDto::normalize)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isEmpty() {
+        return bookIds.isEmpty() && genres.isEmpty();
+    }
+
+    // Whether a subscriber with this filter receives the update
+    public boolean matches(BookAvailabilityDto update) {
+        return isEmpty()
+                || bookIds.contains(update.bookId())
+                || update.genre() != null && genres.contains(normalize(update.genre()));
+    }
+
+    public static String normalize(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,8 @@
+package com.getir.library_management.dto.book;
+
+import java.util.List;
+
+// Sent to a reconnecting availability stream client whose last event is no longer buffered: the books of its filter
+// that are on loan right now. Every other book of the filter is available.
+public record AvailabilitySnapshotDto(List<Long> unavailableBookIds) {
+}
@@ -1,5 +1,10 @@
 package com.getir.library_management.dto.book;
 
 // A simple DTO to represent real-time availability information
-public record BookAvailabilityDto(Long bookId, String title, boolean available) {}
+public record BookAvailabilityDto(Long bookId, String title, boolean available, String genre) {
 
+    // Update without a genre; only subscribers without a genre filter or following this book receive it
+    public BookAvailabilityDto(Long bookId, String title, boolean available) {
+        this(bookId, title, available, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.getir.library_management.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A book that readers of another book also borrowed
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookRecommendationDto {
+    private Long bookId;
+    private String title;
+    private int sharedReaders; // Readers who borrowed both books
+}
@@ -1,13 +1,15 @@
 package com.getir.library_management.dto.borrow;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDate;
 
-// Used to return borrowing details to the client
+// Used to return borrowing details to the client; the constructor also serves JPQL projections
 @Data
 @Builder
+@AllArgsConstructor
 public class BorrowResponseDto {
     private Long id;
     private String userFullName;
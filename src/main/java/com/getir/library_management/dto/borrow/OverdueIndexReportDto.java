@@ -0,0 +1,24 @@
+package com.getir.library_management.dto.borrow;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Result of comparing the in-memory open loan index with the borrowing table
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueIndexReportDto {
+    private boolean ready;
+    private int indexedLoans;
+    private int databaseLoans;
+    private List<Long> missing; // Open in the database, absent from the index
+    private List<Long> mismatched; // Indexed under a different due date
+    private List<Long> unexpected; // Indexed, but returned or deleted in the database
+    private boolean consistent;
+    private boolean repaired; // The index was rebuilt after this comparison
+}
@@ -0,0 +1,23 @@
+package com.getir.library_management.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Status of a report job; the file can be downloaded once the status is SUCCEEDED
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDto {
+    private String id;
+    private ReportType type;
+    private ReportJobStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long sizeBytes;
+    private String error;
+}
@@ -0,0 +1,9 @@
+package com.getir.library_management.dto.report;
+
+// Lifecycle of a report job
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package com.getir.library_management.dto.report;
+
+// Reports that can be generated as background jobs
+public enum ReportType {
+    OVERDUE, // Open borrowings past their due date
+    CIRCULATION // Every borrowing, returned or not
+}
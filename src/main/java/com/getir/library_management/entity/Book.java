@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        // Serves keyset pagination ordered by (title, id)
+        @Index(name = "idx_books_title_id", columnList = "title, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -7,7 +7,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrowing")
+@Table(name = "borrowing", indexes = {
+        // Serves a member's newest-first history, paged by (borrow_date, id)
+        @Index(name = "idx_borrowing_user_borrow_date", columnList = "user_id, borrow_date, id"),
+        // Serves the newest-first history of all members, paged by (borrow_date, id)
+        @Index(name = "idx_borrowing_borrow_date_id", columnList = "borrow_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,10 +24,10 @@ public class Borrowing {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user; // Who borrowed
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book; // Which book
 
     private LocalDate borrowDate; // The date book was borrowed
@@ -30,4 +30,8 @@ public class User {
 
     @Column(nullable = false)
     private boolean markedAsDeleted = false;
+
+    // Bumped whenever previously issued tokens must stop being accepted (role/email change, soft delete)
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion;
 }
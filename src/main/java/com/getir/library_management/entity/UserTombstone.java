@@ -0,0 +1,24 @@
+package com.getir.library_management.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Left behind by a hard delete, so the deleted user's tokens stay revoked after a restart
+@Entity
+@Table(name = "user_tombstones")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserTombstone {
+
+    // Id of the deleted user; user ids are never reused
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -5,5 +5,17 @@ public class ExceptionMessages {
     public static final String BOOK_EXISTS = "A book with the same ISBN already exists in the library. Duplicate entries are not allowed.";
     public static final String USER_NOT_FOUND = "The specified user could not be located. Please ensure the user ID or email is correct.";
     public static final String BOOK_UNAVAILABLE = "The book you are trying to borrow is currently not available. It may have been borrowed by another user.";
+    public static final String AUTHENTICATION_BUSY = "The authentication service is handling too many requests right now. Please try again in a moment.";
+    public static final String BORROWING_BUSY = "Too many borrow and return requests are waiting to be recorded right now. Please try again in a moment.";
+    public static final String REPORT_JOB_NOT_FOUND = "The requested report job does not exist. Finished reports are dropped once newer data replaces them.";
+    public static final String REPORT_NOT_READY = "The report is not ready for download yet. Poll the job status until it has succeeded.";
+    public static final String REPORT_FILE_MISSING = "The report file is not available. It was replaced by a newer report or written to a directory this instance does not share.";
+    public static final String INVALID_REPORT_TYPE = "Unknown report type. Supported types are overdue and circulation.";
+    public static final String REPORT_JOBS_BUSY = "Too many reports are being generated right now. Please try again in a moment.";
+    public static final String ANALYTICS_NOT_READY = "Circulation analytics are still being loaded. Please try again in a moment.";
+    public static final String AVAILABILITY_NOT_READY = "The availability bitmap is still being loaded. Please try again in a moment.";
+    public static final String INVALID_CURSOR = "The pagination cursor is invalid or was issued for a different sort order. Start again without a cursor.";
+    public static final String INVALID_CURSOR_SORT = "Cursor pagination can only sort by title or id.";
+    public static final String SUBSCRIPTION_FILTER_TOO_LARGE = "The availability stream filter lists too many books and genres. Subscribe to fewer books or to their genres instead.";
     public static final String BORROWING_NOT_FOUND = "The borrowing record you are looking for does not exist or has already been returned.";
 }
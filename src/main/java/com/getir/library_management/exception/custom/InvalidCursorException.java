@@ -0,0 +1,8 @@
+package com.getir.library_management.exception.custom;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message); // Pass the message to the parent RuntimeException
+    }
+}
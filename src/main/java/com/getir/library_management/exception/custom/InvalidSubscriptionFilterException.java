@@ -0,0 +1,8 @@
+package com.getir.library_management.exception.custom;
+
+public class InvalidSubscriptionFilterException extends RuntimeException {
+
+    public InvalidSubscriptionFilterException(String message) {
+        super(message); // Pass the message to the parent RuntimeException
+    }
+}
@@ -0,0 +1,8 @@
+package com.getir.library_management.exception.custom;
+
+public class ReportJobNotFoundException extends RuntimeException {
+
+    public ReportJobNotFoundException(String message) {
+        super(message); // Pass the message to the parent RuntimeException
+    }
+}
@@ -6,6 +6,7 @@ import com.getir.library_management.exception.custom.*;
 import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -74,6 +75,82 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(buildErrorResponse(HttpStatus.CONFLICT, "Email Already Exists", "Email already exists."), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(AuthenticationBusyException.class)
+    public ResponseEntity<ErrorResponse> handleAuthenticationBusy(AuthenticationBusyException ex) {
+        log.warn("Authentication busy: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ExceptionMessages.AUTHENTICATION_BUSY));
+    }
+
+    @ExceptionHandler(BorrowingBusyException.class)
+    public ResponseEntity<ErrorResponse> handleBorrowingBusy(BorrowingBusyException ex) {
+        log.warn("Borrowing writes busy: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ExceptionMessages.BORROWING_BUSY));
+    }
+
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleReportJobNotFound(ReportJobNotFoundException ex) {
+        log.warn("Report job not found: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.NOT_FOUND, "Report Job Not Found", ex.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ReportNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleReportNotReady(ReportNotReadyException ex) {
+        log.info("Report not ready: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.CONFLICT, "Report Not Ready", ExceptionMessages.REPORT_NOT_READY), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ReportJobsBusyException.class)
+    public ResponseEntity<ErrorResponse> handleReportJobsBusy(ReportJobsBusyException ex) {
+        log.warn("Report jobs busy: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ExceptionMessages.REPORT_JOBS_BUSY));
+    }
+
+    @ExceptionHandler(AnalyticsNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleAnalyticsNotReady(AnalyticsNotReadyException ex) {
+        log.warn("Analytics not ready: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ExceptionMessages.ANALYTICS_NOT_READY));
+    }
+
+    @ExceptionHandler(AvailabilityNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleAvailabilityNotReady(AvailabilityNotReadyException ex) {
+        log.warn("Availability bitmap not ready: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ExceptionMessages.AVAILABILITY_NOT_READY));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid cursor: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid Cursor", ExceptionMessages.INVALID_CURSOR), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorSortException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorSort(InvalidCursorSortException ex) {
+        log.warn("Invalid cursor sort: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid Sort", ExceptionMessages.INVALID_CURSOR_SORT), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidReportTypeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidReportType(InvalidReportTypeException ex) {
+        log.warn("Invalid report type: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid Report Type", ExceptionMessages.INVALID_REPORT_TYPE), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidSubscriptionFilterException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidSubscriptionFilter(InvalidSubscriptionFilterException ex) {
+        log.warn("Invalid subscription filter: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.BAD_REQUEST, "Invalid Subscription Filter", ExceptionMessages.SUBSCRIPTION_FILTER_TOO_LARGE), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(JwtException.class)
     public ResponseEntity<ErrorResponse> handleJwt(JwtException ex) {
         log.warn("JWT error: {}", ex.getMessage());
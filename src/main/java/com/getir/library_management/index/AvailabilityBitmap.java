@@ -0,0 +1,174 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Bitmap of available book ids: bit n is set while book n can be borrowed.
+// Loaded from the books table at startup and kept current by the availability stream, which applies every update
+// of this and the other instances in event order. A whole catalog fits in a few kilobytes once deflated, so it is
+// what new stream subscribers receive as their initial state and what the bitmap endpoint serves.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AvailabilityBitmap {
+
+    // Book ids read per query while building the bitmap
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private final BookRepository bookRepository;
+
+    // Guarded by this; version counts the changes, so an encoded copy can be reused until the next one
+    private BitSet available = new BitSet();
+    private long version;
+
+    // Last encoded copy; any copy is correct for the version it carries
+    private volatile Snapshot cached;
+
+    // Changes received while a build reads the table, replayed over what the build has read
+    private final List<Runnable> changesWhileLoading = new ArrayList<>();
+    private boolean loading;
+
+    private volatile boolean ready;
+
+    @Value("${library.availability.bitmap.enabled:true}")
+    private boolean enabled;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Builds the bitmap once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Reads the available books again; reads keep using the previous bitmap meanwhile
+    public void rebuild() {
+        synchronized (this) {
+            loading = true;
+            changesWhileLoading.clear();
+        }
+        BitSet built = new BitSet();
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            ids = bookRepository.findAvailableIdsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Long id : ids) {
+                if (!fits(id)) {
+                    // Such ids cannot be represented; the stream and the endpoint fall back to the database
+                    log.warn("Book id {} does not fit the availability bitmap; bitmap disabled", id);
+                    synchronized (this) {
+                        loading = false;
+                    }
+                    ready = false;
+                    return;
+                }
+                built.set(id.intValue());
+            }
+            if (!ids.isEmpty()) {
+                lastId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == LOAD_BATCH_SIZE);
+
+        synchronized (this) {
+            available = built;
+            version++;
+            changesWhileLoading.forEach(Runnable::run);
+            changesWhileLoading.clear();
+            loading = false;
+        }
+        ready = true;
+        log.info("Availability bitmap loaded with {} available books", built.cardinality());
+    }
+
+    // Records the availability carried by a stream update; the caller applies updates in event order
+    public void update(Long bookId, boolean isAvailable) {
+        if (!enabled || bookId == null || !fits(bookId)) {
+            return;
+        }
+        int bit = bookId.intValue();
+        apply(() -> {
+            if (available.get(bit) != isAvailable) {
+                available.set(bit, isAvailable);
+                version++;
+            }
+        });
+    }
+
+    // Current bitmap, encoded at most once per version; null until the bitmap is ready
+    public Snapshot snapshot() {
+        if (!isReady()) {
+            return null;
+        }
+        Snapshot current = cached;
+        long currentVersion;
+        byte[] bitmap;
+        int count;
+        synchronized (this) {
+            if (current != null && current.version() == version) {
+                return current;
+            }
+            currentVersion = version;
+            bitmap = available.toByteArray();
+            count = available.cardinality();
+        }
+        // Encoded outside the lock, so updates are not held up by large catalogs
+        Snapshot encoded = new Snapshot(currentVersion, bitmap, deflate(bitmap), checksum(bitmap), count);
+        cached = encoded;
+        return encoded;
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (loading) {
+            changesWhileLoading.add(change);
+        }
+        change.run();
+    }
+
+    private static boolean fits(long bookId) {
+        return bookId >= 0 && bookId < Integer.MAX_VALUE;
+    }
+
+    private static byte[] deflate(byte[] bitmap) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bitmap);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bitmap.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long checksum(byte[] bitmap) {
+        CRC32 crc = new CRC32();
+        crc.update(bitmap);
+        return crc.getValue();
+    }
+
+    // The bitmap as little-endian bytes (book n is bit n % 8 of byte n / 8), its zlib-deflated form, a checksum of
+    // the bitmap that is equal on every instance holding the same availability, and the number of available books
+    public record Snapshot(long version, byte[] bitmap, byte[] deflated, long checksum, int availableCount) {
+    }
+}
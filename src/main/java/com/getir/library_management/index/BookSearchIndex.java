@@ -0,0 +1,252 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BookSpecifications;
+import com.getir.library_management.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory trigram index over book title, author, isbn and genre.
+// Resolves substring searches to matching ids without scanning the books table, then loads the page by primary key.
+// Kept current by the book writes of this instance, so like the due-date index it stays off while distributed mode
+// is on: books added, renamed or deleted on another instance would never reach it.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    // Indexed fields: title, author, isbn, genre
+    private static final int FIELD_COUNT = 4;
+
+    // Number of books read per query while building the index
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final TrigramIndex index = new TrigramIndex(FIELD_COUNT);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Writes committed while the build reads the table, replayed over what the build has read
+    private final List<Change> changesWhileLoading = new ArrayList<>();
+    private boolean loading;
+
+    // Searches are answered by the database until the initial load has finished
+    private volatile boolean ready;
+
+    @Value("${library.search.index.enabled:true}")
+    private boolean enabled;
+
+    // Largest match set that is still sorted by the database through an id IN (...) query
+    @Value("${library.search.index.max-sorted-candidates:1000}")
+    private int maxSortedCandidates;
+
+    // Other instances write books this index never hears of
+    @Value("${library.availability.distributed.enabled:false}")
+    private boolean distributed;
+
+    // Builds the index from the books table once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled && distributed) {
+            log.warn("Book search index disabled: it only sees the book writes of one instance");
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            loading = true;
+            changesWhileLoading.clear();
+        }
+        long lastId = 0;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            writeLocked(batch, books -> books.forEach(book -> index.put(book.getId(), fieldValues(book))));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        // A batch may have been read before a write that was applied ahead of it
+        synchronized (this) {
+            writeLocked(changesWhileLoading, changes -> changes.forEach(this::write));
+            changesWhileLoading.clear();
+            loading = false;
+        }
+        ready = true;
+        log.info("Book search index loaded with {} books", size());
+    }
+
+    // Indexes a new or updated book once the current transaction commits
+    public void index(Book book) {
+        if (!active()) {
+            return;
+        }
+        Change change = new Change(book.getId(), fieldValues(book));
+        TransactionHooks.afterCommit(() -> apply(change));
+    }
+
+    // Drops a deleted book once the current transaction commits
+    public void remove(Long id) {
+        if (!active()) {
+            return;
+        }
+        Change change = new Change(id, null);
+        TransactionHooks.afterCommit(() -> apply(change));
+    }
+
+    // Answers a search from the index, or returns empty when the database query must be used instead
+    // For availableOnly the database filters the matches by their committed availability: a bitmap of this instance
+    // may still trail a borrow whose search cache generation bump has already arrived, and the page would be cached
+    public Optional<Page<Book>> search(String title, String author, String isbn, String genre, boolean availableOnly,
+                                       Pageable pageable) {
+        // Full and partial ISBNs are exact/prefix lookups on the isbn index, which the database answers directly
+        if (!active() || !ready || BookSpecifications.isIsbnLookup(isbn) || !canServe(title, author, isbn, genre)) {
+            return Optional.empty();
+        }
+
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            ids = index.match(new String[]{title, author, isbn, genre});
+        } finally {
+            lock.readLock().unlock();
+        }
+        return availableOnly ? loadAvailablePage(ids, pageable) : loadPage(ids, pageable);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The index mirrors LIKE '%term%' only when at least one filter is set and no term contains LIKE wildcards
+    // or the escape character, which the database would interpret instead of matching literally
+    private boolean canServe(String... terms) {
+        boolean anyFilter = false;
+        for (String term : terms) {
+            if (term == null) {
+                continue;
+            }
+            if (term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0) {
+                return false;
+            }
+            anyFilter = true;
+        }
+        return anyFilter;
+    }
+
+    // Loads the requested page of matching books by primary key
+    private Optional<Page<Book>> loadPage(long[] ids, Pageable pageable) {
+        if (ids.length == 0 || pageable.getOffset() >= ids.length) {
+            return Optional.of(new PageImpl<>(List.of(), pageable, ids.length));
+        }
+
+        // Id order can be paged in memory, so only the page's own rows are read
+        Sort.Order idOrder = idOnlyOrder(pageable.getSort());
+        if (pageable.getSort().isUnsorted() || idOrder != null) {
+            boolean descending = idOrder != null && idOrder.isDescending();
+            List<Long> pageIds = sliceIds(ids, pageable, descending);
+            Comparator<Book> byId = Comparator.comparing(Book::getId);
+            List<Book> content = new ArrayList<>(bookRepository.findAllById(pageIds));
+            content.sort(descending ? byId.reversed() : byId);
+            return Optional.of(new PageImpl<>(content, pageable, ids.length));
+        }
+
+        // Any other order is left to the database, restricted to the matching ids (no COUNT query needed)
+        if (ids.length > maxSortedCandidates) {
+            return Optional.empty();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        return Optional.of(new PageImpl<>(bookRepository.findByIdIn(idList, pageable), pageable, ids.length));
+    }
+
+    // Loads the requested page of the matching books that are available, counted by the database
+    private Optional<Page<Book>> loadAvailablePage(long[] ids, Pageable pageable) {
+        if (ids.length == 0) {
+            return Optional.of(new PageImpl<>(List.of(), pageable, 0));
+        }
+        if (ids.length > maxSortedCandidates) {
+            return Optional.empty();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        return Optional.of(bookRepository.findByIdInAndAvailabilityTrue(idList, pageable));
+    }
+
+    private static Sort.Order idOnlyOrder(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && "id".equals(orders.get(0).getProperty()) ? orders.get(0) : null;
+    }
+
+    private static List<Long> sliceIds(long[] ids, Pageable pageable, boolean descending) {
+        int from = (int) pageable.getOffset();
+        int to = Math.min(ids.length, from + pageable.getPageSize());
+        List<Long> slice = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            slice.add(descending ? ids[ids.length - 1 - i] : ids[i]);
+        }
+        return slice;
+    }
+
+    private static String[] fieldValues(Book book) {
+        return new String[]{book.getTitle(), book.getAuthor(), book.getIsbn(), book.getGenre()};
+    }
+
+    // Enabled and not sharing the books table with other instances
+    private boolean active() {
+        return enabled && !distributed;
+    }
+
+    private synchronized void apply(Change change) {
+        if (loading) {
+            changesWhileLoading.add(change);
+        }
+        writeLocked(change, this::write);
+    }
+
+    // Caller holds the write lock
+    private void write(Change change) {
+        if (change.values() == null) {
+            index.remove(change.id());
+        } else {
+            index.put(change.id(), change.values());
+        }
+    }
+
+    private <T> void writeLocked(T value, Consumer<T> action) {
+        lock.writeLock().lock();
+        try {
+            action.accept(value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A committed write: the book's new field values, or null values for a deleted book
+    private record Change(Long id, String[] values) {
+    }
+}
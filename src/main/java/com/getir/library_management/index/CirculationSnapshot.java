@@ -0,0 +1,470 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.analytics.GenreUtilizationDto;
+import com.getir.library_management.dto.analytics.LoanDurationDto;
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.analytics.TopBookDto;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+// Column-oriented copy of the borrowing table for circulation analytics.
+// Every loan is one row across primitive arrays (book, user, borrow, due and return day as epoch days), so the
+// aggregations are tight loops over a few arrays, split across the common fork/join pool, and never touch the
+// database. Book ids and genres are dictionary-encoded, so per-book and per-genre counters are plain int arrays.
+// Built at startup and kept current by the borrow and return paths of this instance, like the due-date index, so
+// it stays off when several instances share the database.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CirculationSnapshot {
+
+    // Loans read per query while building the snapshot
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    // Rows scanned by one fork/join leaf task
+    private static final int SCAN_THRESHOLD = 1 << 16;
+
+    // Day stored for a missing due date and for loans that are still open
+    private static final int NO_DAY = Integer.MAX_VALUE;
+
+    // Genre reported for books without one
+    public static final String UNCLASSIFIED = "Unclassified";
+
+    private final BorrowingRepository borrowingRepository;
+
+    // Replaced as a whole when it has to grow; readers scan the instance they read, up to its published size
+    private volatile Columns columns = new Columns();
+
+    // Borrowing id -> row of loans that are still open, to apply returns
+    private Map<Long, Integer> openRows = new HashMap<>();
+
+    // Events received while a build reads the table, replayed over what the build has read
+    private final List<LoanEvent> eventsWhileLoading = new ArrayList<>();
+    private boolean loading;
+
+    private volatile boolean ready;
+
+    @Value("${library.analytics.enabled:true}")
+    private boolean enabled;
+
+    // The snapshot only sees the loans of this instance, so it cannot be kept current across several
+    @Value("${library.availability.distributed.enabled:false}")
+    private boolean distributed;
+
+    public boolean isReady() {
+        return active() && ready;
+    }
+
+    // Builds the snapshot once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled && distributed) {
+            log.warn("Circulation snapshot disabled: it only sees the loans of one instance");
+            return;
+        }
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Replaces the snapshot with the borrowings currently in the database
+    public void rebuild() {
+        synchronized (this) {
+            loading = true;
+            eventsWhileLoading.clear();
+        }
+        Columns built = new Columns();
+        Map<Long, Integer> builtOpenRows = new HashMap<>();
+        // Ids read by this build, so replayed borrow events do not add a loan twice
+        BitSet loaded = new BitSet();
+        long lastId = 0;
+        List<LoanFactDto> batch;
+        do {
+            batch = borrowingRepository.findLoanFactsAfterId(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (LoanFactDto loan : batch) {
+                built = append(built, builtOpenRows, loan);
+                if (loan.getId() <= Integer.MAX_VALUE) {
+                    loaded.set(loan.getId().intValue());
+                }
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        synchronized (this) {
+            columns = built;
+            openRows = builtOpenRows;
+            for (LoanEvent event : eventsWhileLoading) {
+                if (event.opened() != null) {
+                    long id = event.opened().getId();
+                    if (id > Integer.MAX_VALUE || !loaded.get((int) id)) {
+                        open(event.opened());
+                    }
+                } else {
+                    close(event.closedId(), event.returnDate());
+                }
+            }
+            eventsWhileLoading.clear();
+            loading = false;
+        }
+        ready = true;
+        log.info("Circulation snapshot loaded with {} loans ({} open)", rows(), openLoans());
+    }
+
+    // Adds a new loan once the current transaction commits
+    public void loanOpened(LoanFactDto loan) {
+        if (!active()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (loading) {
+                    eventsWhileLoading.add(new LoanEvent(loan, null, null));
+                }
+                open(loan);
+            }
+        });
+    }
+
+    // Records a return once the current transaction commits
+    public void loanClosed(Long borrowingId, LocalDate returnDate) {
+        if (!active()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (loading) {
+                    eventsWhileLoading.add(new LoanEvent(null, borrowingId, returnDate));
+                }
+                close(borrowingId, returnDate);
+            }
+        });
+    }
+
+    // Number of loans held
+    public int rows() {
+        return columns.size;
+    }
+
+    // Number of loans not yet returned
+    public synchronized int openLoans() {
+        return openRows.size();
+    }
+
+    // Books borrowed most often between the given days (inclusive), most borrowed first; titles are left empty
+    public List<TopBookDto> topBooks(LocalDate from, LocalDate to, int limit) {
+        Columns c = columns;
+        int rows = c.size;
+        int books = c.books;
+        int first = day(from);
+        int last = day(to);
+        int[] book = c.book;
+        int[] borrowDay = c.borrowDay;
+
+        int[] counts = scan(rows, () -> new int[books], (acc, start, end) -> {
+            for (int row = start; row < end; row++) {
+                int borrowed = borrowDay[row];
+                if (borrowed >= first && borrowed <= last) {
+                    acc[book[row]]++;
+                }
+            }
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+
+        // Keep the top entries in a min-heap of book codes instead of sorting every book
+        Comparator<Integer> byLoans = Comparator.<Integer>comparingInt(code -> counts[code])
+                .thenComparing(code -> c.bookIds[code], Comparator.reverseOrder());
+        PriorityQueue<Integer> top = new PriorityQueue<>(byLoans);
+        for (int code = 0; code < books; code++) {
+            if (counts[code] == 0) {
+                continue;
+            }
+            top.add(code);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<TopBookDto> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int code = top.poll();
+            result.add(TopBookDto.builder().bookId(c.bookIds[code]).loans(counts[code]).build());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Loans, active loans and overdue loans per genre, in genre name order; catalog figures are left empty
+    public List<GenreUtilizationDto> genres(LocalDate today) {
+        Columns c = columns;
+        int rows = c.size;
+        // Read after the size, so every book of the scanned rows has a code below the genre count read with it
+        BookGenres dictionary = c.bookGenres;
+        int genres = dictionary.genreCount();
+        int todayDay = day(today);
+        int[] book = c.book;
+        int[] bookGenres = dictionary.codes();
+        int[] dueDay = c.dueDay;
+        int[] returnDay = c.returnDay;
+
+        // Three counters per genre: loans, active loans, overdue loans
+        long[] counts = scan(rows, () -> new long[genres * 3], (acc, start, end) -> {
+            for (int row = start; row < end; row++) {
+                int slot = bookGenres[book[row]] * 3;
+                acc[slot]++;
+                if (returnDay[row] == NO_DAY) {
+                    acc[slot + 1]++;
+                    if (dueDay[row] < todayDay) {
+                        acc[slot + 2]++;
+                    }
+                }
+            }
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+
+        List<GenreUtilizationDto> result = new ArrayList<>(genres);
+        for (int genre = 0; genre < genres; genre++) {
+            // Genres whose books all moved to another genre, or only seen by rows past the scanned size, count nothing
+            if (counts[genre * 3] == 0) {
+                continue;
+            }
+            result.add(GenreUtilizationDto.builder()
+                    .genre(c.genres[genre])
+                    .loans(counts[genre * 3])
+                    .activeLoans(counts[genre * 3 + 1])
+                    .overdueLoans(counts[genre * 3 + 2])
+                    .build());
+        }
+        result.sort(Comparator.comparing(GenreUtilizationDto::getGenre));
+        return result;
+    }
+
+    // Average number of days the loans returned between the given days (inclusive) were kept
+    public LoanDurationDto loanDuration(LocalDate from, LocalDate to) {
+        Columns c = columns;
+        int rows = c.size;
+        int first = day(from);
+        int last = day(to);
+        int[] borrowDay = c.borrowDay;
+        int[] dueDay = c.dueDay;
+        int[] returnDay = c.returnDay;
+
+        // Returned loans, total days kept, late returns
+        long[] totals = scan(rows, () -> new long[3], (acc, start, end) -> {
+            for (int row = start; row < end; row++) {
+                int returned = returnDay[row];
+                if (returned >= first && returned <= last) {
+                    acc[0]++;
+                    acc[1] += returned - borrowDay[row];
+                    if (returned > dueDay[row]) {
+                        acc[2]++;
+                    }
+                }
+            }
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+
+        return LoanDurationDto.builder()
+                .from(from)
+                .to(to)
+                .returnedLoans(totals[0])
+                .averageDays(totals[0] == 0 ? 0 : (double) totals[1] / totals[0])
+                .lateReturns(totals[2])
+                .build();
+    }
+
+    // Enabled and not sharing the database with other instances
+    private boolean active() {
+        return enabled && !distributed;
+    }
+
+    // Caller holds the lock
+    private void open(LoanFactDto loan) {
+        if (openRows.containsKey(loan.getId())) {
+            return;
+        }
+        columns = append(columns, openRows, loan);
+    }
+
+    // Caller holds the lock
+    private void close(Long borrowingId, LocalDate returnDate) {
+        Integer row = openRows.remove(borrowingId);
+        if (row != null) {
+            columns.returnDay[row] = day(returnDate);
+        }
+    }
+
+    // Writes the loan into the next row, growing into a new instance when full; the size is published last
+    private static Columns append(Columns c, Map<Long, Integer> openRows, LoanFactDto loan) {
+        String genre = loan.getGenre() == null || loan.getGenre().isBlank() ? UNCLASSIFIED : loan.getGenre();
+        Integer genreCode = c.genreCodes.get(genre);
+        Integer bookCode = c.bookCodes.get(loan.getBookId());
+        if (c.size == c.book.length
+                || (bookCode == null && c.books == c.bookIds.length)
+                || (genreCode == null && c.bookGenres.genreCount() == c.genres.length)) {
+            c = new Columns(c);
+        }
+        if (genreCode == null) {
+            genreCode = c.bookGenres.genreCount();
+            c.genres[genreCode] = genre;
+            c.genreCodes.put(genre, genreCode);
+            c.bookGenres = new BookGenres(c.bookGenres.codes(), genreCode + 1);
+        }
+        if (bookCode == null) {
+            bookCode = c.books;
+            c.bookIds[bookCode] = loan.getBookId();
+            c.bookCodes.put(loan.getBookId(), bookCode);
+            c.books++;
+            // No published row refers to the new code yet, so the slot can be written in place
+            c.bookGenres.codes()[bookCode] = genreCode;
+        } else if (c.bookGenres.codes()[bookCode] != genreCode) {
+            // A book's latest genre wins for all of its loans. Scans running on the published codes may have read
+            // a smaller genre count, so the change goes into a copy
+            int[] codes = Arrays.copyOf(c.bookGenres.codes(), c.bookGenres.codes().length);
+            codes[bookCode] = genreCode;
+            c.bookGenres = new BookGenres(codes, c.bookGenres.genreCount());
+        }
+
+        int row = c.size;
+        c.book[row] = bookCode;
+        c.user[row] = loan.getUserId();
+        c.borrowDay[row] = day(loan.getBorrowDate());
+        c.dueDay[row] = day(loan.getDueDate());
+        c.returnDay[row] = day(loan.getReturnDate());
+        if (loan.getReturnDate() == null) {
+            openRows.put(loan.getId(), row);
+        }
+        c.size = row + 1;
+        return c;
+    }
+
+    private static int day(LocalDate date) {
+        return date == null ? NO_DAY : (int) date.toEpochDay();
+    }
+
+    // Splits [0, rows) into ranges of SCAN_THRESHOLD rows, scans them in parallel and merges the partial results
+    private static <A> A scan(int rows, Supplier<A> create, RangeScanner<A> scanner, BinaryOperator<A> merge) {
+        return ForkJoinPool.commonPool().invoke(new ScanTask<>(create, scanner, merge, 0, rows));
+    }
+
+    // Accumulates the rows [start, end) into the given partial result
+    private interface RangeScanner<A> {
+        void scan(A partial, int start, int end);
+    }
+
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+        private final Supplier<A> create;
+        private final RangeScanner<A> scanner;
+        private final BinaryOperator<A> merge;
+        private final int start;
+        private final int end;
+
+        private ScanTask(Supplier<A> create, RangeScanner<A> scanner, BinaryOperator<A> merge, int start, int end) {
+            this.create = create;
+            this.scanner = scanner;
+            this.merge = merge;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected A compute() {
+            if (end - start <= SCAN_THRESHOLD) {
+                A partial = create.get();
+                scanner.scan(partial, start, end);
+                return partial;
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask<A> left = new ScanTask<>(create, scanner, merge, start, middle);
+            left.fork();
+            A right = new ScanTask<>(create, scanner, merge, middle, end).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    // Book code -> genre code, together with the number of genre codes in use when it was published
+    private record BookGenres(int[] codes, int genreCount) {
+    }
+
+    private record LoanEvent(LoanFactDto opened, Long closedId, LocalDate returnDate) {
+    }
+
+    // The columns and their dictionaries; arrays are only written by the lock holder
+    private static final class Columns {
+        private final int[] book; // Book code of the loan
+        private final long[] user;
+        private final int[] borrowDay;
+        private final int[] dueDay;
+        private final int[] returnDay; // NO_DAY while open
+
+        private final long[] bookIds; // Book code -> book id
+        private final String[] genres; // Genre code -> genre
+        private final Map<Long, Integer> bookCodes;
+        private final Map<String, Integer> genreCodes;
+
+        private int books;
+        private volatile BookGenres bookGenres; // Replaced, not edited, when the genre of a coded book changes
+        private volatile int size;
+
+        private Columns() {
+            book = new int[1024];
+            user = new long[1024];
+            borrowDay = new int[1024];
+            dueDay = new int[1024];
+            returnDay = new int[1024];
+            bookIds = new long[256];
+            bookGenres = new BookGenres(new int[256], 0);
+            genres = new String[16];
+            bookCodes = new HashMap<>();
+            genreCodes = new HashMap<>();
+        }
+
+        // Copy with doubled capacity; the dictionaries' maps are shared, as only the lock holder uses them
+        private Columns(Columns from) {
+            int rows = from.size;
+            book = Arrays.copyOf(from.book, grow(from.book.length, rows));
+            user = Arrays.copyOf(from.user, book.length);
+            borrowDay = Arrays.copyOf(from.borrowDay, book.length);
+            dueDay = Arrays.copyOf(from.dueDay, book.length);
+            returnDay = Arrays.copyOf(from.returnDay, book.length);
+            bookIds = Arrays.copyOf(from.bookIds, grow(from.bookIds.length, from.books));
+            bookGenres = new BookGenres(Arrays.copyOf(from.bookGenres.codes(), bookIds.length),
+                    from.bookGenres.genreCount());
+            genres = Arrays.copyOf(from.genres, grow(from.genres.length, from.bookGenres.genreCount()));
+            bookCodes = from.bookCodes;
+            genreCodes = from.genreCodes;
+            books = from.books;
+            size = rows;
+        }
+
+        private static int grow(int capacity, int used) {
+            return used < capacity ? capacity : capacity * 2;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.book.BookRecommendationDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Item-to-item co-occurrence model over the borrowing history: two books are related by the number of readers
+// who borrowed both. The counts live in primitive-keyed sparse maps guarded by this instance; every change
+// republishes the immutable top list of the books it touched, so a recommendation read is one map lookup.
+// Built at startup and by rebuild(), and kept current by the borrow paths of this instance, so it stays off when
+// several instances share the database.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoBorrowingIndex {
+
+    // Rows read per query while building the model
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+
+    // Write side, guarded by this
+    private Model model = new Model();
+
+    // Read side: book id -> its most co-borrowed books, and book id -> title; replaced whole by a rebuild
+    private volatile Map<Long, TopList> topLists = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> titles = new ConcurrentHashMap<>();
+
+    // Changes received while a build reads the tables, replayed over what the build has read; all are idempotent
+    private final List<Runnable> changesWhileLoading = new ArrayList<>();
+    private boolean loading;
+
+    private volatile boolean ready;
+
+    @Value("${library.recommendations.enabled:true}")
+    private boolean enabled;
+
+    // The model only sees the borrows of this instance, so it cannot be kept current across several
+    @Value("${library.availability.distributed.enabled:false}")
+    private boolean distributed;
+
+    // Related books kept per book
+    @Value("${library.recommendations.top-k:20}")
+    private int topK;
+
+    public boolean isReady() {
+        return active() && ready;
+    }
+
+    // Builds the model once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled && distributed) {
+            log.warn("Co-borrowing model disabled: it only sees the borrows of one instance");
+            return;
+        }
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Recomputes the model from the whole borrowing history; reads keep using the previous model meanwhile.
+    // Does nothing while the model is off, which must not start filling up
+    public void rebuild() {
+        if (!active()) {
+            return;
+        }
+        synchronized (this) {
+            loading = true;
+            changesWhileLoading.clear();
+        }
+        Model built = new Model();
+        long lastId = 0;
+        List<LoanFactDto> loans;
+        do {
+            loans = borrowingRepository.findLoanFactsAfterId(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            loans.forEach(loan -> built.record(loan.getUserId(), loan.getBookId()));
+            if (!loans.isEmpty()) {
+                lastId = loans.get(loans.size() - 1).getId();
+            }
+        } while (loans.size() == LOAD_BATCH_SIZE);
+
+        Map<Long, String> builtTitles = new ConcurrentHashMap<>();
+        lastId = 0;
+        List<Book> books;
+        do {
+            books = bookRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            books.forEach(book -> builtTitles.put(book.getId(), book.getTitle()));
+            if (!books.isEmpty()) {
+                lastId = books.get(books.size() - 1).getId();
+            }
+        } while (books.size() == LOAD_BATCH_SIZE);
+
+        Map<Long, TopList> builtTopLists = new ConcurrentHashMap<>();
+        built.coCounts.forEach((book, related) -> builtTopLists.put(book, TopList.of(related, topK)));
+
+        synchronized (this) {
+            model = built;
+            topLists = builtTopLists;
+            titles = builtTitles;
+            changesWhileLoading.forEach(Runnable::run);
+            changesWhileLoading.clear();
+            loading = false;
+        }
+        ready = true;
+        log.info("Co-borrowing model loaded with {} books and {} readers", builtTopLists.size(), built.booksByUser.size());
+    }
+
+    // Counts a borrow once the current transaction commits
+    public void loanOpened(Long userId, Book book) {
+        if (!active()) {
+            return;
+        }
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        TransactionHooks.afterCommit(() -> apply(() -> {
+            titles.put(bookId, title);
+            record(userId, bookId);
+        }));
+    }
+
+    // Keeps the title of an added or updated book once the current transaction commits
+    public void bookSaved(Book book) {
+        if (!active()) {
+            return;
+        }
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        TransactionHooks.afterCommit(() -> apply(() -> titles.put(bookId, title)));
+    }
+
+    // Stops recommending a deleted book once the current transaction commits
+    public void bookRemoved(Long bookId) {
+        if (!active()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> apply(() -> titles.remove(bookId)));
+    }
+
+    // Books most often borrowed by readers of the given book, or empty when the model knows no such book
+    public Optional<List<BookRecommendationDto>> recommend(Long bookId, int limit) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+        Map<Long, String> knownTitles = titles;
+        TopList top = topLists.get(bookId);
+        if (top == null) {
+            return knownTitles.containsKey(bookId) ? Optional.of(List.of()) : Optional.empty();
+        }
+        List<BookRecommendationDto> recommendations = new ArrayList<>(Math.min(limit, top.bookIds.length));
+        for (int i = 0; i < top.bookIds.length && recommendations.size() < limit; i++) {
+            String title = knownTitles.get(top.bookIds[i]);
+            // Deleted books stay in the counts until the next rebuild, but are not recommended
+            if (title != null) {
+                recommendations.add(BookRecommendationDto.builder()
+                        .bookId(top.bookIds[i])
+                        .title(title)
+                        .sharedReaders(top.counts[i])
+                        .build());
+            }
+        }
+        return Optional.of(recommendations);
+    }
+
+    // Number of books with at least one co-borrowed book
+    public int size() {
+        return topLists.size();
+    }
+
+    // Enabled and not sharing the database with other instances
+    private boolean active() {
+        return enabled && !distributed;
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (loading) {
+            changesWhileLoading.add(change);
+        }
+        change.run();
+    }
+
+    // Caller holds the lock; counts only grow, so offering each changed pair keeps every top list exact
+    private void record(long userId, long bookId) {
+        Map<Long, TopList> lists = topLists;
+        LongIntHashMap related = model.record(userId, bookId);
+        if (related == null) {
+            return;
+        }
+        TopList[] mine = {lists.get(bookId)};
+        model.booksByUser.get(userId).forEach((other, loans) -> {
+            if (other != bookId) {
+                int together = related.get(other);
+                mine[0] = offer(mine[0], other, together);
+                TopList current = lists.get(other);
+                TopList updated = offer(current, bookId, together);
+                if (updated != current) {
+                    lists.put(other, updated);
+                }
+            }
+        });
+        if (mine[0] != null) {
+            lists.put(bookId, mine[0]);
+        }
+    }
+
+    private TopList offer(TopList list, long bookId, int count) {
+        return list == null ? TopList.single(bookId, count) : list.offer(bookId, count, topK);
+    }
+
+    private static final class Model {
+        // Reader -> books they borrowed -> number of loans
+        private final LongObjectHashMap<LongIntHashMap> booksByUser = new LongObjectHashMap<>();
+        // Book -> other book -> readers who borrowed both
+        private final LongObjectHashMap<LongIntHashMap> coCounts = new LongObjectHashMap<>();
+
+        // Counts the borrow; returns the book's related counts, or null when the reader had borrowed it before
+        private LongIntHashMap record(long userId, long bookId) {
+            LongIntHashMap books = booksByUser.computeIfAbsent(userId, id -> new LongIntHashMap());
+            if (books.addTo(bookId, 1) > 1) {
+                return null;
+            }
+            LongIntHashMap related = coCounts.computeIfAbsent(bookId, id -> new LongIntHashMap());
+            books.forEach((other, loans) -> {
+                if (other != bookId) {
+                    related.addTo(other, 1);
+                    coCounts.computeIfAbsent(other, id -> new LongIntHashMap()).addTo(bookId, 1);
+                }
+            });
+            return related;
+        }
+    }
+
+    // Immutable related books of one book, most shared readers first, then lowest id
+    private static final class TopList {
+        private final long[] bookIds;
+        private final int[] counts;
+
+        private TopList(long[] bookIds, int[] counts) {
+            this.bookIds = bookIds;
+            this.counts = counts;
+        }
+
+        private static TopList single(long bookId, int count) {
+            return new TopList(new long[]{bookId}, new int[]{count});
+        }
+
+        // Selects the k best entries with a min-heap over the sparse counts
+        private static TopList of(LongIntHashMap related, int k) {
+            PriorityQueue<long[]> heap = new PriorityQueue<>(k + 1, (a, b) -> a[1] != b[1]
+                    ? Long.compare(a[1], b[1])
+                    : Long.compare(b[0], a[0]));
+            related.forEach((book, count) -> {
+                heap.add(new long[]{book, count});
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            });
+            int size = heap.size();
+            long[] bookIds = new long[size];
+            int[] counts = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                long[] entry = heap.poll();
+                bookIds[i] = entry[0];
+                counts[i] = (int) entry[1];
+            }
+            return new TopList(bookIds, counts);
+        }
+
+        // Returns a list where the book has the given count, or this list when the book does not make the top k
+        private TopList offer(long bookId, int count, int k) {
+            int size = bookIds.length;
+            int existing = -1;
+            for (int i = 0; i < size; i++) {
+                if (bookIds[i] == bookId) {
+                    existing = i;
+                    break;
+                }
+            }
+            if (existing < 0 && size == k && !ranksBefore(bookId, count, bookIds[size - 1], counts[size - 1])) {
+                return this;
+            }
+            long[] newIds = new long[existing < 0 ? Math.min(size + 1, k) : size];
+            int[] newCounts = new int[newIds.length];
+            int target = 0;
+            boolean placed = false;
+            for (int i = 0; i < size && target < newIds.length; i++) {
+                if (i == existing) {
+                    continue;
+                }
+                if (!placed && ranksBefore(bookId, count, bookIds[i], counts[i])) {
+                    newIds[target] = bookId;
+                    newCounts[target++] = count;
+                    placed = true;
+                    if (target == newIds.length) {
+                        break;
+                    }
+                }
+                newIds[target] = bookIds[i];
+                newCounts[target++] = counts[i];
+            }
+            if (!placed && target < newIds.length) {
+                newIds[target] = bookId;
+                newCounts[target] = count;
+            }
+            return new TopList(newIds, newCounts);
+        }
+
+        private static boolean ranksBefore(long bookId, int count, long otherId, int otherCount) {
+            return count != otherCount ? count > otherCount : bookId < otherId;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.getir.library_management.index;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from long keys to int values, so sparse counters need no boxed keys or entries.
+// Absent keys read as 0. Not thread-safe; callers guard it.
+final class LongIntHashMap {
+
+    // Marks a free slot; ids are never this value
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashMap() {
+        this(4);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    int get(long key) {
+        int slot = find(keys, key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    boolean containsKey(long key) {
+        return keys[find(keys, key)] == key;
+    }
+
+    // Adds delta to the key's value and returns the new value
+    int addTo(long key, int delta) {
+        int slot = find(keys, key);
+        if (keys[slot] != key) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                slot = find(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        return values[slot] += delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Entry action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    interface Entry {
+        void accept(long key, int value);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = find(keys, oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    // Slot holding the key, or the free slot where it would go; linear probing
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Spreads sequential ids over the table
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
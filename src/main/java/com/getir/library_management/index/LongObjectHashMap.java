@@ -0,0 +1,87 @@
+package com.getir.library_management.index;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+// Open-addressing hash map from long keys to objects, without boxed keys or entry objects.
+// Entries are never removed. Not thread-safe; callers guard it.
+final class LongObjectHashMap<V> {
+
+    // Marks a free slot; ids are never this value
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongObjectHashMap() {
+        keys = new long[16];
+        values = new Object[16];
+        Arrays.fill(keys, FREE);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int slot = find(keys, key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> create) {
+        int slot = find(keys, key);
+        if (keys[slot] == key) {
+            return (V) values[slot];
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+            slot = find(keys, key);
+        }
+        V value = create.apply(key);
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Entry<V> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                action.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    interface Entry<V> {
+        void accept(long key, V value);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = find(keys, oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    // Slot holding the key, or the free slot where it would go; linear probing
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = LongIntHashMap.mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
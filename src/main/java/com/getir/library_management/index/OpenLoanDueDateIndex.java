@@ -0,0 +1,218 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.borrow.OverdueIndexReportDto;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// In-memory index of open loans bucketed by due date.
+// The overdue list is the union of the buckets before today, served from memory, so it costs O(overdue loans)
+// instead of a query. Rows keep the user name and book title of the borrow; verify reports rows that differ from the
+// database and repair reloads them.
+// Built from the database at startup and kept current by the borrow and return paths of this instance. Loans written
+// by another instance never reach it, so it is only for single-instance deployments: it stays off while distributed
+// mode is on, and multi-instance profiles keep the database (and its partial open-loan index) as the source.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpenLoanDueDateIndex {
+
+    // Number of open loans read per query while building the index
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BorrowingRepository borrowingRepository;
+
+    // Due date -> open loans due that day, by borrowing id
+    private final ConcurrentSkipListMap<LocalDate, Map<Long, BorrowResponseDto>> buckets = new ConcurrentSkipListMap<>();
+
+    // Borrowing id -> due date, to find the bucket of a returned loan
+    private final Map<Long, LocalDate> dueDates = new ConcurrentHashMap<>();
+
+    // Loans opened or returned while a (re)build is reading the table, replayed over what the build has read
+    private final Map<Long, BorrowResponseDto> openedWhileLoading = new HashMap<>();
+    private final Set<Long> returnedWhileLoading = new HashSet<>();
+    private boolean loading;
+
+    // Overdue lists are answered by the database until the initial load has finished
+    private volatile boolean ready;
+
+    @Value("${library.borrowing.overdue-index.enabled:false}")
+    private boolean enabled;
+
+    // Other instances write loans this index never hears of
+    @Value("${library.availability.distributed.enabled:false}")
+    private boolean distributed;
+
+    public boolean isReady() {
+        return active() && ready;
+    }
+
+    // Builds the index from the open loans once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled && distributed) {
+            log.warn("Open loan due-date index disabled: it only sees the loans of one instance");
+            return;
+        }
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Replaces the index contents with the open loans currently in the database
+    public void rebuild() {
+        synchronized (this) {
+            loading = true;
+            openedWhileLoading.clear();
+            returnedWhileLoading.clear();
+        }
+        Map<Long, BorrowResponseDto> open = readOpenLoans();
+        synchronized (this) {
+            open.putAll(openedWhileLoading);
+            buckets.clear();
+            dueDates.clear();
+            open.values().stream()
+                    .filter(loan -> !returnedWhileLoading.contains(loan.getId()))
+                    .forEach(this::put);
+            loading = false;
+            openedWhileLoading.clear();
+            returnedWhileLoading.clear();
+        }
+        ready = true;
+        log.info("Open loan due-date index loaded with {} loans", size());
+    }
+
+    // Adds a new loan once the current transaction commits; loans without a due date can never be overdue
+    public void loanOpened(BorrowResponseDto loan) {
+        if (!active() || loan.getDueDate() == null || loan.getReturnDate() != null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (loading) {
+                    openedWhileLoading.put(loan.getId(), loan);
+                }
+                put(loan);
+            }
+        });
+    }
+
+    // Removes a returned loan once the current transaction commits
+    public void loanClosed(Long borrowingId) {
+        if (!active()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (loading) {
+                    returnedWhileLoading.add(borrowingId);
+                }
+                LocalDate dueDate = dueDates.remove(borrowingId);
+                if (dueDate != null) {
+                    buckets.computeIfPresent(dueDate, (day, loans) -> {
+                        loans.remove(borrowingId);
+                        return loans.isEmpty() ? null : loans;
+                    });
+                }
+            }
+        });
+    }
+
+    // Open loans due before the given day, in id order like the database query
+    public List<BorrowResponseDto> overdue(LocalDate today) {
+        List<BorrowResponseDto> overdue = new ArrayList<>();
+        buckets.headMap(today, false).values().forEach(loans -> overdue.addAll(loans.values()));
+        overdue.sort(Comparator.comparing(BorrowResponseDto::getId));
+        return overdue;
+    }
+
+    // Number of open loans held
+    public int size() {
+        return dueDates.size();
+    }
+
+    // Compares every indexed loan with the open loans in the database, optionally rebuilding. A row is mismatched when
+    // any field differs, such as a due date or a user or book renamed since the borrow.
+    public OverdueIndexReportDto verify(boolean repair) {
+        Map<Long, BorrowResponseDto> indexed = new HashMap<>();
+        buckets.values().forEach(indexed::putAll);
+        Map<Long, BorrowResponseDto> database = readOpenLoans();
+
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        database.forEach((id, loan) -> {
+            BorrowResponseDto row = indexed.remove(id);
+            if (row == null) {
+                missing.add(id);
+            } else if (!row.equals(loan)) {
+                mismatched.add(id);
+            }
+        });
+        List<Long> unexpected = new ArrayList<>(indexed.keySet());
+        Collections.sort(missing);
+        Collections.sort(mismatched);
+        Collections.sort(unexpected);
+
+        boolean consistent = missing.isEmpty() && mismatched.isEmpty() && unexpected.isEmpty();
+        if (!consistent) {
+            log.warn("Open loan due-date index differs from the database: {} missing, {} mismatched, {} unexpected",
+                    missing.size(), mismatched.size(), unexpected.size());
+        }
+        // A disabled index holds nothing to repair and must not start filling up
+        boolean repaired = repair && !consistent && active();
+        if (repaired) {
+            rebuild();
+        }
+        return OverdueIndexReportDto.builder()
+                .ready(isReady())
+                .indexedLoans(dueDates.size())
+                .databaseLoans(database.size())
+                .missing(missing)
+                .mismatched(mismatched)
+                .unexpected(unexpected)
+                .consistent(consistent)
+                .repaired(repaired)
+                .build();
+    }
+
+    // Enabled and not sharing the database with other instances
+    private boolean active() {
+        return enabled && !distributed;
+    }
+
+    private void put(BorrowResponseDto loan) {
+        dueDates.put(loan.getId(), loan.getDueDate());
+        buckets.computeIfAbsent(loan.getDueDate(), day -> new ConcurrentHashMap<>()).put(loan.getId(), loan);
+    }
+
+    // Open loans by id; loans without a due date can never be overdue and are not indexed
+    private Map<Long, BorrowResponseDto> readOpenLoans() {
+        Map<Long, BorrowResponseDto> open = new LinkedHashMap<>();
+        long lastId = 0;
+        List<BorrowResponseDto> batch;
+        do {
+            batch = borrowingRepository.findOpenResponsesAfterId(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (BorrowResponseDto loan : batch) {
+                if (loan.getDueDate() != null) {
+                    open.put(loan.getId(), loan);
+                }
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return open;
+    }
+}
@@ -0,0 +1,175 @@
+package com.getir.library_management.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Inverted trigram index over a fixed number of text fields per document.
+// Answers "field contains term" (case-insensitive) by intersecting posting lists and verifying the candidates.
+// Not thread-safe; callers guard it with a read/write lock.
+class TrigramIndex {
+
+    private final int fieldCount;
+
+    // documentId -> lower-cased field values, kept for exact verification of candidates
+    private final Map<Long, String[]> documents = new HashMap<>();
+
+    // Per field: packed trigram -> sorted ids of documents containing it
+    private final Map<Long, Posting>[] postings;
+
+    // Sorted ids of every indexed document
+    private final Posting allIds = new Posting();
+
+    @SuppressWarnings("unchecked")
+    TrigramIndex(int fieldCount) {
+        this.fieldCount = fieldCount;
+        this.postings = new Map[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            postings[i] = new HashMap<>();
+        }
+    }
+
+    // Adds or replaces a document
+    void put(long id, String[] values) {
+        remove(id);
+        String[] normalized = new String[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            normalized[field] = Trigrams.normalize(values[field]);
+            for (long trigram : Trigrams.of(normalized[field])) {
+                postings[field].computeIfAbsent(trigram, t -> new Posting()).add(id);
+            }
+        }
+        documents.put(id, normalized);
+        allIds.add(id);
+    }
+
+    // Removes a document if present
+    void remove(long id) {
+        String[] previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            for (long trigram : Trigrams.of(previous[field])) {
+                Posting posting = postings[field].get(trigram);
+                if (posting != null && posting.remove(id) && posting.size == 0) {
+                    postings[field].remove(trigram);
+                }
+            }
+        }
+        allIds.remove(id);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    // Returns the sorted ids of documents where every non-null term is a substring of its (lower-cased) field.
+    // A null field value never matches, an empty term matches every non-null value.
+    long[] match(String[] terms) {
+        String[] normalized = new String[fieldCount];
+        long[] candidates = null;
+
+        // Narrow the candidates with the posting lists of every trigram of every term, smallest list first
+        for (int field = 0; field < fieldCount; field++) {
+            normalized[field] = Trigrams.normalize(terms[field]);
+            for (long trigram : Trigrams.of(normalized[field])) {
+                Posting posting = postings[field].get(trigram);
+                if (posting == null) {
+                    return new long[0];
+                }
+                candidates = candidates == null ? posting.toArray() : intersect(candidates, posting);
+                if (candidates.length == 0) {
+                    return candidates;
+                }
+            }
+        }
+
+        // Terms shorter than three characters have no trigrams, so verification has to scan everything
+        if (candidates == null) {
+            candidates = allIds.toArray();
+        }
+
+        // Trigram hits are only candidates; confirm the actual substring match
+        int matched = 0;
+        for (long id : candidates) {
+            if (matches(documents.get(id), normalized)) {
+                candidates[matched++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, matched);
+    }
+
+    private boolean matches(String[] values, String[] terms) {
+        if (values == null) {
+            return false;
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            if (terms[field] != null && (values[field] == null || !values[field].contains(terms[field]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Merge-intersects a sorted array with a posting list
+    private static long[] intersect(long[] candidates, Posting posting) {
+        long[] result = new long[Math.min(candidates.length, posting.size)];
+        int i = 0, j = 0, k = 0;
+        while (i < candidates.length && j < posting.size) {
+            long a = candidates[i], b = posting.ids[j];
+            if (a == b) {
+                result[k++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    // Growable sorted array of document ids
+    private static final class Posting {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            // Ids mostly arrive in increasing order, so appending is the common case
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private void insertAt(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.getir.library_management.index;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Trigram decomposition shared by the search index and the search cache invalidation
+public final class Trigrams {
+
+    private Trigrams() {
+    }
+
+    // Lower-cases a value the same way for indexing and for querying.
+    // One code point at a time, like the database LOWER: String.toLowerCase would turn "İ" into "i" plus a combining
+    // dot, so "ihsan" would no longer match "İhsan" although the database query does.
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder lower = new StringBuilder(value.length());
+        value.codePoints().forEach(codePoint -> lower.appendCodePoint(Character.toLowerCase(codePoint)));
+        return lower.toString();
+    }
+
+    // Distinct trigrams of a value, each packed into a long (three 16-bit chars)
+    public static Set<Long> of(String value) {
+        if (value == null || value.length() < 3) {
+            return Set.of();
+        }
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            trigrams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+        return trigrams;
+    }
+}
@@ -1,34 +1,71 @@
 package com.getir.library_management.repository;
 
+import com.getir.library_management.dto.analytics.GenreBookCountDto;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
 import com.getir.library_management.entity.Book;
-import jakarta.persistence.EntityManager;
 import jakarta.validation.constraints.NotBlank;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long>  {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
     // Find book by isbn
     Optional<Book> findByIsbn(String isbn);
     // Check by isbn
     boolean existsByIsbn(@NotBlank(message = "ISBN is required.") String isbn);
-    // Custom search query for book
-    @Query("""
-    SELECT b FROM Book b
-    WHERE (:title IS NULL OR LOWER(b.title) LIKE CONCAT('%', LOWER(CAST(:title AS string)), '%'))
-      AND (:author IS NULL OR LOWER(b.author) LIKE CONCAT('%', LOWER(CAST(:author AS string)), '%'))
-      AND (:isbn IS NULL OR LOWER(b.isbn) LIKE CONCAT('%', LOWER(CAST(:isbn AS string)), '%'))
-      AND (:genre IS NULL OR LOWER(b.genre) LIKE CONCAT('%', LOWER(CAST(:genre AS string)), '%'))
-    """)
-    Page<Book> searchBooks(
-            @Param("title") String title,
-            @Param("author") String author,
-            @Param("isbn") String isbn,
-            @Param("genre") String genre,
-            Pageable pageable
-    );
+    // Reads books in id order, used to build in-memory indexes in batches
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    // Loads one page of the given books without a count query
+    List<Book> findByIdIn(Collection<Long> ids, Pageable pageable);
+    // Loads one page of the given books that are available, with its count
+    Page<Book> findByIdInAndAvailabilityTrue(Collection<Long> ids, Pageable pageable);
+    // Flips an available book to borrowed in one statement; returns 0 when it is missing or already borrowed
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.availability = false WHERE b.id = :id AND b.availability = true")
+    int markBorrowed(@Param("id") Long id);
+    // Flips a borrowed book back to available; returns 0 when it is missing or already available
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.availability = true WHERE b.id = :id AND b.availability = false")
+    int markReturned(@Param("id") Long id);
+    // Number of books per genre; books without a genre are counted under a null genre
+    @Query("SELECT new com.getir.library_management.dto.analytics.GenreBookCountDto(b.genre, COUNT(b)) FROM Book b GROUP BY b.genre")
+    List<GenreBookCountDto> countBooksByGenre();
+    // Ids of available books in id order, continuing after the given id; used to build the availability bitmap
+    @Query("SELECT b.id FROM Book b WHERE b.availability = true AND b.id > :afterId ORDER BY b.id")
+    List<Long> findAvailableIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+    // Books currently on loan, sent to availability stream clients that cannot be caught up from recent events
+    @Query("SELECT new com.getir.library_management.dto.book.BookAvailabilityDto(b.id, b.title, b.availability, b.genre) FROM Book b WHERE b.availability = false")
+    List<BookAvailabilityDto> findUnavailableBooks();
+    // Search for books; only the supplied filters become predicates
+    default Page<Book> searchBooks(String title, String author, String isbn, String genre, boolean availableOnly,
+                                   Pageable pageable) {
+        return findAll(BookSpecifications.search(title, author, isbn, genre)
+                .and(BookSpecifications.availableOnly(availableOnly)), pageable);
+    }
+    // Keyset slice ordered by (title, id), continuing after the given title and id when present
+    default List<Book> searchBooksAfterTitle(String title, String author, String isbn, String genre,
+                                             boolean availableOnly, String afterTitle, Long afterId, int limit) {
+        Specification<Book> filters = BookSpecifications.search(title, author, isbn, genre)
+                .and(BookSpecifications.availableOnly(availableOnly))
+                .and(BookSpecifications.titleAfter(afterTitle, afterId));
+        return findBy(filters, query -> query.sortBy(Sort.by("title", "id")).limit(limit).all());
+    }
+    // Keyset slice ordered by id, continuing after the given id
+    default List<Book> searchBooksAfterId(String title, String author, String isbn, String genre,
+                                          boolean availableOnly, long afterId, int limit) {
+        Specification<Book> filters = BookSpecifications.search(title, author, isbn, genre)
+                .and(BookSpecifications.availableOnly(availableOnly))
+                .and(BookSpecifications.idAfter(afterId));
+        return findBy(filters, query -> query.sortBy(Sort.by("id")).limit(limit).all());
+    }
 }
@@ -0,0 +1,82 @@
+package com.getir.library_management.repository;
+
+import com.getir.library_management.entity.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Builds book search predicates from the filters that were actually supplied.
+// Unset filters add nothing to the WHERE clause, so every filter combination gets its own, index-friendly SQL.
+public final class BookSpecifications {
+
+    // A complete ISBN-10 (last digit may be X) or ISBN-13
+    private static final Pattern FULL_ISBN = Pattern.compile("\\d{9}[\\dXx]|\\d{13}");
+
+    // The leading digits of an ISBN, long enough to narrow a prefix range
+    private static final Pattern ISBN_PREFIX = Pattern.compile("\\d{3,12}");
+
+    private BookSpecifications() {
+    }
+
+    // Case-insensitive substring filters for title, author and genre; ISBN uses the rules of isbnMatches
+    public static Specification<Book> search(String title, String author, String isbn, String genre) {
+        return Specification.allOf(
+                contains("title", title),
+                contains("author", author),
+                isbnMatches(isbn),
+                contains("genre", genre)
+        );
+    }
+
+    // Only books that can be borrowed right now, when requested
+    public static Specification<Book> availableOnly(boolean availableOnly) {
+        return availableOnly ? (root, query, cb) -> cb.isTrue(root.get("availability")) : null;
+    }
+
+    // Rows strictly after (title, id) in (title, id) order.
+    // The leading title >= bound lets the (title, id) index start its range scan at the cursor.
+    public static Specification<Book> titleAfter(String title, Long id) {
+        if (title == null || id == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("title"), title),
+                cb.or(cb.greaterThan(root.get("title"), title), cb.greaterThan(root.get("id"), id))
+        );
+    }
+
+    // Rows strictly after the given id
+    public static Specification<Book> idAfter(long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    // True when the ISBN filter is answered by the isbn index (exact or prefix) rather than a substring match
+    public static boolean isIsbnLookup(String isbn) {
+        return isbn != null && (FULL_ISBN.matcher(isbn).matches() || ISBN_PREFIX.matcher(isbn).matches());
+    }
+
+    // A full ISBN is an exact lookup, leading digits are a prefix lookup, anything else stays a substring match
+    static Specification<Book> isbnMatches(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        if (FULL_ISBN.matcher(isbn).matches()) {
+            String exact = isbn.toUpperCase(Locale.ROOT);
+            return (root, query, cb) -> cb.equal(root.get("isbn"), exact);
+        }
+        if (ISBN_PREFIX.matcher(isbn).matches()) {
+            // On PostgreSQL served by idx_books_isbn_pattern (see PartialIndexInitializer) under any collation
+            return (root, query, cb) -> cb.like(root.get("isbn"), isbn + "%");
+        }
+        return contains("isbn", isbn);
+    }
+
+    private static Specification<Book> contains(String field, String term) {
+        if (term == null) {
+            return null;
+        }
+        String pattern = "%" + term.toLowerCase(Locale.ROOT) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(field)), pattern);
+    }
+}
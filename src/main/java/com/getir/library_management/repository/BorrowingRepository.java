@@ -1,12 +1,29 @@
 package com.getir.library_management.repository;
 
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
 import com.getir.library_management.entity.Borrowing;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
+    // Selects listing rows straight into the response DTO; the joins read only the user's name and the book's title
+    String RESPONSE_SELECT = "SELECT new com.getir.library_management.dto.borrow.BorrowResponseDto("
+            + "b.id, u.fullName, bk.title, b.borrowDate, b.dueDate, b.returnDate) "
+            + "FROM Borrowing b JOIN b.user u JOIN b.book bk ";
+
     // List all borrowings by user
     List<Borrowing> findByUserId(Long userId);
     // List borrowings by book
@@ -15,4 +32,58 @@ public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
     Borrowing findByBookIdAndReturnDateIsNull(Long bookId);
     // Find overdue books
     List<Borrowing> findByReturnDateIsNullAndDueDateBefore(LocalDate date);
+    // Every borrowing as a response row, in one query
+    @Query(RESPONSE_SELECT + "ORDER BY b.id")
+    List<BorrowResponseDto> findAllResponses();
+    // Borrowings of one user as response rows, in one query
+    @Query(RESPONSE_SELECT + "WHERE u.id = :userId ORDER BY b.id")
+    List<BorrowResponseDto> findResponsesByUserId(@Param("userId") Long userId);
+    // Open borrowings due before the given date as response rows, in one query
+    @Query(RESPONSE_SELECT + "WHERE b.returnDate IS NULL AND b.dueDate < :date ORDER BY b.id")
+    List<BorrowResponseDto> findOverdueResponses(@Param("date") LocalDate date);
+    // First slice of a member's history, newest first; the pageable only carries the slice size
+    @Query(RESPONSE_SELECT + "WHERE u.id = :userId ORDER BY b.borrowDate DESC, b.id DESC")
+    List<BorrowResponseDto> findHistoryByUser(@Param("userId") Long userId, Pageable limit);
+    // Next slice of a member's history, strictly before (borrowDate, id).
+    // The leading borrowDate <= bound lets the (user_id, borrow_date, id) index start its range scan at the cursor.
+    @Query(RESPONSE_SELECT + "WHERE u.id = :userId AND b.borrowDate <= :borrowDate "
+            + "AND (b.borrowDate < :borrowDate OR b.id < :id) ORDER BY b.borrowDate DESC, b.id DESC")
+    List<BorrowResponseDto> findHistoryByUserBefore(@Param("userId") Long userId, @Param("borrowDate") LocalDate borrowDate,
+                                                    @Param("id") Long id, Pageable limit);
+    // First slice of the history of all members, newest first
+    @Query(RESPONSE_SELECT + "ORDER BY b.borrowDate DESC, b.id DESC")
+    List<BorrowResponseDto> findHistory(Pageable limit);
+    // Next slice of the history of all members, strictly before (borrowDate, id)
+    @Query(RESPONSE_SELECT + "WHERE b.borrowDate <= :borrowDate "
+            + "AND (b.borrowDate < :borrowDate OR b.id < :id) ORDER BY b.borrowDate DESC, b.id DESC")
+    List<BorrowResponseDto> findHistoryBefore(@Param("borrowDate") LocalDate borrowDate, @Param("id") Long id, Pageable limit);
+    // Same rows as findOverdueResponses, read through a database cursor; consume inside a transaction and close it
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT + "WHERE b.returnDate IS NULL AND b.dueDate < :date ORDER BY b.id")
+    Stream<BorrowResponseDto> streamOverdueResponses(@Param("date") LocalDate date);
+    // Every borrowing as a response row, read through a database cursor; consume inside a transaction and close it
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT + "ORDER BY b.id")
+    Stream<BorrowResponseDto> streamAllResponses();
+    // Open borrowings after the given id, in id order; used to build the in-memory due-date index in batches
+    @Query(RESPONSE_SELECT + "WHERE b.returnDate IS NULL AND b.id > :afterId ORDER BY b.id")
+    List<BorrowResponseDto> findOpenResponsesAfterId(@Param("afterId") Long afterId, Pageable limit);
+    // Borrowings after the given id with their book's genre, in id order; used to build the analytics snapshot in batches
+    @Query("SELECT new com.getir.library_management.dto.analytics.LoanFactDto("
+            + "b.id, bk.id, b.user.id, bk.genre, b.borrowDate, b.dueDate, b.returnDate) "
+            + "FROM Borrowing b JOIN b.book bk WHERE b.id > :afterId ORDER BY b.id")
+    List<LoanFactDto> findLoanFactsAfterId(@Param("afterId") Long afterId, Pageable limit);
+    // Loads the given borrowings together with their user and book
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<Borrowing> findByIdIn(Collection<Long> ids);
+    // Closes an open borrowing in one statement; returns 0 when it is missing or already returned
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Borrowing b SET b.returnDate = :returnDate WHERE b.id = :id AND b.returnDate IS NULL")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
 }
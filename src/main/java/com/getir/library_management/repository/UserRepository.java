@@ -3,9 +3,12 @@ package com.getir.library_management.repository;
 import com.getir.library_management.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     // Find user by email
     Optional<User> findByEmail(String email);
+    // Users whose previously issued tokens must be rejected (soft deleted or token version bumped)
+    List<User> findByMarkedAsDeletedTrueOrTokenVersionGreaterThan(int tokenVersion);
 }
@@ -0,0 +1,7 @@
+package com.getir.library_management.repository;
+
+import com.getir.library_management.entity.UserTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserTombstoneRepository extends JpaRepository<UserTombstone, Long> {
+}
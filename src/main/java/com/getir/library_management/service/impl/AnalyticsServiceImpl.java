@@ -0,0 +1,84 @@
+package com.getir.library_management.service.impl;
+
+import com.getir.library_management.dto.analytics.GenreBookCountDto;
+import com.getir.library_management.dto.analytics.GenreUtilizationDto;
+import com.getir.library_management.dto.analytics.LoanDurationDto;
+import com.getir.library_management.dto.analytics.TopBookDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.AnalyticsNotReadyException;
+import com.getir.library_management.index.CirculationSnapshot;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.service.interfaces.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Circulation figures computed from the in-memory snapshot; the database is only asked for titles and catalog sizes
+@Service
+@RequiredArgsConstructor
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    // Upper bound for the number of top books in one response
+    private static final int MAX_TOP_BOOKS = 100;
+
+    private final CirculationSnapshot circulationSnapshot;
+    private final BookRepository bookRepository;
+
+    @Override
+    public List<TopBookDto> getTopBooks(LocalDate from, LocalDate to, int limit) {
+        requireReady();
+        List<TopBookDto> top = circulationSnapshot.topBooks(from, to, Math.max(1, Math.min(limit, MAX_TOP_BOOKS)));
+
+        // Titles are read for the listed books only
+        Map<Long, String> titles = bookRepository.findAllById(top.stream().map(TopBookDto::getBookId).toList())
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Book::getTitle));
+        top.forEach(book -> book.setTitle(titles.get(book.getBookId())));
+        return top;
+    }
+
+    @Override
+    public List<GenreUtilizationDto> getGenreUtilization() {
+        requireReady();
+        Map<String, Long> booksByGenre = bookRepository.countBooksByGenre().stream()
+                .collect(Collectors.toMap(count -> genre(count.getGenre()), GenreBookCountDto::getBooks, Long::sum));
+        Map<String, GenreUtilizationDto> genres = circulationSnapshot.genres(LocalDate.now()).stream()
+                .collect(Collectors.toMap(GenreUtilizationDto::getGenre, Function.identity()));
+
+        // Genres without any loan are listed too, with an empty utilization
+        booksByGenre.keySet().forEach(genre -> genres.computeIfAbsent(genre,
+                name -> GenreUtilizationDto.builder().genre(name).build()));
+        List<GenreUtilizationDto> result = new ArrayList<>(genres.values());
+        result.forEach(genre -> {
+            long books = booksByGenre.getOrDefault(genre.getGenre(), 0L);
+            genre.setBooks(books);
+            genre.setUtilization(books == 0 ? 0 : (double) genre.getActiveLoans() / books);
+        });
+        result.sort(Comparator.comparing(GenreUtilizationDto::getGenre));
+        return result;
+    }
+
+    @Override
+    public LoanDurationDto getLoanDuration(LocalDate from, LocalDate to) {
+        requireReady();
+        return circulationSnapshot.loanDuration(from, to);
+    }
+
+    private void requireReady() {
+        if (!circulationSnapshot.isReady()) {
+            throw new AnalyticsNotReadyException(ExceptionMessages.ANALYTICS_NOT_READY);
+        }
+    }
+
+    private static String genre(String genre) {
+        return genre == null || genre.isBlank() ? CirculationSnapshot.UNCLASSIFIED : genre;
+    }
+}
@@ -78,6 +78,13 @@ public class AuthServiceImpl implements AuthService {
             throw new BadCredentialsException("Invalid credentials.");
         }
 
+        // Rehash the password if it was stored with a lower work factor than the current one
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            userRepository.save(user);
+            auditLogService.logAction(user.getEmail(), "PASSWORD_REHASHED", "Password hash upgraded to the current work factor.");
+        }
+
         // Generate JWT token
         String token = jwtService.generateToken(user);
 
@@ -0,0 +1,225 @@
+package com.getir.library_management.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Carries availability updates between application instances over Redis pub/sub, so an SSE client sees the borrows
+// and returns of every instance. Updates are gathered into small frames numbered by a per-instance sequence;
+// receivers skip any update whose sequence they have already seen from that instance. Each instance delivers its own
+// updates locally and ignores them on the channel. When distributed mode is off every call is a local no-op.
+@Slf4j
+@Component
+public class AvailabilityEventBus implements MeterBinder {
+
+    // Identifies this instance, so it ignores its own frames
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String channel;
+    private final int batchSize;
+    private final Duration maxWait;
+    private final BlockingQueue<BookAvailabilityDto> queue;
+
+    private final List<Consumer<BookAvailabilityDto>> listeners = new CopyOnWriteArrayList<>();
+
+    // Origin instance -> highest sequence received from it; frames arrive in order on one listener thread
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+
+    // Sequence of the next update this instance sends; only the publisher thread uses it
+    private long nextSequence = 1;
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesFailed = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder eventsReceived = new LongAdder();
+    private final LongAdder eventsDuplicate = new LongAdder();
+    private final LongAdder eventsMissed = new LongAdder();
+
+    private volatile Thread publisher;
+
+    public AvailabilityEventBus(StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${library.availability.distributed.enabled:false}") boolean enabled,
+                                @Value("${library.availability.distributed.channel:library:availability}") String channel,
+                                @Value("${library.availability.distributed.batch-size:32}") int batchSize,
+                                @Value("${library.availability.distributed.max-wait:5ms}") Duration maxWait,
+                                @Value("${library.availability.distributed.queue-capacity:4096}") int queueCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWait = maxWait;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || publisher != null) {
+            return;
+        }
+        Thread thread = new Thread(this::drain, "availability-publisher");
+        thread.setDaemon(true);
+        publisher = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = publisher;
+        publisher = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Registers a handler for updates published by other instances
+    public void subscribe(Consumer<BookAvailabilityDto> listener) {
+        listeners.add(listener);
+    }
+
+    // Queues an update for the other instances; never blocks the caller
+    public void publish(BookAvailabilityDto update) {
+        if (!enabled) {
+            return;
+        }
+        if (!queue.offer(update)) {
+            // Other instances miss this state; their clients catch up with the book's next change
+            eventsDropped.increment();
+        }
+    }
+
+    // Entry point for frames received on the availability channel
+    public void onMessage(String message) {
+        AvailabilityFrame frame;
+        try {
+            frame = objectMapper.readValue(message, AvailabilityFrame.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed availability frame: {}", message);
+            return;
+        }
+        if (nodeId.equals(frame.origin()) || frame.updates() == null) {
+            return;
+        }
+        long last = lastSequences.getOrDefault(frame.origin(), 0L);
+        long firstNew = Math.max(frame.firstSequence(), last + 1);
+        if (last > 0 && frame.firstSequence() > last + 1) {
+            eventsMissed.add(frame.firstSequence() - last - 1);
+        }
+        List<BookAvailabilityDto> updates = frame.updates();
+        long skipped = Math.min(firstNew - frame.firstSequence(), updates.size());
+        eventsDuplicate.add(skipped);
+        if (skipped == updates.size()) {
+            return;
+        }
+        lastSequences.put(frame.origin(), frame.firstSequence() + updates.size() - 1);
+        for (BookAvailabilityDto update : updates.subList((int) skipped, updates.size())) {
+            eventsReceived.increment();
+            listeners.forEach(listener -> listener.accept(update));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("availability.bus.queued", queue, Queue::size)
+                .description("Availability updates waiting to be sent to other instances")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.frames.sent", framesSent, LongAdder::sum)
+                .description("Availability frames published to other instances")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.frames.failed", framesFailed, LongAdder::sum)
+                .description("Availability frames that could not be published")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.events.sent", eventsSent, LongAdder::sum)
+                .description("Availability updates published to other instances")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.events.dropped", eventsDropped, LongAdder::sum)
+                .description("Availability updates not sent because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.events.received", eventsReceived, LongAdder::sum)
+                .description("Availability updates received from other instances")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.events.duplicate", eventsDuplicate, LongAdder::sum)
+                .description("Availability updates received again and skipped")
+                .register(registry);
+        FunctionCounter.builder("availability.bus.events.missed", eventsMissed, LongAdder::sum)
+                .description("Availability updates of other instances that never arrived")
+                .register(registry);
+    }
+
+    // Publisher loop: take one update, then gather more until the frame is full or max-wait has passed
+    private void drain() {
+        List<BookAvailabilityDto> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    BookAvailabilityDto next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The sequence advances even when sending fails, so receivers count the lost updates as missed
+    private void send(List<BookAvailabilityDto> batch) {
+        AvailabilityFrame frame = new AvailabilityFrame(nodeId, nextSequence, List.copyOf(batch));
+        nextSequence += batch.size();
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(frame));
+            framesSent.increment();
+            eventsSent.add(batch.size());
+        } catch (JsonProcessingException | RuntimeException e) {
+            framesFailed.increment();
+            log.warn("Could not publish {} availability updates: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    // Consecutive updates of one instance; the i-th update has sequence firstSequence + i
+    public record AvailabilityFrame(String origin, long firstSequence, List<BookAvailabilityDto> updates) {
+    }
+}
@@ -1,24 +1,442 @@
 package com.getir.library_management.service.impl;
 
+import com.getir.library_management.dto.book.AvailabilityBitmapFrameDto;
+import com.getir.library_management.dto.book.AvailabilityFilterDto;
+import com.getir.library_management.dto.book.AvailabilitySnapshotDto;
 import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.InvalidSubscriptionFilterException;
+import com.getir.library_management.index.AvailabilityBitmap;
+import com.getir.library_management.repository.BookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-// This service manages a reactive stream of book availability updates
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// This service manages a reactive stream of book availability updates.
+// Every subscriber has its own bounded queue holding only the latest pending state per book, so a slow client
+// skips intermediate states instead of holding back the others; one that falls further behind is disconnected.
+// Subscribers may filter by book ids and genres. Filtered subscribers are kept in inverted indexes by book and by
+// genre, so an update only visits the subscribers interested in it rather than every connection.
+// Updates of other instances arrive through the AvailabilityEventBus and are routed the same way.
+// Each update gets the next event id of this instance and is kept in a ring buffer of recent events, so a client
+// reconnecting with Last-Event-ID is sent only what it missed; one whose gap is no longer buffered gets a snapshot.
+// New subscribers start with a snapshot too: the deflated AvailabilityBitmap. Every update is applied to the bitmap
+// before it is routed, so a bitmap read after registering covers every event before the subscriber's first one.
+@Slf4j
 @Service
-public class BookAvailabilityServiceImpl {
+public class BookAvailabilityServiceImpl implements MeterBinder {
+
+    // SSE event names of the bitmap snapshot and of the database snapshot used while the bitmap is not ready;
+    // updates use the default event name
+    public static final String BITMAP_EVENT = "bitmap";
+    public static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final AvailabilityEventBus eventBus;
+    private final BookRepository bookRepository;
+    private final AvailabilityBitmap availabilityBitmap;
+
+    // Prefix of this instance's event ids, so an id issued by another instance or before a restart is recognised
+    private final String streamId = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+
+    // Recent events, event id n at index (n - 1) % length; guarded by this together with lastEventId
+    private final AvailabilityEvent[] recentEvents;
+    private long lastEventId;
+
+    // Connected subscribers
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Subscribers without a filter, and filtered subscribers by followed book id and by normalized genre
+    private final Set<Subscriber> unfiltered = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> byBook = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byGenre = new ConcurrentHashMap<>();
+
+    // Books with a pending update a subscriber may have before it is disconnected
+    private final int queueCapacity;
 
-    // Sink is used to emit new events to subscribers
-    private final Sinks.Many<BookAvailabilityDto> sink = Sinks.many().multicast().onBackpressureBuffer();
+    // Upper bound for the book ids and genres of one subscription
+    private final int maxFilterSize;
 
-    // Called to emit an availability update to all active subscribers
+    // Writes to clients happen here, never on the thread that publishes the update
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder routed = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder replayedEvents = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder initialSnapshots = new LongAdder();
+
+    public BookAvailabilityServiceImpl(AvailabilityEventBus eventBus,
+                                       BookRepository bookRepository,
+                                       AvailabilityBitmap availabilityBitmap,
+                                       @Value("${library.availability.stream.queue-capacity:256}") int queueCapacity,
+                                       @Value("${library.availability.stream.max-filter-size:1000}") int maxFilterSize,
+                                       @Value("${library.availability.stream.replay-buffer-size:4096}") int replayBufferSize) {
+        this.queueCapacity = queueCapacity;
+        this.maxFilterSize = maxFilterSize;
+        this.recentEvents = new AvailabilityEvent[Math.max(1, replayBufferSize)];
+        this.eventBus = eventBus;
+        this.bookRepository = bookRepository;
+        this.availabilityBitmap = availabilityBitmap;
+        eventBus.subscribe(this::deliver);
+    }
+
+    // Called to emit an availability update to the subscribers of every instance interested in the book
     public void publishAvailabilityUpdate(BookAvailabilityDto update) {
-        sink.tryEmitNext(update);
+        deliver(update);
+        eventBus.publish(update);
     }
 
-    // Exposes the availability stream for controllers to return as a Flux
+    // Exposes the unfiltered availability stream for controllers to return as a Flux
     public Flux<BookAvailabilityDto> getAvailabilityStream() {
-        return sink.asFlux();
+        return getAvailabilityStream(AvailabilityFilterDto.ALL);
+    }
+
+    // Exposes the live updates of the filtered books, without event ids
+    public Flux<BookAvailabilityDto> getAvailabilityStream(AvailabilityFilterDto filter) {
+        return getAvailabilityEvents(filter, null, false).map(event -> (BookAvailabilityDto) event.data());
+    }
+
+    // Exposes the availability stream of the filtered books as Server-Sent Events with ids. Given the id of the last
+    // event a client received, it first sends the buffered events it missed, or a snapshot when they are gone;
+    // without one it starts with a snapshot when initialSnapshot is set.
+    // Updates are only emitted against demand, so the sink's own buffer stays empty.
+    public Flux<ServerSentEvent<?>> getAvailabilityEvents(AvailabilityFilterDto filter, String lastEventId,
+                                                          boolean initialSnapshot) {
+        if (filter.bookIds().size() + filter.genres().size() > maxFilterSize) {
+            throw new InvalidSubscriptionFilterException(ExceptionMessages.SUBSCRIPTION_FILTER_TOO_LARGE);
+        }
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink);
+            sink.onDispose(() -> unregister(subscriber, filter));
+            long snapshotAsOf = register(subscriber, filter, lastEventId, initialSnapshot);
+            if (snapshotAsOf >= 0) {
+                subscriber.resume(snapshot(filter, snapshotAsOf));
+            }
+            sink.onRequest(requested -> subscriber.schedule());
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("availability.stream.subscribers", subscribers, Set::size)
+                .description("Connected availability stream subscribers")
+                .register(registry);
+        Gauge.builder("availability.stream.queue.depth", this, service -> service.queueDepth(false))
+                .description("Pending updates across all availability stream subscribers")
+                .register(registry);
+        Gauge.builder("availability.stream.queue.max.depth", this, service -> service.queueDepth(true))
+                .description("Pending updates of the most lagging availability stream subscriber")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.published", published, LongAdder::sum)
+                .description("Availability updates published")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.routed", routed, LongAdder::sum)
+                .description("Availability updates queued for a subscriber interested in the book")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.delivered", delivered, LongAdder::sum)
+                .description("Availability updates written to subscribers")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.conflated", conflated, LongAdder::sum)
+                .description("Availability updates replaced by a newer state of the same book before delivery")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.dropped", dropped, LongAdder::sum)
+                .description("Availability updates discarded when a lagging subscriber was disconnected")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.subscribers.disconnected", disconnected, LongAdder::sum)
+                .description("Subscribers disconnected for falling too far behind")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.reconnects.replayed", replays, LongAdder::sum)
+                .description("Reconnecting subscribers caught up from the buffered events")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.events.replayed", replayedEvents, LongAdder::sum)
+                .description("Buffered availability updates queued for reconnecting subscribers")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.reconnects.snapshot", snapshots, LongAdder::sum)
+                .description("Reconnecting subscribers sent a snapshot because their missed events were not buffered")
+                .register(registry);
+        FunctionCounter.builder("availability.stream.snapshots.initial", initialSnapshots, LongAdder::sum)
+                .description("New subscribers sent a snapshot as their initial state")
+                .register(registry);
+    }
+
+    // Routes an update of this or another instance to the local subscribers interested in the book.
+    // Ids are assigned and routed under the lock, so every subscriber receives increasing ids.
+    private synchronized void deliver(BookAvailabilityDto update) {
+        published.increment();
+        AvailabilityEvent event = new AvailabilityEvent(++lastEventId, update);
+        recentEvents[slot(event.id())] = event;
+        availabilityBitmap.update(update.bookId(), update.available());
+
+        unfiltered.forEach(subscriber -> subscriber.offer(event));
+        Set<Subscriber> followers = byBook.getOrDefault(update.bookId(), Set.of());
+        followers.forEach(subscriber -> subscriber.offer(event));
+        if (update.genre() != null) {
+            // A subscriber following both the book and its genre already has the update
+            byGenre.getOrDefault(AvailabilityFilterDto.normalize(update.genre()), Set.of()).stream()
+                    .filter(subscriber -> !followers.contains(subscriber))
+                    .forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    // Adds the subscriber to the routing indexes and queues the buffered events it missed. Returns the event id the
+    // subscriber needs a snapshot as of, or -1 when it needs none; until then it holds back later events.
+    private synchronized long register(Subscriber subscriber, AvailabilityFilterDto filter, String lastSeenEventId,
+                                       boolean initialSnapshot) {
+        subscribers.add(subscriber);
+        if (filter.isEmpty()) {
+            unfiltered.add(subscriber);
+        } else {
+            filter.bookIds().forEach(bookId -> add(byBook, bookId, subscriber));
+            filter.genres().forEach(genre -> add(byGenre, genre, subscriber));
+        }
+        if (lastSeenEventId == null || lastSeenEventId.isBlank()) {
+            if (!initialSnapshot) {
+                return -1;
+            }
+            initialSnapshots.increment();
+            subscriber.suspend();
+            return lastEventId;
+        }
+
+        Map<Long, AvailabilityEvent> missed = missedEvents(filter, parseEventId(lastSeenEventId));
+        // More missed books than the queue holds would disconnect the client again right away
+        if (missed == null || missed.size() > queueCapacity) {
+            snapshots.increment();
+            subscriber.suspend();
+            return lastEventId;
+        }
+        replays.increment();
+        replayedEvents.add(missed.size());
+        missed.values().forEach(subscriber::offer);
+        return -1;
+    }
+
+    // Latest buffered event per book of the filter after the given id, in id order, or null when some are gone
+    private Map<Long, AvailabilityEvent> missedEvents(AvailabilityFilterDto filter, long seen) {
+        long oldestBuffered = Math.max(1, lastEventId - recentEvents.length + 1);
+        if (seen < 0 || seen > lastEventId || seen + 1 < oldestBuffered) {
+            return null;
+        }
+        Map<Long, AvailabilityEvent> missed = new LinkedHashMap<>();
+        for (long id = seen + 1; id <= lastEventId; id++) {
+            AvailabilityEvent event = recentEvents[slot(id)];
+            if (filter.matches(event.update())) {
+                missed.remove(event.update().bookId());
+                missed.put(event.update().bookId(), event);
+            }
+        }
+        return missed;
+    }
+
+    private void unregister(Subscriber subscriber, AvailabilityFilterDto filter) {
+        subscribers.remove(subscriber);
+        unfiltered.remove(subscriber);
+        filter.bookIds().forEach(bookId -> remove(byBook, bookId, subscriber));
+        filter.genres().forEach(genre -> remove(byGenre, genre, subscriber));
+    }
+
+    // The availability bitmap, or while it is not ready the books of the filter on loan. Read after registering,
+    // so no later change is missed; events queued meanwhile are sent after it and may repeat a state it contains.
+    private ServerSentEvent<?> snapshot(AvailabilityFilterDto filter, long asOf) {
+        AvailabilityBitmap.Snapshot bitmap = availabilityBitmap.snapshot();
+        if (bitmap != null) {
+            String encoded = Base64.getEncoder().encodeToString(bitmap.deflated());
+            return ServerSentEvent.builder(new AvailabilityBitmapFrameDto(
+                            AvailabilityBitmapFrameDto.DEFLATE_BASE64, encoded, bitmap.availableCount()))
+                    .id(formatEventId(asOf))
+                    .event(BITMAP_EVENT)
+                    .build();
+        }
+        List<Long> unavailable = bookRepository.findUnavailableBooks().stream()
+                .filter(filter::matches)
+                .map(BookAvailabilityDto::bookId)
+                .sorted()
+                .toList();
+        return ServerSentEvent.builder(new AvailabilitySnapshotDto(unavailable))
+                .id(formatEventId(asOf))
+                .event(SNAPSHOT_EVENT)
+                .build();
+    }
+
+    private int slot(long eventId) {
+        return (int) ((eventId - 1) % recentEvents.length);
+    }
+
+    private String formatEventId(long id) {
+        return streamId + "-" + id;
+    }
+
+    // The sequence of an id issued by this instance, or -1 for any other id
+    private long parseEventId(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(streamId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Index entries are created and dropped atomically, so a subscriber is never added to a set being discarded
+    private static <K> void add(Map<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+        index.compute(key, (k, set) -> {
+            Set<Subscriber> subscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            subscribers.add(subscriber);
+            return subscribers;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private double queueDepth(boolean max) {
+        int total = 0;
+        int deepest = 0;
+        for (Subscriber subscriber : subscribers) {
+            int depth = subscriber.depth();
+            total += depth;
+            deepest = Math.max(deepest, depth);
+        }
+        return max ? deepest : total;
+    }
+
+    private record AvailabilityEvent(long id, BookAvailabilityDto update) {
+    }
+
+    private final class Subscriber {
+
+        private final FluxSink<ServerSentEvent<?>> sink;
+
+        // Book id -> latest pending event, lowest id first; guarded by this
+        private final LinkedHashMap<Long, AvailabilityEvent> pending = new LinkedHashMap<>();
+        private boolean closed;
+
+        // Whether the subscriber waits for its snapshot, and the snapshot to send before any pending event;
+        // guarded by this
+        private boolean suspended;
+        private ServerSentEvent<?> snapshot;
+
+        // Drain requests; only the caller that moves it from 0 schedules a drain
+        private final AtomicInteger work = new AtomicInteger();
+
+        private Subscriber(FluxSink<ServerSentEvent<?>> sink) {
+            this.sink = sink;
+        }
+
+        private void offer(AvailabilityEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                routed.increment();
+                // A newer state moves the book to the end, so events leave in id order and the client's
+                // Last-Event-ID covers everything sent before it
+                if (pending.remove(event.update().bookId()) != null) {
+                    conflated.increment();
+                } else if (pending.size() >= queueCapacity) {
+                    disconnect();
+                    return;
+                }
+                pending.put(event.update().bookId(), event);
+            }
+            schedule();
+        }
+
+        private synchronized void suspend() {
+            suspended = true;
+        }
+
+        private void resume(ServerSentEvent<?> snapshot) {
+            synchronized (this) {
+                this.snapshot = snapshot;
+                suspended = false;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                scheduler.schedule(this::drain);
+            }
+        }
+
+        // Emits pending events while the client has demand; later requests and offers are picked up by the loop
+        private void drain() {
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0) {
+                    ServerSentEvent<?> next = poll();
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                    delivered.increment();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private synchronized ServerSentEvent<?> poll() {
+            if (closed || suspended) {
+                return null;
+            }
+            if (snapshot != null) {
+                ServerSentEvent<?> next = snapshot;
+                snapshot = null;
+                return next;
+            }
+            Iterator<AvailabilityEvent> oldest = pending.values().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            AvailabilityEvent next = oldest.next();
+            oldest.remove();
+            return ServerSentEvent.builder(next.update()).id(formatEventId(next.id())).build();
+        }
+
+        private synchronized int depth() {
+            return pending.size();
+        }
+
+        // Caller holds the lock; the client reconnects and catches up from its last event id
+        private void disconnect() {
+            closed = true;
+            dropped.add(pending.size() + 1L);
+            pending.clear();
+            disconnected.increment();
+            log.warn("Disconnecting availability stream subscriber with {} books pending", queueCapacity);
+            sink.complete();
+        }
     }
 }
@@ -1,20 +1,32 @@
 package com.getir.library_management.service.impl;
 
+import com.getir.library_management.cache.BookSearchKeyGenerator;
+import com.getir.library_management.cache.SearchCacheGenerations;
+import com.getir.library_management.dto.book.AvailabilityBitmapDto;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.dto.book.BookRecommendationDto;
 import com.getir.library_management.dto.book.BookResponseDto;
 import com.getir.library_management.dto.book.CreateBookRequestDto;
 import com.getir.library_management.dto.book.UpdateBookRequestDto;
+import com.getir.library_management.dto.page.CursorPageDto;
 import com.getir.library_management.entity.Book;
 import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.AvailabilityNotReadyException;
 import com.getir.library_management.exception.custom.BookAlreadyExistsException;
 import com.getir.library_management.exception.custom.BookNotFoundException;
+import com.getir.library_management.exception.custom.InvalidCursorSortException;
+import com.getir.library_management.index.AvailabilityBitmap;
+import com.getir.library_management.index.BookSearchIndex;
+import com.getir.library_management.index.CoBorrowingIndex;
 import com.getir.library_management.logging.audit.AuditLogService;
 import com.getir.library_management.logging.audit.CurrentUserService;
 import com.getir.library_management.repository.BookRepository;
 import com.getir.library_management.service.interfaces.BookService;
+import com.getir.library_management.util.CursorCodec;
+import com.getir.library_management.util.TransactionHooks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -27,14 +39,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    // Sort orders supported by keyset (cursor) pagination
+    private static final String SORT_BY_TITLE = "title";
+    private static final String SORT_BY_ID = "id";
+
+    // Upper bound for a single cursor slice
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    // Upper bound for the number of recommendations in one response
+    private static final int MAX_RECOMMENDATIONS = 20;
+
     // Dependencies required for book operations
     private final BookRepository bookRepository;
     private final ModelMapper modelMapper;
     private final AuditLogService auditLogService;
     private final CurrentUserService currentUserService;
+    private final BookSearchIndex bookSearchIndex;
+    private final SearchCacheGenerations searchCacheGenerations;
+    private final CoBorrowingIndex coBorrowingIndex;
+    private final AvailabilityBitmap availabilityBitmap;
+    private final BookAvailabilityServiceImpl bookAvailabilityService;
 
-    // Adds a new book to the system and evicts cache entries
-    @CacheEvict(value = "bookSearchCache", allEntries = true) // Clear redis cache when a new book added
+    // Adds a new book to the system
     @Override
     public BookResponseDto addBook(CreateBookRequestDto request) throws BookAlreadyExistsException {
         // Check if book already exists by ISBN
@@ -48,6 +74,16 @@ public class BookServiceImpl implements BookService {
         // Save the new book to the database
         Book savedBook = bookRepository.save(book);
 
+        // Make the book searchable through the in-memory index
+        bookSearchIndex.index(savedBook);
+        coBorrowingIndex.bookSaved(savedBook);
+
+        // Move only the cached searches this book can match to fresh keys
+        searchCacheGenerations.touch(savedBook);
+
+        // Announce the new book to availability stream subscribers once it is committed
+        publishAvailability(savedBook, savedBook.isAvailability());
+
         // Log the book addition action
         auditLogService.logAction(
                 currentUserService.getEmail(),
@@ -71,6 +107,9 @@ public class BookServiceImpl implements BookService {
             throw new BookAlreadyExistsException(ExceptionMessages.BOOK_EXISTS);
         }
 
+        // Searches matching the old values are stale once the update commits
+        searchCacheGenerations.touch(book);
+
         // Update book fields
         book.setAuthor(request.getAuthor());
         book.setIsbn(request.getIsbn());
@@ -81,6 +120,11 @@ public class BookServiceImpl implements BookService {
         // Save updated book
         Book updatedBook = bookRepository.save(book);
 
+        // Re-index the changed fields
+        bookSearchIndex.index(updatedBook);
+        coBorrowingIndex.bookSaved(updatedBook);
+        searchCacheGenerations.touch(updatedBook);
+
         // Log the update action
         auditLogService.logAction(
                 currentUserService.getEmail(),
@@ -102,6 +146,14 @@ public class BookServiceImpl implements BookService {
         // Delete the book from the database
         bookRepository.delete(book);
 
+        // Drop the book from the in-memory index and from cached searches
+        bookSearchIndex.remove(id);
+        coBorrowingIndex.bookRemoved(id);
+        searchCacheGenerations.touch(book);
+
+        // A deleted book can no longer be borrowed
+        publishAvailability(book, false);
+
         // Log the deletion
         auditLogService.logAction(
                 currentUserService.getEmail(),
@@ -121,14 +173,55 @@ public class BookServiceImpl implements BookService {
         return modelMapper.map(book, BookResponseDto.class);
     }
 
-    // Searches for books using optional filters and caches the result
-    @Cacheable(value = "bookSearchCache", key = "#title + '_' + #author + '_' + #isbn + '_' + #genre + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    // Searches for books using optional filters and caches the result under a generation-stamped key.
+    // sync: concurrent misses for the same key share a single query
+    // availableOnly keeps only books that can be borrowed right now.
+    @Cacheable(value = "bookSearchCache", keyGenerator = BookSearchKeyGenerator.NAME, sync = true)
     @Override
-    public Page<BookResponseDto> searchBooks(String title, String author, String isbn, String genre, Pageable pageable) {
-        return bookRepository.searchBooks(title, author, isbn, genre, pageable)
+    public Page<BookResponseDto> searchBooks(String title, String author, String isbn, String genre,
+                                             boolean availableOnly, Pageable pageable) {
+        // Prefer the trigram index; fall back to the database query when the index cannot answer exactly
+        return bookSearchIndex.search(title, author, isbn, genre, availableOnly, pageable)
+                .orElseGet(() -> bookRepository.searchBooks(title, author, isbn, genre, availableOnly, pageable))
                 .map(book -> modelMapper.map(book, BookResponseDto.class));
     }
 
+    // Searches books with keyset pagination: no OFFSET scan and no COUNT query, however deep the client scrolls
+    @Override
+    public CursorPageDto<BookResponseDto> searchBooksByCursor(String title, String author, String isbn, String genre,
+                                                              boolean availableOnly, String sort, String cursor,
+                                                              int size) {
+        if (!SORT_BY_TITLE.equals(sort) && !SORT_BY_ID.equals(sort)) {
+            throw new InvalidCursorSortException("Unsupported cursor sort: " + sort);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorCodec.Cursor after = cursor == null || cursor.isBlank() ? null : CursorCodec.decode(cursor, sort);
+
+        // Fetch one extra row to learn whether another slice follows
+        int limit = pageSize + 1;
+        List<Book> books = SORT_BY_TITLE.equals(sort)
+                ? bookRepository.searchBooksAfterTitle(title, author, isbn, genre, availableOnly,
+                        after == null ? null : after.key(), after == null ? null : after.id(), limit)
+                : bookRepository.searchBooksAfterId(title, author, isbn, genre, availableOnly,
+                        after == null ? 0L : after.id(), limit);
+
+        boolean hasNext = books.size() > pageSize;
+        List<Book> slice = hasNext ? books.subList(0, pageSize) : books;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Book last = slice.get(slice.size() - 1);
+            nextCursor = CursorCodec.encode(sort, SORT_BY_TITLE.equals(sort) ? last.getTitle() : null, last.getId());
+        }
+
+        return CursorPageDto.<BookResponseDto>builder()
+                .content(slice.stream().map(book -> modelMapper.map(book, BookResponseDto.class)).toList())
+                .size(slice.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     // Retrieves all books without any filtering
     @Override
     public List<BookResponseDto> getAllBooks() {
@@ -137,4 +230,44 @@ public class BookServiceImpl implements BookService {
                 .map(book -> modelMapper.map(book, BookResponseDto.class))
                 .toList();
     }
+
+    // Books that readers of this book also borrowed, answered from the in-memory co-borrowing model.
+    // The database is only asked whether a book the model does not know exists; it has no recommendations yet.
+    // Runs without a transaction, so the common case never takes a connection.
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Override
+    public List<BookRecommendationDto> getRecommendations(Long id, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+        return coBorrowingIndex.recommend(id, size).orElseGet(() -> {
+            if (!bookRepository.existsById(id)) {
+                throw new BookNotFoundException(ExceptionMessages.BOOK_NOT_FOUND);
+            }
+            return List.of();
+        });
+    }
+
+    // Recomputes the co-borrowing model offline; recommendations keep using the previous model meanwhile.
+    // The model reads the history in batches of its own instead of inside one long transaction.
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Override
+    public void rebuildRecommendations() {
+        coBorrowingIndex.rebuild();
+    }
+
+    // Availability of every book as a bitmap, served from memory without a transaction
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Override
+    public AvailabilityBitmapDto getAvailabilityBitmap() {
+        AvailabilityBitmap.Snapshot snapshot = availabilityBitmap.snapshot();
+        if (snapshot == null) {
+            throw new AvailabilityNotReadyException(ExceptionMessages.AVAILABILITY_NOT_READY);
+        }
+        return new AvailabilityBitmapDto(snapshot.bitmap(), snapshot.deflated(), snapshot.checksum(),
+                snapshot.availableCount());
+    }
+
+    private void publishAvailability(Book book, boolean available) {
+        BookAvailabilityDto update = new BookAvailabilityDto(book.getId(), book.getTitle(), available, book.getGenre());
+        TransactionHooks.afterCommit(() -> bookAvailabilityService.publishAvailabilityUpdate(update));
+    }
 }
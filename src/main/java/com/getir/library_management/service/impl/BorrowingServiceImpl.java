@@ -1,8 +1,11 @@
 package com.getir.library_management.service.impl;
 
+import com.getir.library_management.cache.SearchCacheGenerations;
 import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.dto.analytics.LoanFactDto;
 import com.getir.library_management.dto.borrow.BorrowRequestDto;
 import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.page.CursorPageDto;
 import com.getir.library_management.entity.Book;
 import com.getir.library_management.entity.Borrowing;
 import com.getir.library_management.entity.User;
@@ -10,31 +13,54 @@ import com.getir.library_management.exception.ExceptionMessages;
 import com.getir.library_management.exception.custom.BookNotFoundException;
 import com.getir.library_management.exception.custom.BookUnavailableException;
 import com.getir.library_management.exception.custom.BorrowingNotFoundException;
+import com.getir.library_management.exception.custom.InvalidCursorException;
 import com.getir.library_management.exception.custom.UserNotFoundException;
+import com.getir.library_management.index.CirculationSnapshot;
+import com.getir.library_management.index.CoBorrowingIndex;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
 import com.getir.library_management.logging.audit.AuditLogService;
 import com.getir.library_management.logging.audit.CurrentUserService;
 import com.getir.library_management.repository.BookRepository;
 import com.getir.library_management.repository.BorrowingRepository;
 import com.getir.library_management.repository.UserRepository;
 import com.getir.library_management.service.interfaces.BorrowingService;
+import com.getir.library_management.service.interfaces.ReportJobService;
+import com.getir.library_management.util.CursorCodec;
+import com.getir.library_management.util.TransactionHooks;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Service
+@Transactional
 @RequiredArgsConstructor
 public class BorrowingServiceImpl implements BorrowingService {
 
+    // Borrowing history slices are ordered by (borrowDate, id), newest first
+    private static final String SORT_BY_BORROW_DATE = "borrowDate";
+
+    // Upper bound for a single cursor slice
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final BorrowingRepository borrowingRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final AuditLogService auditLogService;
     private final CurrentUserService currentUserService;
     private final BookAvailabilityServiceImpl bookAvailabilityService;
+    private final SearchCacheGenerations searchCacheGenerations;
+    private final OpenLoanDueDateIndex openLoanDueDateIndex;
+    private final ReportJobService reportJobService;
+    private final CirculationSnapshot circulationSnapshot;
+    private final CoBorrowingIndex coBorrowingIndex;
 
-    // Borrow a book for a user if the book is available
+    // Borrow a book for a user if the book is available; the availability flip and the borrowing insert commit together
     @Override
     public BorrowResponseDto borrowBook(BorrowRequestDto request) {
         User user = userRepository.findById(request.getUserId())
@@ -43,19 +69,18 @@ public class BorrowingServiceImpl implements BorrowingService {
         Book book = bookRepository.findById(request.getBookId())
                 .orElseThrow(() -> new BookNotFoundException(ExceptionMessages.BOOK_NOT_FOUND));
 
-        // Check if the book is currently available
-        if (!book.isAvailability()) {
+        // Claim the book with a conditional update; of several concurrent borrows only one sees a changed row
+        if (bookRepository.markBorrowed(book.getId()) == 0) {
             throw new BookUnavailableException(ExceptionMessages.BOOK_UNAVAILABLE);
         }
 
-        // Set book availability to false and notify via WebFlux stream
-        book.setAvailability(false);
-        bookRepository.save(book);
+        // Cached searches listing this book carry its availability
+        searchCacheGenerations.touch(book);
 
-        // Notify subscribers that the book is not available now
-        bookAvailabilityService.publishAvailabilityUpdate(
-                new BookAvailabilityDto(book.getId(), book.getTitle(), false)
-        );
+        // Notify subscribers once the borrow is committed
+        TransactionHooks.afterCommit(() -> bookAvailabilityService.publishAvailabilityUpdate(
+                new BookAvailabilityDto(book.getId(), book.getTitle(), false, book.getGenre())
+        ));
 
         // Create a new borrowing record
         Borrowing borrowing = Borrowing.builder()
@@ -74,8 +99,7 @@ public class BorrowingServiceImpl implements BorrowingService {
                 "Book ID: " + book.getId() + ", Title: " + book.getTitle()
         );
 
-        // Return response DTO
-        return BorrowResponseDto.builder()
+        BorrowResponseDto response = BorrowResponseDto.builder()
                 .id(saved.getId())
                 .userFullName(user.getFullName())
                 .bookTitle(book.getTitle())
@@ -83,6 +107,22 @@ public class BorrowingServiceImpl implements BorrowingService {
                 .dueDate(saved.getDueDate())
                 .returnDate(null)
                 .build();
+
+        // Track the open loan for overdue lists once the borrow is committed
+        openLoanDueDateIndex.loanOpened(response);
+        circulationSnapshot.loanOpened(LoanFactDto.builder()
+                .id(saved.getId())
+                .bookId(book.getId())
+                .userId(user.getId())
+                .genre(book.getGenre())
+                .borrowDate(saved.getBorrowDate())
+                .dueDate(saved.getDueDate())
+                .build());
+        coBorrowingIndex.loanOpened(user.getId(), book);
+        reportJobService.loansChanged();
+
+        // Return response DTO
+        return response;
     }
 
     // Return a borrowed book and mark it as available
@@ -91,17 +131,23 @@ public class BorrowingServiceImpl implements BorrowingService {
         Borrowing borrowedBook = borrowingRepository.findById(borrowingId)
                 .orElseThrow(() -> new BorrowingNotFoundException(ExceptionMessages.BORROWING_NOT_FOUND));
 
-        Book book = borrowedBook.getBook();
-        book.setAvailability(true);
-        bookRepository.save(book);
+        // Close the borrowing with a conditional update, so a book cannot be returned twice
+        LocalDate returnDate = LocalDate.now();
+        if (borrowingRepository.markReturned(borrowingId, returnDate) == 0) {
+            throw new BorrowingNotFoundException(ExceptionMessages.BORROWING_NOT_FOUND);
+        }
 
-        // Notify subscribers that the book is now available
-        bookAvailabilityService.publishAvailabilityUpdate(
-                new BookAvailabilityDto(book.getId(), book.getTitle(), true)
-        );
+        Book book = borrowedBook.getBook();
+        bookRepository.markReturned(book.getId());
+        searchCacheGenerations.touch(book);
+        openLoanDueDateIndex.loanClosed(borrowingId);
+        circulationSnapshot.loanClosed(borrowingId, returnDate);
+        reportJobService.loansChanged();
 
-        borrowedBook.setReturnDate(LocalDate.now());
-        borrowingRepository.save(borrowedBook);
+        // Notify subscribers once the return is committed
+        TransactionHooks.afterCommit(() -> bookAvailabilityService.publishAvailabilityUpdate(
+                new BookAvailabilityDto(book.getId(), book.getTitle(), true, book.getGenre())
+        ));
 
         // Write an audit log for the return action
         auditLogService.logAction(
@@ -117,60 +163,95 @@ public class BorrowingServiceImpl implements BorrowingService {
                 .bookTitle(book.getTitle())
                 .borrowDate(borrowedBook.getBorrowDate())
                 .dueDate(borrowedBook.getDueDate())
-                .returnDate(borrowedBook.getReturnDate())
+                .returnDate(returnDate)
                 .build();
     }
 
     // Retrieve all borrow records
     @Override
     public List<BorrowResponseDto> getAllBorrowings() {
-        return borrowingRepository.findAll().stream()
-                .map(borrowing -> BorrowResponseDto.builder()
-                        .id(borrowing.getId())
-                        .userFullName(borrowing.getUser().getFullName())
-                        .bookTitle(borrowing.getBook().getTitle())
-                        .borrowDate(borrowing.getBorrowDate())
-                        .dueDate(borrowing.getDueDate())
-                        .returnDate(borrowing.getReturnDate())
-                        .build()
-                ).toList();
+        return borrowingRepository.findAllResponses();
     }
 
     // Retrieve all borrowings for a specific user
     @Override
     public List<BorrowResponseDto> getBorrowingsByUser(Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND));
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND);
+        }
+
+        return borrowingRepository.findResponsesByUserId(userId);
+    }
+
+    // Retrieve one newest-first slice of all borrowings
+    @Override
+    public CursorPageDto<BorrowResponseDto> getAllBorrowingsByCursor(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorCodec.Cursor before = decodeHistoryCursor(cursor);
 
-        return borrowingRepository.findByUserId(userId).stream()
-                .map(borrowing -> BorrowResponseDto.builder()
-                        .id(borrowing.getId())
-                        .userFullName(borrowing.getUser().getFullName())
-                        .bookTitle(borrowing.getBook().getTitle())
-                        .borrowDate(borrowing.getBorrowDate())
-                        .dueDate(borrowing.getDueDate())
-                        .returnDate(borrowing.getReturnDate())
-                        .build()
-                ).toList();
+        // Fetch one extra row to learn whether another slice follows
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<BorrowResponseDto> rows = before == null
+                ? borrowingRepository.findHistory(limit)
+                : borrowingRepository.findHistoryBefore(LocalDate.parse(before.key()), before.id(), limit);
+        return historySlice(rows, pageSize);
+    }
+
+    // Retrieve one newest-first slice of a user's borrowings
+    @Override
+    public CursorPageDto<BorrowResponseDto> getBorrowingsByUserByCursor(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorCodec.Cursor before = decodeHistoryCursor(cursor);
+
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<BorrowResponseDto> rows = before == null
+                ? borrowingRepository.findHistoryByUser(userId, limit)
+                : borrowingRepository.findHistoryByUserBefore(userId, LocalDate.parse(before.key()), before.id(), limit);
+        return historySlice(rows, pageSize);
     }
 
     // Retrieve list of overdue books (not returned and past due date)
     @Override
     public List<BorrowResponseDto> getOverdueBooks() {
         LocalDate today = LocalDate.now();
+        // Served from the in-memory due-date index once it has loaded
+        if (openLoanDueDateIndex.isReady()) {
+            return openLoanDueDateIndex.overdue(today);
+        }
+        return borrowingRepository.findOverdueResponses(today);
+    }
+
+    private static CursorCodec.Cursor decodeHistoryCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        CursorCodec.Cursor decoded = CursorCodec.decode(cursor, SORT_BY_BORROW_DATE);
+        try {
+            LocalDate.parse(decoded.key());
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException(ExceptionMessages.INVALID_CURSOR);
+        }
+        return decoded;
+    }
 
-        List<Borrowing> overdueBorrowings = borrowingRepository
-                .findByReturnDateIsNullAndDueDateBefore(today);
-
-        return overdueBorrowings.stream()
-                .map(b -> BorrowResponseDto.builder()
-                        .id(b.getId())
-                        .userFullName(b.getUser().getFullName())
-                        .bookTitle(b.getBook().getTitle())
-                        .borrowDate(b.getBorrowDate())
-                        .dueDate(b.getDueDate())
-                        .returnDate(null)
-                        .build())
-                .toList();
+    private static CursorPageDto<BorrowResponseDto> historySlice(List<BorrowResponseDto> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<BorrowResponseDto> slice = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            BorrowResponseDto last = slice.get(slice.size() - 1);
+            nextCursor = CursorCodec.encode(SORT_BY_BORROW_DATE, last.getBorrowDate().toString(), last.getId());
+        }
+
+        return CursorPageDto.<BorrowResponseDto>builder()
+                .content(slice)
+                .size(slice.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 }
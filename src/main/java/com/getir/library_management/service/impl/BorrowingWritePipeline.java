@@ -0,0 +1,468 @@
+package com.getir.library_management.service.impl;
+
+import com.getir.library_management.cache.SearchCacheGenerations;
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.dto.borrow.BorrowRequestDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.*;
+import com.getir.library_management.index.CirculationSnapshot;
+import com.getir.library_management.index.CoBorrowingIndex;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
+import com.getir.library_management.logging.audit.AuditLogService;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.service.interfaces.ReportJobService;
+import com.getir.library_management.util.TransactionHooks;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Opt-in group commit for borrow and return writes.
+// Callers put commands on a bounded queue; a single writer thread drains up to batch-size commands (waiting at most
+// max-wait for more to arrive) and applies them in one transaction with JDBC batches, so a busy checkout desk costs
+// one commit instead of one per request. Every caller still gets its own result or exception.
+@Slf4j
+@Component
+public class BorrowingWritePipeline implements MeterBinder {
+
+    private static final String CLAIM_BOOK =
+            "UPDATE books SET availability = false WHERE id = :bookId AND availability = true";
+    private static final String RELEASE_BOOK =
+            "UPDATE books SET availability = true WHERE id = :bookId AND availability = false";
+    private static final String INSERT_BORROWING =
+            "INSERT INTO borrowing (user_id, book_id, borrow_date, due_date) VALUES (:userId, :bookId, :borrowDate, :dueDate)";
+    private static final String CLOSE_BORROWING =
+            "UPDATE borrowing SET return_date = :returnDate WHERE id = :id AND return_date IS NULL";
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SearchCacheGenerations searchCacheGenerations;
+    private final BookAvailabilityServiceImpl bookAvailabilityService;
+    private final AuditLogService auditLogService;
+    private final OpenLoanDueDateIndex openLoanDueDateIndex;
+    private final ReportJobService reportJobService;
+    private final CirculationSnapshot circulationSnapshot;
+    private final CoBorrowingIndex coBorrowingIndex;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxWait;
+    private final Duration timeout;
+    private final BlockingQueue<Command> queue;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile Thread writer;
+
+    public BorrowingWritePipeline(UserRepository userRepository,
+                                  BookRepository bookRepository,
+                                  BorrowingRepository borrowingRepository,
+                                  NamedParameterJdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  SearchCacheGenerations searchCacheGenerations,
+                                  BookAvailabilityServiceImpl bookAvailabilityService,
+                                  AuditLogService auditLogService,
+                                  OpenLoanDueDateIndex openLoanDueDateIndex,
+                                  ReportJobService reportJobService,
+                                  CirculationSnapshot circulationSnapshot,
+                                  CoBorrowingIndex coBorrowingIndex,
+                                  @Value("${library.borrowing.write-pipeline.enabled:false}") boolean enabled,
+                                  @Value("${library.borrowing.write-pipeline.batch-size:64}") int batchSize,
+                                  @Value("${library.borrowing.write-pipeline.max-wait:5ms}") Duration maxWait,
+                                  @Value("${library.borrowing.write-pipeline.queue-capacity:1024}") int queueCapacity,
+                                  @Value("${library.borrowing.write-pipeline.timeout:5s}") Duration timeout) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.searchCacheGenerations = searchCacheGenerations;
+        this.bookAvailabilityService = bookAvailabilityService;
+        this.auditLogService = auditLogService;
+        this.openLoanDueDateIndex = openLoanDueDateIndex;
+        this.reportJobService = reportJobService;
+        this.circulationSnapshot = circulationSnapshot;
+        this.coBorrowingIndex = coBorrowingIndex;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWait = maxWait;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        Thread thread = new Thread(this::drain, "borrowing-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    // Stops the writer; commands still queued fail with BorrowingBusyException
+    @PreDestroy
+    public void stop() {
+        Thread thread = writer;
+        writer = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Queues a borrow and waits for the batch that applies it. The actor is captured on the calling thread.
+    public BorrowResponseDto borrow(BorrowRequestDto request, String actor) {
+        return submit(new BorrowCommand(request.getUserId(), request.getBookId(), actor, new CompletableFuture<>()));
+    }
+
+    // Queues a return and waits for the batch that applies it
+    public BorrowResponseDto returnBook(Long borrowingId, String actor) {
+        return submit(new ReturnCommand(borrowingId, actor, new CompletableFuture<>()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("borrowing.writes.queued", queue, Queue::size)
+                .description("Borrow and return commands waiting for the writer")
+                .register(registry);
+        FunctionCounter.builder("borrowing.writes.batches", batches, LongAdder::sum)
+                .description("Transactions committed by the borrowing writer")
+                .register(registry);
+        FunctionCounter.builder("borrowing.writes.applied", applied, LongAdder::sum)
+                .description("Borrow and return commands processed by the borrowing writer")
+                .register(registry);
+        FunctionCounter.builder("borrowing.writes.rejected", rejected, LongAdder::sum)
+                .description("Borrow and return commands rejected because the queue was full or too slow")
+                .register(registry);
+    }
+
+    private BorrowResponseDto submit(Command command) {
+        if (writer == null || !queue.offer(command)) {
+            return reject("Borrowing write queue is full");
+        }
+        try {
+            return command.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Only a command the writer has not picked up yet can be withdrawn; otherwise its outcome is on the way
+            if (queue.remove(command)) {
+                return reject("Borrowing write was not picked up within " + timeout);
+            }
+            return command.result().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(command)) {
+                return reject("Interrupted while waiting for the borrowing writer");
+            }
+            return command.result().join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Borrowing write failed", e.getCause());
+        }
+    }
+
+    private BorrowResponseDto reject(String reason) {
+        rejected.increment();
+        log.warn("{}; rejecting borrowing request", reason);
+        throw new BorrowingBusyException(ExceptionMessages.BORROWING_BUSY);
+    }
+
+    // Writer loop: take one command, then gather more until the batch is full or max-wait has passed
+    private void drain() {
+        List<Command> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Command next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    apply(batch);
+                } catch (RuntimeException e) {
+                    // One broken batch must not stop the writer; its callers still waiting get the error
+                    log.error("Borrowing batch of {} failed", batch.size(), e);
+                    batch.forEach(command -> command.result().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Without a writer, new commands are rejected at once instead of timing out
+            if (writer == Thread.currentThread()) {
+                writer = null;
+            }
+            batch.addAll(queue);
+            queue.clear();
+            batch.forEach(command -> command.result().completeExceptionally(
+                    new BorrowingBusyException(ExceptionMessages.BORROWING_BUSY)));
+        }
+    }
+
+    // Applies the batch in one transaction. If the transaction itself fails, each command is retried on its own so
+    // one bad command cannot fail its neighbours. A failure after the commit, in a listener registered for it, leaves
+    // the batch committed: its callers get their results and nothing is applied again.
+    private void apply(List<Command> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completion) {
+                        committed.set(completion == STATUS_COMMITTED);
+                    }
+                });
+                applyInTransaction(batch, completions);
+            });
+        } catch (RuntimeException e) {
+            if (committed.get()) {
+                log.error("Borrowing batch of {} committed, but a post-commit step failed", batch.size(), e);
+            } else if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            } else {
+                log.warn("Borrowing batch of {} failed, applying its commands one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(command -> apply(List.of(command)));
+                return;
+            }
+        }
+        batches.increment();
+        applied.add(batch.size());
+        for (Runnable completion : completions) {
+            try {
+                completion.run();
+            } catch (RuntimeException e) {
+                log.error("Completing a borrowing command failed", e);
+            }
+        }
+    }
+
+    // Returns go first, so a book returned and borrowed again within one batch is available to the borrower
+    private void applyInTransaction(List<Command> batch, List<Runnable> completions) {
+        List<ReturnCommand> returns = new ArrayList<>();
+        List<BorrowCommand> borrows = new ArrayList<>();
+        for (Command command : batch) {
+            if (command instanceof ReturnCommand returnCommand) {
+                returns.add(returnCommand);
+            } else {
+                borrows.add((BorrowCommand) command);
+            }
+        }
+        if (!returns.isEmpty()) {
+            applyReturns(returns, completions);
+        }
+        if (!borrows.isEmpty()) {
+            applyBorrows(borrows, completions);
+        }
+    }
+
+    private void applyReturns(List<ReturnCommand> returns, List<Runnable> completions) {
+        Map<Long, Borrowing> borrowings = byId(borrowingRepository.findByIdIn(ids(returns, ReturnCommand::borrowingId)), Borrowing::getId);
+        LocalDate today = LocalDate.now();
+
+        List<ReturnCommand> found = new ArrayList<>();
+        for (ReturnCommand command : returns) {
+            if (borrowings.containsKey(command.borrowingId())) {
+                found.add(command);
+            } else {
+                completions.add(fail(command, new BorrowingNotFoundException(ExceptionMessages.BORROWING_NOT_FOUND)));
+            }
+        }
+
+        int[] closed = jdbcTemplate.batchUpdate(CLOSE_BORROWING, found.stream()
+                .map(command -> new MapSqlParameterSource("id", command.borrowingId()).addValue("returnDate", today))
+                .toArray(SqlParameterSource[]::new));
+
+        List<Borrowing> released = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            ReturnCommand command = found.get(i);
+            if (closed[i] == 0) {
+                completions.add(fail(command, new BorrowingNotFoundException(ExceptionMessages.BORROWING_NOT_FOUND)));
+                continue;
+            }
+            Borrowing borrowing = borrowings.get(command.borrowingId());
+            Book book = borrowing.getBook();
+            released.add(borrowing);
+            searchCacheGenerations.touch(book);
+            openLoanDueDateIndex.loanClosed(borrowing.getId());
+            circulationSnapshot.loanClosed(borrowing.getId(), today);
+            reportJobService.loansChanged();
+            TransactionHooks.afterCommit(() -> bookAvailabilityService.publishAvailabilityUpdate(
+                    new BookAvailabilityDto(book.getId(), book.getTitle(), true, book.getGenre())
+            ));
+            BorrowResponseDto response = BorrowResponseDto.builder()
+                    .id(borrowing.getId())
+                    .userFullName(borrowing.getUser().getFullName())
+                    .bookTitle(book.getTitle())
+                    .borrowDate(borrowing.getBorrowDate())
+                    .dueDate(borrowing.getDueDate())
+                    .returnDate(today)
+                    .build();
+            completions.add(succeed(command, response, "RETURN_BOOK", book));
+        }
+
+        jdbcTemplate.batchUpdate(RELEASE_BOOK, released.stream()
+                .map(borrowing -> new MapSqlParameterSource("bookId", borrowing.getBook().getId()))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    private void applyBorrows(List<BorrowCommand> borrows, List<Runnable> completions) {
+        Map<Long, User> users = byId(userRepository.findAllById(ids(borrows, BorrowCommand::userId)), User::getId);
+        Map<Long, Book> books = byId(bookRepository.findAllById(ids(borrows, BorrowCommand::bookId)), Book::getId);
+
+        List<BorrowCommand> found = new ArrayList<>();
+        for (BorrowCommand command : borrows) {
+            if (!users.containsKey(command.userId())) {
+                completions.add(fail(command, new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND)));
+            } else if (!books.containsKey(command.bookId())) {
+                completions.add(fail(command, new BookNotFoundException(ExceptionMessages.BOOK_NOT_FOUND)));
+            } else {
+                found.add(command);
+            }
+        }
+
+        // Within one batch the statements run in order, so a second borrow of the same book sees no changed row
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM_BOOK, found.stream()
+                .map(command -> new MapSqlParameterSource("bookId", command.bookId()))
+                .toArray(SqlParameterSource[]::new));
+
+        List<BorrowCommand> granted = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            if (claimed[i] == 0) {
+                completions.add(fail(found.get(i), new BookUnavailableException(ExceptionMessages.BOOK_UNAVAILABLE)));
+            } else {
+                granted.add(found.get(i));
+            }
+        }
+        if (granted.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate dueDate = today.plusDays(7); // 7-day borrowing period
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_BORROWING, granted.stream()
+                .map(command -> new MapSqlParameterSource("userId", command.userId())
+                        .addValue("bookId", command.bookId())
+                        .addValue("borrowDate", today)
+                        .addValue("dueDate", dueDate))
+                .toArray(SqlParameterSource[]::new), keys, new String[]{"id"});
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < granted.size(); i++) {
+            BorrowCommand command = granted.get(i);
+            Book book = books.get(command.bookId());
+            searchCacheGenerations.touch(book);
+            TransactionHooks.afterCommit(() -> bookAvailabilityService.publishAvailabilityUpdate(
+                    new BookAvailabilityDto(book.getId(), book.getTitle(), false, book.getGenre())
+            ));
+            BorrowResponseDto response = BorrowResponseDto.builder()
+                    .id(((Number) generated.get(i).values().iterator().next()).longValue())
+                    .userFullName(users.get(command.userId()).getFullName())
+                    .bookTitle(book.getTitle())
+                    .borrowDate(today)
+                    .dueDate(dueDate)
+                    .returnDate(null)
+                    .build();
+            openLoanDueDateIndex.loanOpened(response);
+            circulationSnapshot.loanOpened(LoanFactDto.builder()
+                    .id(response.getId())
+                    .bookId(book.getId())
+                    .userId(command.userId())
+                    .genre(book.getGenre())
+                    .borrowDate(today)
+                    .dueDate(dueDate)
+                    .build());
+            coBorrowingIndex.loanOpened(command.userId(), book);
+            reportJobService.loansChanged();
+            completions.add(succeed(command, response, "BORROW_BOOK", book));
+        }
+    }
+
+    // Completion run after commit: audit the action, then hand the response to the waiting caller
+    private Runnable succeed(Command command, BorrowResponseDto response, String action, Book book) {
+        return () -> {
+            try {
+                auditLogService.logAction(command.actor(), action, "Book ID: " + book.getId() + ", Title: " + book.getTitle());
+            } finally {
+                command.result().complete(response);
+            }
+        };
+    }
+
+    private static Runnable fail(Command command, RuntimeException error) {
+        return () -> command.result().completeExceptionally(error);
+    }
+
+    private static <C> Set<Long> ids(List<C> commands, Function<C, Long> id) {
+        return commands.stream().map(id).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+
+    private sealed interface Command permits BorrowCommand, ReturnCommand {
+        String actor();
+
+        CompletableFuture<BorrowResponseDto> result();
+    }
+
+    private record BorrowCommand(Long userId, Long bookId, String actor,
+                                 CompletableFuture<BorrowResponseDto> result) implements Command {
+    }
+
+    private record ReturnCommand(Long borrowingId, String actor,
+                                 CompletableFuture<BorrowResponseDto> result) implements Command {
+    }
+}
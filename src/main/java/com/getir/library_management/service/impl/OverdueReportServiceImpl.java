@@ -1,61 +1,106 @@
 package com.getir.library_management.service.impl;
 
-import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
 import com.getir.library_management.repository.BorrowingRepository;
 import com.getir.library_management.service.interfaces.OverdueReportService;
+import com.getir.library_management.util.CsvWriter;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OverdueReportServiceImpl implements OverdueReportService {
 
+    // Buffer of the CSV writer; rows reach the client whenever it fills up
+    private static final int CSV_BUFFER_SIZE = 16 * 1024;
+
     // Repository used to fetch overdue borrowings
     private final BorrowingRepository borrowingRepository;
 
+    // In-memory open loans by due date, used once it has loaded
+    private final OpenLoanDueDateIndex openLoanDueDateIndex;
+
     // Generates a CSV report for books that are overdue (not returned by their due date)
     public byte[] generateOverdueBooksCsv() {
         // Get today's date to check overdue status
         LocalDate today = LocalDate.now();
 
-        // Fetch borrowings where return date is null and due date is before today
-        List<Borrowing> overdueList = borrowingRepository
-                .findByReturnDateIsNullAndDueDateBefore(today);
-
-        // Use ByteArrayOutputStream and PrintWriter to generate CSV content
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             PrintWriter writer = new PrintWriter(out)) {
-
-            // Write CSV header
-            writer.println("ID,User,Book,Borrow Date,Due Date");
-
-            // Write each overdue borrowing record as a CSV line
-            for (Borrowing b : overdueList) {
-                writer.printf("%d,%s,%s,%s,%s%n",
-                        b.getId(),
-                        b.getUser().getFullName(),
-                        b.getBook().getTitle(),
-                        b.getBorrowDate(),
-                        b.getDueDate()
-                );
+        // Fetch borrowings where return date is null and due date is before today, with user name and book title joined in
+        List<BorrowResponseDto> overdueList = openLoanDueDateIndex.isReady()
+                ? openLoanDueDateIndex.overdue(today)
+                : borrowingRepository.findOverdueResponses(today);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeCsv(overdueList.iterator(), out);
+        } catch (IOException e) {
+            // Throw runtime exception if CSV generation fails
+            throw new UncheckedIOException("CSV export failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    // Writes the same report straight to the stream. Rows come from a database cursor with a fetch size and are not
+    // kept, so memory stays constant however many borrowings are overdue.
+    @Override
+    @Transactional
+    public void writeOverdueBooksCsv(OutputStream out) throws IOException {
+        try (Stream<BorrowResponseDto> overdue = borrowingRepository.streamOverdueResponses(LocalDate.now())) {
+            writeCsv(overdue.iterator(), out);
+        }
+    }
+
+    // Writes every borrowing with its return date, streamed like the overdue report
+    @Override
+    @Transactional
+    public void writeCirculationCsv(OutputStream out) throws IOException {
+        try (Stream<BorrowResponseDto> borrowings = borrowingRepository.streamAllResponses()) {
+            CsvWriter csv = new CsvWriter(out, CSV_BUFFER_SIZE);
+            csv.field("ID").field("User").field("Book").field("Borrow Date").field("Due Date").field("Return Date").endRow();
+            Iterator<BorrowResponseDto> rows = borrowings.iterator();
+            while (rows.hasNext()) {
+                BorrowResponseDto b = rows.next();
+                csv.field(b.getId())
+                        .field(b.getUserFullName())
+                        .field(b.getBookTitle())
+                        .field(b.getBorrowDate())
+                        .field(b.getDueDate())
+                        .field(b.getReturnDate())
+                        .endRow();
             }
+            csv.flush();
+        }
+    }
 
-            // Flush the writer to ensure all content is written
-            writer.flush();
+    private static void writeCsv(Iterator<BorrowResponseDto> rows, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out, CSV_BUFFER_SIZE);
 
-            // Return the CSV data as a byte array
-            return out.toByteArray();
+        // Write CSV header
+        csv.field("ID").field("User").field("Book").field("Borrow Date").field("Due Date").endRow();
 
-        } catch (IOException e) {
-            // Throw runtime exception if CSV generation fails
-            throw new RuntimeException("CSV export failed", e);
+        // Write each overdue borrowing record as a CSV line
+        while (rows.hasNext()) {
+            BorrowResponseDto b = rows.next();
+            csv.field(b.getId())
+                    .field(b.getUserFullName())
+                    .field(b.getBookTitle())
+                    .field(b.getBorrowDate())
+                    .field(b.getDueDate())
+                    .endRow();
         }
+
+        // Flush the writer to ensure all content is written; closing the stream is left to its owner
+        csv.flush();
     }
 }
-
@@ -0,0 +1,65 @@
+package com.getir.library_management.service.impl;
+
+import com.getir.library_management.dto.borrow.BorrowRequestDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.page.CursorPageDto;
+import com.getir.library_management.logging.audit.CurrentUserService;
+import com.getir.library_management.service.interfaces.BorrowingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Routes borrow and return writes through the group-commit pipeline when it is enabled.
+// Deliberately not transactional: a caller waiting for its batch must not hold a connection of its own.
+@Service
+@Primary
+@RequiredArgsConstructor
+public class PipelinedBorrowingService implements BorrowingService {
+
+    private final BorrowingServiceImpl borrowingService;
+    private final BorrowingWritePipeline writePipeline;
+    private final CurrentUserService currentUserService;
+
+    @Override
+    public BorrowResponseDto borrowBook(BorrowRequestDto request) {
+        if (writePipeline.isEnabled()) {
+            return writePipeline.borrow(request, currentUserService.getEmail());
+        }
+        return borrowingService.borrowBook(request);
+    }
+
+    @Override
+    public BorrowResponseDto returnBook(Long borrowingId) {
+        if (writePipeline.isEnabled()) {
+            return writePipeline.returnBook(borrowingId, currentUserService.getEmail());
+        }
+        return borrowingService.returnBook(borrowingId);
+    }
+
+    @Override
+    public List<BorrowResponseDto> getAllBorrowings() {
+        return borrowingService.getAllBorrowings();
+    }
+
+    @Override
+    public List<BorrowResponseDto> getBorrowingsByUser(Long userId) {
+        return borrowingService.getBorrowingsByUser(userId);
+    }
+
+    @Override
+    public CursorPageDto<BorrowResponseDto> getAllBorrowingsByCursor(String cursor, int size) {
+        return borrowingService.getAllBorrowingsByCursor(cursor, size);
+    }
+
+    @Override
+    public CursorPageDto<BorrowResponseDto> getBorrowingsByUserByCursor(Long userId, String cursor, int size) {
+        return borrowingService.getBorrowingsByUserByCursor(userId, cursor, size);
+    }
+
+    @Override
+    public List<BorrowResponseDto> getOverdueBooks() {
+        return borrowingService.getOverdueBooks();
+    }
+}
@@ -0,0 +1,191 @@
+package com.getir.library_management.service.impl;
+
+import com.getir.library_management.dto.report.ReportJobDto;
+import com.getir.library_management.dto.report.ReportJobStatus;
+import com.getir.library_management.dto.report.ReportType;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.ReportJobNotFoundException;
+import com.getir.library_management.exception.custom.ReportJobsBusyException;
+import com.getir.library_management.exception.custom.ReportNotReadyException;
+import com.getir.library_management.service.impl.ReportJobStore.StoredJob;
+import com.getir.library_management.service.interfaces.OverdueReportService;
+import com.getir.library_management.service.interfaces.ReportJobService;
+import com.getir.library_management.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Generates reports in the background and keeps the finished files on disk.
+// A report is identified by its type, the loan data version and the day; while none of them change, every request
+// for it is answered by the same job, so concurrent requests share one computation and later ones reuse the file.
+// The data version moves with every committed borrow or return. Jobs, claims and the data version are kept by the
+// ReportJobStore, which shares them between instances in shared mode.
+@Slf4j
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private final OverdueReportService overdueReportService;
+    private final ReportJobStore store;
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+
+    public ReportJobServiceImpl(OverdueReportService overdueReportService,
+                                ReportJobStore store,
+                                @Value("${library.reports.directory:${java.io.tmpdir}/library-reports}") Path directory,
+                                @Value("${library.reports.pool-size:1}") int poolSize,
+                                @Value("${library.reports.queue-capacity:8}") int queueCapacity) {
+        this.overdueReportService = overdueReportService;
+        this.store = store;
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create report directory " + directory, e);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Override
+    public ReportJobDto submit(ReportType type) {
+        String claim = type.name() + ":" + store.dataVersion() + ":" + LocalDate.now();
+        // Saved before claiming, so a job is always readable while it holds its claim
+        StoredJob created = StoredJob.queued(UUID.randomUUID().toString(), type, claim);
+        store.save(created);
+
+        String owner = store.claim(type, claim, created.id());
+        if (!owner.equals(created.id())) {
+            Optional<StoredJob> existing = store.find(owner);
+            if (existing.isPresent() && existing.get().status() != ReportJobStatus.FAILED) {
+                store.delete(created.id());
+                return existing.get().toDto();
+            }
+            // The owner failed or is gone; the report is computed again
+            store.release(type, claim, owner);
+            store.delete(owner);
+            owner = store.claim(type, claim, created.id());
+            if (!owner.equals(created.id())) {
+                store.delete(created.id());
+                return store.find(owner).map(StoredJob::toDto).orElseThrow(
+                        () -> new ReportJobsBusyException(ExceptionMessages.REPORT_JOBS_BUSY));
+            }
+        }
+
+        try {
+            executor.execute(() -> run(created));
+        } catch (RejectedExecutionException e) {
+            log.warn("Report queue is full; rejecting {} report", type);
+            store.release(type, claim, created.id());
+            store.delete(created.id());
+            throw new ReportJobsBusyException(ExceptionMessages.REPORT_JOBS_BUSY);
+        }
+        return created.toDto();
+    }
+
+    @Override
+    public ReportJobDto getJob(String jobId) {
+        return find(jobId).toDto();
+    }
+
+    @Override
+    public Path getReportFile(String jobId) {
+        StoredJob job = find(jobId);
+        if (job.status() != ReportJobStatus.SUCCEEDED) {
+            throw new ReportNotReadyException(ExceptionMessages.REPORT_NOT_READY);
+        }
+        Path file = directory.resolve(job.fileName());
+        if (!Files.exists(file)) {
+            // Written by an instance that does not share this report directory, or already replaced
+            throw new ReportJobNotFoundException(ExceptionMessages.REPORT_FILE_MISSING);
+        }
+        return file;
+    }
+
+    @Override
+    public void loansChanged() {
+        TransactionHooks.afterCommit(store::bumpDataVersion);
+    }
+
+    // Stops the report threads when the application context closes
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private StoredJob find(String jobId) {
+        return store.find(jobId)
+                .orElseThrow(() -> new ReportJobNotFoundException(ExceptionMessages.REPORT_JOB_NOT_FOUND));
+    }
+
+    // Writes to a temporary file first, so a report file is only ever seen complete
+    private void run(StoredJob job) {
+        store.save(job.running());
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, job.type().name().toLowerCase() + "-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                switch (job.type()) {
+                    case OVERDUE -> overdueReportService.writeOverdueBooksCsv(out);
+                    case CIRCULATION -> overdueReportService.writeCirculationCsv(out);
+                }
+            }
+            Path file = directory.resolve("report-" + job.id() + ".csv");
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The outdated report is gone by the time a client sees this one succeed
+            dropReplaced(job);
+            store.save(job.succeeded(file.getFileName().toString(), Files.size(file)));
+        } catch (IOException | RuntimeException e) {
+            log.error("{} report job {} failed", job.type(), job.id(), e);
+            deleteQuietly(temporary);
+            store.save(job.failed(e.getMessage()));
+        }
+    }
+
+    // The previous finished report of the same type is outdated by this one
+    private void dropReplaced(StoredJob job) {
+        String replaced = store.replaceLatest(job.type(), job.id());
+        if (replaced == null || replaced.equals(job.id())) {
+            return;
+        }
+        store.find(replaced).ifPresent(previous -> {
+            if (previous.fileName() != null) {
+                deleteQuietly(directory.resolve(previous.fileName()));
+            }
+        });
+        store.delete(replaced);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+}
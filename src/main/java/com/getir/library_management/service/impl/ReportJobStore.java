@@ -0,0 +1,183 @@
+package com.getir.library_management.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getir.library_management.dto.report.ReportJobDto;
+import com.getir.library_management.dto.report.ReportJobStatus;
+import com.getir.library_management.dto.report.ReportType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Holds the report jobs, the claim each job holds on the report it computes and the loan data version.
+// In shared mode all of it lives in Redis, so any instance behind a load balancer can answer for any job and a
+// borrow on one instance outdates the reports of all of them; the report directory must then be mounted by every
+// instance. Otherwise it stays in this instance's memory.
+@Slf4j
+@Component
+public class ReportJobStore {
+
+    private static final String PREFIX = "library:reports:";
+    private static final String DATA_VERSION_KEY = PREFIX + "data-version";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean shared;
+    private final Duration retention;
+
+    // Local mode: data version, jobs by id, current claim per report type and newest finished job per type
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final Map<String, StoredJob> jobs = new ConcurrentHashMap<>();
+    private final Map<ReportType, Claim> claims = new ConcurrentHashMap<>();
+    private final Map<ReportType, String> latest = new ConcurrentHashMap<>();
+
+    public ReportJobStore(StringRedisTemplate redisTemplate,
+                          ObjectMapper objectMapper,
+                          @Value("${library.reports.shared.enabled:false}") boolean shared,
+                          @Value("${library.reports.retention:24h}") Duration retention) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.shared = shared;
+        this.retention = retention;
+    }
+
+    public long dataVersion() {
+        if (!shared) {
+            return dataVersion.get();
+        }
+        String value = redisTemplate.opsForValue().get(DATA_VERSION_KEY);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    public void bumpDataVersion() {
+        if (!shared) {
+            dataVersion.incrementAndGet();
+            return;
+        }
+        redisTemplate.opsForValue().increment(DATA_VERSION_KEY);
+    }
+
+    // Lets the job compute the report identified by the claim unless another job already does;
+    // returns the id of the job holding the claim
+    public String claim(ReportType type, String claim, String jobId) {
+        if (!shared) {
+            return claims.compute(type, (t, existing) ->
+                    existing != null && existing.claim().equals(claim) ? existing : new Claim(claim, jobId)).jobId();
+        }
+        String key = PREFIX + "claim:" + claim;
+        while (true) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, jobId, retention))) {
+                return jobId;
+            }
+            String owner = redisTemplate.opsForValue().get(key);
+            if (owner != null) {
+                return owner;
+            }
+            // The claim expired between both calls
+        }
+    }
+
+    // Gives up the job's claim, so the next request computes the report again
+    public void release(ReportType type, String claim, String jobId) {
+        if (!shared) {
+            claims.computeIfPresent(type, (t, existing) -> existing.jobId().equals(jobId) ? null : existing);
+            return;
+        }
+        String key = PREFIX + "claim:" + claim;
+        if (jobId.equals(redisTemplate.opsForValue().get(key))) {
+            redisTemplate.delete(key);
+        }
+    }
+
+    public void save(StoredJob job) {
+        if (!shared) {
+            jobs.put(job.id(), job);
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(PREFIX + "job:" + job.id(), objectMapper.writeValueAsString(job), retention);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<StoredJob> find(String jobId) {
+        if (!shared) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+        String value = redisTemplate.opsForValue().get(PREFIX + "job:" + jobId);
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(value, StoredJob.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable report job {}: {}", jobId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void delete(String jobId) {
+        if (!shared) {
+            jobs.remove(jobId);
+            return;
+        }
+        redisTemplate.delete(PREFIX + "job:" + jobId);
+    }
+
+    // Records the job as the newest finished report of its type; returns the job it replaces, if any
+    public String replaceLatest(ReportType type, String jobId) {
+        if (!shared) {
+            return latest.put(type, jobId);
+        }
+        return redisTemplate.opsForValue().getAndSet(PREFIX + "latest:" + type.name(), jobId);
+    }
+
+    private record Claim(String claim, String jobId) {
+    }
+
+    // A report job as every instance sees it; the file name is relative to the report directory
+    public record StoredJob(String id, ReportType type, String claim, ReportJobStatus status,
+                            LocalDateTime createdAt, LocalDateTime finishedAt, String fileName, Long sizeBytes,
+                            String error) {
+
+        public static StoredJob queued(String id, ReportType type, String claim) {
+            return new StoredJob(id, type, claim, ReportJobStatus.QUEUED, LocalDateTime.now(), null, null, null, null);
+        }
+
+        public StoredJob running() {
+            return new StoredJob(id, type, claim, ReportJobStatus.RUNNING, createdAt, null, null, null, null);
+        }
+
+        public StoredJob succeeded(String fileName, long sizeBytes) {
+            return new StoredJob(id, type, claim, ReportJobStatus.SUCCEEDED, createdAt, LocalDateTime.now(),
+                    fileName, sizeBytes, null);
+        }
+
+        public StoredJob failed(String error) {
+            return new StoredJob(id, type, claim, ReportJobStatus.FAILED, createdAt, LocalDateTime.now(),
+                    null, null, error);
+        }
+
+        public ReportJobDto toDto() {
+            return ReportJobDto.builder()
+                    .id(id)
+                    .type(type)
+                    .status(status)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .sizeBytes(sizeBytes)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -3,16 +3,21 @@ package com.getir.library_management.service.impl;
 import com.getir.library_management.dto.user.UserResponseDto;
 import com.getir.library_management.dto.user.UpdateUserRequestDto;
 import com.getir.library_management.entity.User;
+import com.getir.library_management.entity.UserTombstone;
 import com.getir.library_management.exception.ExceptionMessages;
 import com.getir.library_management.exception.custom.UserNotFoundException;
 import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.repository.UserTombstoneRepository;
 import com.getir.library_management.service.interfaces.UserService;
+import com.getir.library_management.util.TokenRevocationRegistry;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Transactional
 @Service
@@ -22,6 +27,8 @@ public class UserServiceImpl implements UserService {
     // Dependencies for data access and object mapping
     private final UserRepository userRepository;
     private final ModelMapper modelMapper;
+    private final UserTombstoneRepository userTombstoneRepository;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     // Updates a user's details
     @Override
@@ -30,13 +37,24 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(request.getId())
                 .orElseThrow(() -> new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND));
 
+        // Tokens carry the email, so changing it invalidates previously issued tokens
+        boolean identityChanged = !Objects.equals(user.getEmail(), request.getEmail());
+
         // Update user details
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail());
+        if (identityChanged) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
 
         // Save updated user to the database
         User updatedUser = userRepository.save(user);
 
+        // Reject tokens issued with the previous version
+        if (identityChanged) {
+            tokenRevocationRegistry.revokeBefore(user.getId(), user.getTokenVersion());
+        }
+
         // Return mapped user response
         return modelMapper.map(updatedUser, UserResponseDto.class);
     }
@@ -68,8 +86,12 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(ExceptionMessages.USER_NOT_FOUND));
 
-        // Delete the user record from the database
+        // Delete the user record from the database, leaving a tombstone that keeps its tokens revoked
         userRepository.delete(user);
+        userTombstoneRepository.save(new UserTombstone(user.getId(), LocalDateTime.now()));
+
+        // Tokens of a removed user must not authenticate anymore
+        tokenRevocationRegistry.revokeAll(user.getId());
     }
 
     // Marks a user as deleted without removing the record (soft delete)
@@ -81,6 +103,10 @@ public class UserServiceImpl implements UserService {
 
         // Set the deleted flag to true and save
         user.setMarkedAsDeleted(true);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+
+        // Tokens of a soft deleted user must not authenticate anymore
+        tokenRevocationRegistry.revokeAll(user.getId());
     }
 }
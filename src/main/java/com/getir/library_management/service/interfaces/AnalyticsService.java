@@ -0,0 +1,15 @@
+package com.getir.library_management.service.interfaces;
+
+import com.getir.library_management.dto.analytics.GenreUtilizationDto;
+import com.getir.library_management.dto.analytics.LoanDurationDto;
+import com.getir.library_management.dto.analytics.TopBookDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AnalyticsService {
+
+    List<TopBookDto> getTopBooks(LocalDate from, LocalDate to, int limit); // Most borrowed books in a period
+    List<GenreUtilizationDto> getGenreUtilization(); // Current loan activity per genre
+    LoanDurationDto getLoanDuration(LocalDate from, LocalDate to); // Average loan length of returns in a period
+}
@@ -1,8 +1,11 @@
 package com.getir.library_management.service.interfaces;
 
+import com.getir.library_management.dto.book.AvailabilityBitmapDto;
+import com.getir.library_management.dto.book.BookRecommendationDto;
 import com.getir.library_management.dto.book.BookResponseDto;
 import com.getir.library_management.dto.book.CreateBookRequestDto;
 import com.getir.library_management.dto.book.UpdateBookRequestDto;
+import com.getir.library_management.dto.page.CursorPageDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -13,11 +16,21 @@ public interface BookService {
 
     BookResponseDto getBookById(Long id);
 
-    Page<BookResponseDto> searchBooks(String title, String author, String isbn, String genre, Pageable pageable);
+    Page<BookResponseDto> searchBooks(String title, String author, String isbn, String genre, boolean availableOnly,
+                                      Pageable pageable);
+
+    CursorPageDto<BookResponseDto> searchBooksByCursor(String title, String author, String isbn, String genre,
+                                                       boolean availableOnly, String sort, String cursor, int size);
 
     BookResponseDto updateBook(Long id, UpdateBookRequestDto request);
 
     void deleteBook(Long id);
 
     List<BookResponseDto> getAllBooks();
+
+    List<BookRecommendationDto> getRecommendations(Long id, int limit);
+
+    void rebuildRecommendations();
+
+    AvailabilityBitmapDto getAvailabilityBitmap();
 }
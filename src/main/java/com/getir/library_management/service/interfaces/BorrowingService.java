@@ -3,6 +3,7 @@ package com.getir.library_management.service.interfaces;
 
 import com.getir.library_management.dto.borrow.BorrowRequestDto;
 import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.page.CursorPageDto;
 
 import java.util.List;
 
@@ -12,5 +13,7 @@ public interface BorrowingService {
     BorrowResponseDto returnBook(Long borrowingId); // Return a borrowed book
     List<BorrowResponseDto> getAllBorrowings(); // Get all borrowings
     List<BorrowResponseDto> getBorrowingsByUser(Long userId); // View user's borrowing history
+    CursorPageDto<BorrowResponseDto> getAllBorrowingsByCursor(String cursor, int size); // All borrowings, newest first, one slice
+    CursorPageDto<BorrowResponseDto> getBorrowingsByUserByCursor(Long userId, String cursor, int size); // User's history, newest first, one slice
     List<BorrowResponseDto> getOverdueBooks(); // Get all overdue borrowings
 }
@@ -1,5 +1,10 @@
 package com.getir.library_management.service.interfaces;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface OverdueReportService {
     byte[] generateOverdueBooksCsv();
+    void writeOverdueBooksCsv(OutputStream out) throws IOException; // Streams the report row by row from the database
+    void writeCirculationCsv(OutputStream out) throws IOException; // Streams every borrowing, returned or not
 }
@@ -0,0 +1,14 @@
+package com.getir.library_management.service.interfaces;
+
+import com.getir.library_management.dto.report.ReportJobDto;
+import com.getir.library_management.dto.report.ReportType;
+
+import java.nio.file.Path;
+
+public interface ReportJobService {
+
+    ReportJobDto submit(ReportType type); // Start a report job, or join the current one for unchanged data
+    ReportJobDto getJob(String jobId); // Poll the status of a job
+    Path getReportFile(String jobId); // File of a finished job
+    void loansChanged(); // Mark finished reports as stale once the current transaction commits
+}
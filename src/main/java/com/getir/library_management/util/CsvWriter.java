@@ -0,0 +1,87 @@
+package com.getir.library_management.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Minimal buffered CSV writer for large exports.
+// Appends fields straight into one reused buffer (no String.format, no per-row strings) and quotes a field only
+// when it contains a separator, quote or line break.
+public class CsvWriter implements Flushable, Closeable {
+
+    private final Writer out;
+    private boolean rowStarted;
+
+    public CsvWriter(OutputStream out, int bufferSize) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return this;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(Long value) throws IOException {
+        separate();
+        if (value != null) {
+            out.write(Long.toString(value));
+        }
+        return this;
+    }
+
+    public CsvWriter field(LocalDate value) throws IOException {
+        separate();
+        if (value != null) {
+            out.write(value.toString());
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write('\n');
+        rowStarted = false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separate() throws IOException {
+        if (rowStarted) {
+            out.write(',');
+        }
+        rowStarted = true;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
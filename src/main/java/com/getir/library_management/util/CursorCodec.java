@@ -0,0 +1,38 @@
+package com.getir.library_management.util;
+
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.exception.custom.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Encodes keyset pagination positions (sort name, last sort key, last id) into opaque URL-safe tokens
+public final class CursorCodec {
+
+    private static final String VERSION = "1";
+
+    // Decoded position of the last element of the previous slice
+    public record Cursor(String sort, String key, long id) {}
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String sort, String key, long id) {
+        String raw = VERSION + "|" + sort + "|" + id + "|" + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Decodes a token produced by encode for the expected sort, rejecting anything else
+    public static Cursor decode(String token, String expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0]) || !parts[1].equals(expectedSort)) {
+                throw new InvalidCursorException(ExceptionMessages.INVALID_CURSOR);
+            }
+            return new Cursor(parts[1], parts[3], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(ExceptionMessages.INVALID_CURSOR);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.getir.library_management.util;
 
 import com.getir.library_management.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 import javax.crypto.spec.SecretKeySpec;
@@ -14,28 +17,43 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    // Claim names carrying the identity used by stateless authentication
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
     // JWT secret key loaded from application properties
     @Value("${jwt.secret}")
     private String secret;
 
+    // Cache of tokens that already passed signature verification
+    private final VerifiedTokenCache verifiedTokenCache;
+
     // Secret key used to sign the JWT
     private Key key;
 
-    // Initializes the signing key after the bean is constructed
+    // Immutable, thread-safe parser built once for the signing key
+    private JwtParser parser;
+
+    // Initializes the signing key and the parser after the bean is constructed
     @PostConstruct
     public void init() {
         byte[] keyBytes = Base64.getDecoder().decode(secret);
         this.key = new SecretKeySpec(keyBytes, SignatureAlgorithm.HS256.getJcaName());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     // Generates a JWT token with custom claims for the given user
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("email", user.getEmail());
-        claims.put("role", user.getRole().name());
+        claims.put(ROLE_CLAIM, user.getRole().name());
         claims.put("fullName", user.getFullName());
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
 
         return Jwts.builder()
                 .setClaims(claims) // Custom claims
@@ -48,11 +66,19 @@ public class JwtService {
 
     // Extracts the username (subject) from a given JWT token
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return extractClaims(token).getSubject();
+    }
+
+    // Verifies the token signature and expiry and returns all of its claims,
+    // reusing the result of an earlier verification while the token is still valid
+    public Claims extractClaims(String token) {
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        verifiedTokenCache.put(token, claims);
+        return claims;
     }
 }
\ No newline at end of file
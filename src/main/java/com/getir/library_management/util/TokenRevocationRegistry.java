@@ -0,0 +1,75 @@
+package com.getir.library_management.util;
+
+import com.getir.library_management.cache.CacheInvalidationBus;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.entity.UserTombstone;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.repository.UserTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the minimum accepted token version per user so stateless JWT authentication can still reject
+// tokens issued before an email change, a soft delete or a hard delete.
+// Revocations are applied once the change commits and broadcast to the other instances over the cache
+// invalidation bus; every instance rebuilds the same state from the users and user_tombstones tables at startup.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+
+    // Version used for users whose tokens must never be accepted again
+    private static final int REVOKED_FOREVER = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final UserTombstoneRepository userTombstoneRepository;
+    private final CacheInvalidationBus bus;
+
+    // userId -> lowest token version still accepted; users without an entry accept every version
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    // Loads the revocation state persisted on the users and user_tombstones tables
+    @PostConstruct
+    public void load() {
+        bus.subscribe(invalidation -> {
+            if (invalidation.tokenVersions() != null) {
+                invalidation.tokenVersions().forEach(this::raise);
+            }
+        });
+        for (User user : userRepository.findByMarkedAsDeletedTrueOrTokenVersionGreaterThan(0)) {
+            raise(user.getId(), user.isMarkedAsDeleted() ? REVOKED_FOREVER : user.getTokenVersion());
+        }
+        for (UserTombstone tombstone : userTombstoneRepository.findAll()) {
+            raise(tombstone.getUserId(), REVOKED_FOREVER);
+        }
+        log.info("Token revocation registry loaded with {} entries", minimumVersions.size());
+    }
+
+    // Rejects every token of the user issued with a version lower than the given one, once the change commits
+    public void revokeBefore(Long userId, int tokenVersion) {
+        TransactionHooks.afterCommit(() -> {
+            raise(userId, tokenVersion);
+            bus.publishTokenRevocation(userId, tokenVersion);
+        });
+    }
+
+    // Rejects every token of the user regardless of its version, once the change commits
+    public void revokeAll(Long userId) {
+        revokeBefore(userId, REVOKED_FOREVER);
+    }
+
+    // Checks whether a token carrying the given user id and version must be rejected
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Integer minimum = minimumVersions.get(userId);
+        return minimum != null && tokenVersion < minimum;
+    }
+
+    // Versions only ever increase, so revocations may arrive in any order
+    private void raise(Long userId, int tokenVersion) {
+        minimumVersions.merge(userId, tokenVersion, Math::max);
+    }
+}
@@ -0,0 +1,25 @@
+package com.getir.library_management.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Helpers for running side effects only once the surrounding transaction has committed
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Runs the action after the current transaction commits, or immediately when no transaction is active
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
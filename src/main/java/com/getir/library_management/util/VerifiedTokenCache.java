@@ -0,0 +1,115 @@
+package com.getir.library_management.util;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded cache of already verified tokens, keyed by a SHA-256 hash of the token and evicted at the token's expiry
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    // Cached claims together with the instant (epoch millis) after which they must not be served
+    private record Entry(Claims claims, long expiresAt) {}
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Hit/miss counters exposed as metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // Returns the cached claims of the token, or null if it was never verified or has expired
+    public Claims get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims();
+    }
+
+    // Caches the claims of a freshly verified token until its expiry
+    public void put(String token, Claims claims) {
+        if (claims.getExpiration() == null || maxEntries <= 0) {
+            return; // Tokens without expiry are never cached
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(hash(token), new Entry(claims, claims.getExpiration().getTime()));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.token.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Token verifications served from the cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.token.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Token verifications that required parsing the token")
+                .register(registry);
+        Gauge.builder("jwt.token.cache.size", entries, Map::size)
+                .description("Number of verified tokens currently cached")
+                .register(registry);
+    }
+
+    // Drops expired entries first; if the cache is still full, drops an arbitrary tenth of it
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+
+        int toRemove = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toRemove-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    // Hashes the token so the cache never keeps usable bearer tokens in memory
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.getir.library_management.cache;
+
+import com.getir.library_management.entity.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SearchCacheGenerationsTest {
+
+    private final SearchCacheGenerations generations = new SearchCacheGenerations(mock(CacheInvalidationBus.class));
+    private final BookSearchKeyGenerator keyGenerator = new BookSearchKeyGenerator(generations);
+
+    @Test
+    void touch_ShouldOnlyMoveSearchesTheBookCanMatch() {
+        long cleanBefore = generations.generationOf("clean", null, null, null);
+        long javaBefore = generations.generationOf(null, null, null, "java");
+
+        generations.touch(Book.builder().title("Clean Code").author("Robert C. Martin").isbn("9780132350884").genre("Programming").build());
+
+        assertNotEquals(cleanBefore, generations.generationOf("clean", null, null, null));
+        assertEquals(javaBefore, generations.generationOf(null, null, null, "java"));
+    }
+
+    @Test
+    void touch_ShouldMoveShortTermAndUnfilteredSearches() {
+        long shortTerm = generations.generationOf("cc", null, null, null);
+        long unfiltered = generations.generationOf(null, null, null, null);
+
+        generations.touch(Book.builder().title("Refactoring").author("Martin Fowler").isbn("9780201485677").build());
+
+        assertNotEquals(shortTerm, generations.generationOf("cc", null, null, null));
+        assertNotEquals(unfiltered, generations.generationOf(null, null, null, null));
+    }
+
+    @Test
+    void generate_ShouldIgnoreCaseAndIncludeSortAndAvailability() {
+        PageRequest byTitle = PageRequest.of(0, 10, Sort.by("title"));
+        PageRequest byAuthor = PageRequest.of(0, 10, Sort.by("author"));
+
+        Object key = keyGenerator.generate(null, null, "Clean", null, null, null, false, byTitle);
+
+        assertEquals(key, keyGenerator.generate(null, null, "clean", null, null, null, false, byTitle));
+        assertNotEquals(key, keyGenerator.generate(null, null, "clean", null, null, null, false, byAuthor));
+        assertNotEquals(key, keyGenerator.generate(null, null, "clean", null, null, null, true, byTitle));
+    }
+}
@@ -0,0 +1,268 @@
+package com.getir.library_management.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private static final TwoLevelCacheSettings SETTINGS = new TwoLevelCacheSettings(
+            100, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    private Cache remote;
+    private CacheInvalidationBus bus;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("bookSearchCache"));
+        bus = mock(CacheInvalidationBus.class);
+        cache = newCache(remote);
+    }
+
+    @Test
+    void get_ShouldServeRepeatedReadsFromLocalLevel() {
+        cache.put("clean_0_10", "page");
+
+        assertEquals("page", cache.get("clean_0_10", String.class));
+        assertEquals("page", cache.get("clean_0_10", String.class));
+
+        verify(remote, never()).get(any());
+        assertEquals(2, cache.getLocalHitCount());
+        verify(bus).publishEviction("bookSearchCache", "clean_0_10");
+    }
+
+    @Test
+    void get_ShouldFillLocalLevelFromRedis() {
+        remote.put("clean_0_10", "page");
+
+        assertEquals("page", cache.get("clean_0_10", String.class));
+        assertEquals("page", cache.get("clean_0_10", String.class));
+
+        verify(remote, times(1)).get("clean_0_10");
+        assertEquals(1, cache.getRemoteHitCount());
+        assertEquals(1, cache.getLocalHitCount());
+    }
+
+    @Test
+    void evictLocal_ShouldDropOnlyTheLocalCopy() {
+        cache.put("clean_0_10", "page");
+
+        cache.evictLocal("clean_0_10");
+
+        assertEquals("page", cache.get("clean_0_10", String.class));
+        assertEquals(1, cache.getRemoteHitCount());
+    }
+
+    @Test
+    void get_ShouldDegradeToLocalLevel_WhenRedisIsDown() {
+        Cache failing = mock(Cache.class);
+        when(failing.get(any())).thenThrow(new RedisConnectionFailureException("down"));
+        doThrow(new RedisConnectionFailureException("down")).when(failing).put(any(), any());
+        TwoLevelCache degraded = newCache(failing);
+
+        assertEquals("loaded", degraded.get("clean_0_10", () -> "loaded"));
+        assertEquals("loaded", degraded.get("clean_0_10", () -> "reloaded"));
+
+        assertFalse(degraded.isRemoteAvailable());
+        // The failed read marks Redis down; the following write and read do not try it again
+        verify(failing, times(1)).get(any());
+        verify(failing, never()).put(any(), any());
+    }
+
+    @Test
+    void manager_ShouldApplyInvalidationsFromOtherInstances() {
+        CacheInvalidationBus realBus = mock(CacheInvalidationBus.class);
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(new ConcurrentMapCacheManager(), realBus, null, null,
+                new CachePolicyProperties(), Duration.ofMinutes(10), List.of("bookSearchCache"), SETTINGS, Clock.systemUTC());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<CacheInvalidationBus.CacheInvalidation>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(realBus).subscribe(listener.capture());
+
+        Cache managed = manager.getCache("bookSearchCache");
+        managed.put("clean_0_10", "page");
+        TwoLevelCache twoLevel = (TwoLevelCache) managed;
+
+        listener.getValue().accept(new CacheInvalidationBus.CacheInvalidation("other", "bookSearchCache", "clean_0_10", null, null));
+        managed.get("clean_0_10");
+
+        assertEquals(List.of("bookSearchCache"), List.copyOf(manager.getCacheNames()));
+        assertEquals(0, twoLevel.getLocalHitCount());
+        assertEquals(1, twoLevel.getRemoteHitCount());
+    }
+
+    @Test
+    void get_ShouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+        int callers = 8;
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("clean_0_10", () -> {
+                    queries.incrementAndGet();
+                    loaderStarted.countDown();
+                    release.await();
+                    return "page";
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // Let the other callers reach the in-flight load before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("page", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(callers - 1, cache.getLocalCoalescedCount() + cache.getLocalHitCount());
+    }
+
+    @Test
+    void get_ShouldWaitForAnotherInstancesLoad_WhenLockIsTaken() {
+        RedisLoadLock lock = mock(RedisLoadLock.class);
+        when(lock.tryAcquire(any(), any())).thenAnswer(invocation -> {
+            // Another instance holds the lock and stores its result shortly after
+            remote.put("clean_0_10", "from other instance");
+            return null;
+        });
+        TwoLevelCache locked = newCache(remote, lock, null, spec(), Runnable::run, Clock.systemUTC());
+
+        assertEquals("from other instance", locked.get("clean_0_10", () -> "queried"));
+
+        assertEquals(0, locked.getLoadCount());
+        assertEquals(1, locked.getRemoteCoalescedCount());
+    }
+
+    @Test
+    void get_ShouldLoadAndReleaseLock_WhenLockIsAcquired() {
+        RedisLoadLock lock = mock(RedisLoadLock.class);
+        when(lock.tryAcquire(any(), any())).thenReturn("token");
+        TwoLevelCache locked = newCache(remote, lock, null, spec(), Runnable::run, Clock.systemUTC());
+
+        assertEquals("queried", locked.get("clean_0_10", () -> "queried"));
+
+        verify(lock).release("lock::bookSearchCache::clean_0_10", "token");
+        assertEquals("queried", remote.get("clean_0_10").get());
+    }
+
+    @Test
+    void get_ShouldRefreshAheadOfExpiry_WhileServingCurrentValue() {
+        CacheSpec spec = spec();
+        spec.setRefreshAhead(0.8);
+        MutableClock clock = new MutableClock();
+        TwoLevelCache refreshing = newCache(remote, null, null, spec, Runnable::run, clock);
+        AtomicInteger queries = new AtomicInteger();
+
+        assertEquals("page-1", refreshing.get("clean_0_10", () -> "page-" + queries.incrementAndGet()));
+
+        // 70% of the TTL: still fresh
+        clock.advance(Duration.ofMinutes(7));
+        assertEquals("page-1", refreshing.get("clean_0_10", () -> "page-" + queries.incrementAndGet()));
+        assertEquals(1, queries.get());
+
+        // 90% of the TTL: the current value is returned and a refresh runs (inline executor here)
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals("page-1", refreshing.get("clean_0_10", () -> "page-" + queries.incrementAndGet()));
+        assertEquals(1, refreshing.getRefreshCount());
+        assertEquals("page-2", refreshing.get("clean_0_10", () -> "page-" + queries.incrementAndGet()));
+    }
+
+    @Test
+    void get_ShouldNotCacheNull_WhenNullsAreDisabled() {
+        CacheSpec spec = spec();
+        spec.setCacheNulls(false);
+        TwoLevelCache noNulls = newCache(remote, null, null, spec, Runnable::run, Clock.systemUTC());
+
+        assertNull(noNulls.get("missing", () -> null));
+        assertNull(noNulls.get("missing", () -> null));
+
+        assertEquals(2, noNulls.getLoadCount());
+        assertNull(remote.get("missing"));
+    }
+
+    @Test
+    void put_ShouldTrimOldestRedisEntries_WhenOverMaxEntries() {
+        CacheSpec spec = spec();
+        spec.setMaxEntries(2);
+        RedisEntryTracker tracker = mock(RedisEntryTracker.class);
+        when(tracker.recordWrite(eq("bookSearchCache"), any(), anyLong(), any(), eq(2L))).thenReturn(List.of(), List.of(), List.of("a"));
+        TwoLevelCache bounded = newCache(remote, null, tracker, spec, Runnable::run, Clock.systemUTC());
+
+        bounded.put("a", "1");
+        bounded.put("b", "2");
+        bounded.put("c", "3");
+
+        assertNull(remote.get("a"));
+        assertNull(bounded.get("a"));
+        assertEquals("3", bounded.get("c", String.class));
+        assertEquals(1, bounded.getTrimmedCount());
+    }
+
+    private TwoLevelCache newCache(Cache remoteLevel) {
+        return newCache(remoteLevel, null, null, spec(), Runnable::run, Clock.systemUTC());
+    }
+
+    private TwoLevelCache newCache(Cache remoteLevel, RedisLoadLock lock, RedisEntryTracker tracker, CacheSpec spec,
+                                   Executor refreshExecutor, Clock clock) {
+        return new TwoLevelCache("bookSearchCache", Caffeine.newBuilder().maximumSize(100).build(),
+                remoteLevel, bus, lock, tracker, spec, SETTINGS, refreshExecutor, clock);
+    }
+
+    private static CacheSpec spec() {
+        return new CacheSpec().withDefaultTtl(Duration.ofMinutes(10));
+    }
+
+    // Clock that only moves when the test says so
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
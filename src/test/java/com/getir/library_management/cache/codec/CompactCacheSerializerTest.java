@@ -0,0 +1,88 @@
+package com.getir.library_management.cache.codec;
+
+import com.getir.library_management.dto.book.BookResponseDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCacheSerializerTest {
+
+    private final CompactCacheSerializer serializer =
+            new CompactCacheSerializer(CacheValueCodecs.defaults(), 1024, getClass().getClassLoader());
+
+    @Test
+    void shouldRoundTripSearchPage() {
+        Page<BookResponseDto> page = searchPage(3);
+
+        @SuppressWarnings("unchecked")
+        Page<BookResponseDto> decoded = (Page<BookResponseDto>) serializer.deserialize(serializer.serialize(page));
+
+        assertEquals(page.getContent(), decoded.getContent());
+        assertEquals(page.getTotalElements(), decoded.getTotalElements());
+        assertEquals(page.getPageable(), decoded.getPageable());
+    }
+
+    @Test
+    void shouldRoundTripBorrowingAndNullValue() {
+        BorrowResponseDto borrowing = BorrowResponseDto.builder()
+                .id(5L).userFullName("Ali").bookTitle("Clean Code")
+                .borrowDate(LocalDate.of(2024, 1, 1)).dueDate(LocalDate.of(2024, 1, 8))
+                .build();
+
+        assertEquals(borrowing, serializer.deserialize(serializer.serialize(borrowing)));
+        assertEquals(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+    }
+
+    @Test
+    void shouldCompressLargePagesAndStaySmallerThanJson() {
+        Page<BookResponseDto> page = searchPage(50);
+
+        byte[] compact = serializer.serialize(page);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(page);
+        byte[] jdk = new JdkSerializationRedisSerializer().serialize(page);
+
+        assertEquals(CompactCacheSerializer.FLAG_DEFLATED, compact[1]);
+        assertTrue(compact.length * 4 < json.length, compact.length + " vs JSON " + json.length);
+        assertTrue(compact.length * 4 < jdk.length, compact.length + " vs JDK " + jdk.length);
+        assertEquals(page.getContent(), ((Page<?>) serializer.deserialize(compact)).getContent());
+    }
+
+    @Test
+    void shouldRejectUnknownFormatVersion() {
+        byte[] bytes = serializer.serialize(searchPage(1));
+        bytes[0] = (byte) (CompactCacheSerializer.FORMAT_VERSION + 1);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    @Test
+    void shouldRejectTruncatedValue() {
+        byte[] bytes = serializer.serialize(searchPage(2));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+
+    private static Page<BookResponseDto> searchPage(int count) {
+        List<BookResponseDto> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new BookResponseDto((long) i + 1, "Clean Code " + i, "Robert C. Martin",
+                    "978013235" + (1000 + i), "Programming", "2008", i % 2 == 0));
+        }
+        return new PageImpl<>(books, PageRequest.of(0, Math.max(count, 1), Sort.by("title")), 120);
+    }
+}
@@ -0,0 +1,130 @@
+package com.getir.library_management.controller;
+
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.entity.Role;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.index.CirculationSnapshot;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AnalyticsControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private CirculationSnapshot circulationSnapshot;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(User.builder()
+                .fullName("Analytics Reader")
+                .email(UUID.randomUUID() + "@getir.com")
+                .password("1234")
+                .role(Role.ROLE_USER)
+                .build());
+        Book book = bookRepository.save(Book.builder()
+                .title("Popular Book")
+                .author("Author")
+                .isbn(UUID.randomUUID().toString())
+                .genre("Novel")
+                .availability(false)
+                .build());
+        bookRepository.save(Book.builder()
+                .title("Quiet Book")
+                .author("Author")
+                .isbn(UUID.randomUUID().toString())
+                .genre("Novel")
+                .availability(true)
+                .build());
+        bookId = book.getId();
+        borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(12))
+                .dueDate(LocalDate.now().minusDays(5))
+                .returnDate(LocalDate.now().minusDays(8))
+                .build());
+        borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(2))
+                .dueDate(LocalDate.now().plusDays(5))
+                .build());
+
+        // Rows saved above bypass the borrowing service, so the snapshot is rebuilt from the table
+        circulationSnapshot.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Later test classes delete users, which the borrowing rows would block
+        borrowingRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void analytics_ShouldAggregateSnapshot() throws Exception {
+        mockMvc.perform(get("/api/analytics/top-books").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].bookId").value(bookId))
+                .andExpect(jsonPath("$[0].title").value("Popular Book"))
+                .andExpect(jsonPath("$[0].loans").value(2));
+
+        mockMvc.perform(get("/api/analytics/genres"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].genre").value("Novel"))
+                .andExpect(jsonPath("$[0].books").value(2))
+                .andExpect(jsonPath("$[0].activeLoans").value(1))
+                .andExpect(jsonPath("$[0].utilization").value(0.5));
+
+        mockMvc.perform(get("/api/analytics/loan-duration"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returnedLoans").value(1))
+                .andExpect(jsonPath("$.averageDays").value(4.0))
+                .andExpect(jsonPath("$.lateReturns").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void analytics_ShouldBeForbidden_ForUsers() throws Exception {
+        mockMvc.perform(get("/api/analytics/genres"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -2,8 +2,13 @@ package com.getir.library_management.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.getir.library_management.dto.book.CreateBookRequestDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
 import com.getir.library_management.entity.Role;
 import com.getir.library_management.entity.User;
+import com.getir.library_management.exception.ExceptionMessages;
+import com.getir.library_management.index.AvailabilityBitmap;
+import com.getir.library_management.index.BookSearchIndex;
 import com.getir.library_management.logging.audit.AuditLogService;
 import com.getir.library_management.logging.audit.CurrentUserService;
 import com.getir.library_management.repository.BookRepository;
@@ -16,10 +21,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -56,6 +69,12 @@ class BookControllerIntegrationTest {
     @MockBean
     private BookAvailabilityServiceImpl bookAvailabilityService;
 
+    @Autowired
+    private AvailabilityBitmap availabilityBitmap;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
 
     private String token;
 
@@ -269,4 +288,168 @@ class BookControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Updated Title"));
     }
+
+    @Test
+    void shouldScrollSearchResultsWithCursor() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            CreateBookRequestDto request = CreateBookRequestDto.builder()
+                    .title("Cursor Book " + i)
+                    .author("Author")
+                    .isbn("555555555555" + i)
+                    .genre("Paging")
+                    .availability(true)
+                    .build();
+
+            mockMvc.perform(post("/api/book")
+                            .header("Authorization", token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        String firstSlice = mockMvc.perform(get("/api/book/search/cursor")
+                        .header("Authorization", token)
+                        .param("genre", "paging")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].title").value("Cursor Book 1"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(firstSlice).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/book/search/cursor")
+                        .header("Authorization", token)
+                        .param("genre", "paging")
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Cursor Book 3"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        // A title cursor cannot be replayed against the id order
+        mockMvc.perform(get("/api/book/search/cursor")
+                        .header("Authorization", token)
+                        .param("sort", "id")
+                        .param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+
+        // Only title and id orders can be paged with a cursor
+        mockMvc.perform(get("/api/book/search/cursor")
+                        .header("Authorization", token)
+                        .param("sort", "author"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(ExceptionMessages.INVALID_CURSOR_SORT));
+    }
+
+    @Test
+    void shouldServeAvailabilityBitmap_AndFilterSearchByIt() throws Exception {
+        Book onShelf = bookRepository.save(Book.builder().title("Shelf Book").author("A").isbn("bit-1")
+                .genre("Bitmap").availability(true).build());
+        Book lent = bookRepository.save(Book.builder().title("Lent Book").author("A").isbn("bit-2")
+                .genre("Bitmap").availability(false).build());
+        // Rows saved above bypass the book service, so they are indexed here and the bitmap is read again
+        bookSearchIndex.index(onShelf);
+        bookSearchIndex.index(lent);
+        availabilityBitmap.rebuild();
+
+        MvcResult result = mockMvc.perform(get("/api/book/availability/bitmap")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string("X-Available-Count", "1"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        BitSet bits = BitSet.valueOf(result.getResponse().getContentAsByteArray());
+        assertTrue(bits.get(onShelf.getId().intValue()));
+        assertFalse(bits.get(lent.getId().intValue()));
+
+        mockMvc.perform(get("/api/book/availability/bitmap")
+                        .header("Authorization", token)
+                        .header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/book/availability/bitmap")
+                        .header("Authorization", token)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"));
+
+        mockMvc.perform(get("/api/book/search")
+                        .header("Authorization", token)
+                        .param("genre", "bitmap")
+                        .param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Shelf Book"));
+
+        // Returned without the bitmap hearing of it yet: the search still follows the committed rows
+        lent.setAvailability(true);
+        bookRepository.save(lent);
+        mockMvc.perform(get("/api/book/search")
+                        .header("Authorization", token)
+                        .param("genre", "bitmap")
+                        .param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void shouldRecommendBooksBorrowedByTheSameReaders() throws Exception {
+        Book first = bookRepository.save(Book.builder().title("First").author("A").isbn("rec-1").build());
+        Book second = bookRepository.save(Book.builder().title("Second").author("A").isbn("rec-2").build());
+        Book third = bookRepository.save(Book.builder().title("Third").author("A").isbn("rec-3").build());
+        for (int i = 0; i < 2; i++) {
+            User reader = userRepository.save(User.builder()
+                    .fullName("Reader " + i)
+                    .email("reader" + i + "@getir.com")
+                    .password("1234")
+                    .role(Role.ROLE_USER)
+                    .build());
+            borrow(reader, first);
+            borrow(reader, i == 0 ? second : third);
+            if (i == 1) {
+                borrow(reader, second);
+            }
+        }
+
+        // Rows saved above bypass the borrowing service, so the model is rebuilt from the table
+        mockMvc.perform(post("/api/book/recommendations/rebuild")
+                        .header("Authorization", token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/book/" + first.getId() + "/recommendations")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Second"))
+                .andExpect(jsonPath("$[0].sharedReaders").value(2))
+                .andExpect(jsonPath("$[1].title").value("Third"))
+                .andExpect(jsonPath("$[1].sharedReaders").value(1));
+
+        mockMvc.perform(get("/api/book/" + third.getId() + "/recommendations")
+                        .header("Authorization", token)
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("First"));
+
+        mockMvc.perform(get("/api/book/999999/recommendations")
+                        .header("Authorization", token))
+                .andExpect(status().isNotFound());
+
+        borrowingRepository.deleteAll();
+    }
+
+    private void borrow(User reader, Book book) {
+        borrowingRepository.save(Borrowing.builder()
+                .user(reader)
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(3))
+                .dueDate(LocalDate.now().plusDays(4))
+                .returnDate(LocalDate.now())
+                .build());
+    }
 }
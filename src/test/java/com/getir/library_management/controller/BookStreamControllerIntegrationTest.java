@@ -1,5 +1,6 @@
 package com.getir.library_management.controller;
 
+import com.getir.library_management.dto.book.AvailabilityFilterDto;
 import com.getir.library_management.dto.book.BookAvailabilityDto;
 import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
 import org.junit.jupiter.api.Test;
@@ -9,11 +10,14 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 
+import java.util.Set;
+
 
 @WebFluxTest(BookStreamController.class)
 @Import(BookAvailabilityServiceImpl.class)
@@ -30,9 +34,9 @@ class BookStreamControllerTest {
     @Test
     void testStreamAvailability() {
         BookAvailabilityDto sampleDto = new BookAvailabilityDto((long)1,"Book 1", true);
-        Flux<BookAvailabilityDto> mockFlux = Flux.just(sampleDto);
+        Flux<ServerSentEvent<?>> mockFlux = Flux.just(ServerSentEvent.builder(sampleDto).id("a-1").build());
 
-        Mockito.when(bookAvailabilityService.getAvailabilityStream()).thenReturn(mockFlux);
+        Mockito.when(bookAvailabilityService.getAvailabilityEvents(AvailabilityFilterDto.ALL, null, true)).thenReturn(mockFlux);
 
         webTestClient.get()
                 .uri("/api/book/stream/availability")
@@ -44,4 +48,24 @@ class BookStreamControllerTest {
                 .hasSize(1)
                 .contains(sampleDto);
     }
+
+    @WithMockUser
+    @Test
+    void testStreamAvailability_WithFilter() {
+        BookAvailabilityDto sampleDto = new BookAvailabilityDto(2L, "Book 2", false, "Fantasy");
+        AvailabilityFilterDto filter = new AvailabilityFilterDto(Set.of(2L, 3L), Set.of("fantasy"));
+
+        Mockito.when(bookAvailabilityService.getAvailabilityEvents(filter, "a-7", true))
+                .thenReturn(Flux.just(ServerSentEvent.builder(sampleDto).id("a-8").build()));
+
+        webTestClient.get()
+                .uri("/api/book/stream/availability?bookIds=2,3&genre=Fantasy")
+                .header("Last-Event-ID", "a-7")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookAvailabilityDto.class)
+                .hasSize(1)
+                .contains(sampleDto);
+    }
 }
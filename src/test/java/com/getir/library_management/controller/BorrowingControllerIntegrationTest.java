@@ -18,9 +18,16 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -217,4 +224,89 @@ class BorrowingControllerIntegrationTest {
         mockMvc.perform(get("/api/borrowing/all"))
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldScrollBorrowingHistoryWithCursor() throws Exception {
+        User user = userRepository.findById(userId).orElseThrow();
+        for (int i = 1; i <= 3; i++) {
+            Book book = bookRepository.save(Book.builder()
+                    .title("History Book " + i)
+                    .author("Author")
+                    .isbn(UUID.randomUUID().toString())
+                    .availability(false)
+                    .build());
+            borrowingRepository.save(Borrowing.builder()
+                    .user(user)
+                    .book(book)
+                    .borrowDate(LocalDate.now().minusDays(10 - i))
+                    .dueDate(LocalDate.now().minusDays(3 - i))
+                    .build());
+        }
+
+        String firstSlice = mockMvc.perform(get("/api/borrowing/user/{id}/cursor", userId)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].bookTitle").value("History Book 3"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(firstSlice).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/borrowing/user/{id}/cursor", userId)
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].bookTitle").value("History Book 1"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        mockMvc.perform(get("/api/borrowing/all/cursor")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3));
+
+        mockMvc.perform(get("/api/borrowing/all/cursor")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldStreamOverdueCsv_PlainAndGzip() throws Exception {
+        Book book = bookRepository.save(Book.builder()
+                .title("Streaming Book")
+                .author("Author")
+                .isbn(UUID.randomUUID().toString())
+                .availability(false)
+                .build());
+        borrowingRepository.save(Borrowing.builder()
+                .user(userRepository.findById(userId).orElseThrow())
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(20))
+                .dueDate(LocalDate.now().minusDays(13))
+                .build());
+
+        MvcResult plain = mockMvc.perform(get("/api/borrowing/overdue/export/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(plain))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=overdue_books.csv"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(csv.startsWith("ID,User,Book,Borrow Date,Due Date\n"));
+        assertTrue(csv.contains("Jane Tester,Streaming Book"));
+
+        MvcResult gzip = mockMvc.perform(get("/api/borrowing/overdue/export/stream").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] compressed = mockMvc.perform(asyncDispatch(gzip))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(csv, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package com.getir.library_management.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.entity.Role;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.service.interfaces.ReportJobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(User.builder()
+                .fullName("Report Reader")
+                .email(UUID.randomUUID() + "@getir.com")
+                .password("1234")
+                .role(Role.ROLE_USER)
+                .build());
+        Book book = bookRepository.save(Book.builder()
+                .title("Report Book")
+                .author("Author")
+                .isbn(UUID.randomUUID().toString())
+                .availability(false)
+                .build());
+        borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(20))
+                .dueDate(LocalDate.now().minusDays(6))
+                .build());
+
+        // Rows saved above bypass the borrowing service, so earlier reports have to be invalidated here
+        reportJobService.loansChanged();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Later test classes delete users, which the borrowing rows would block
+        borrowingRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void submitPollAndDownload_ShouldServeFinishedReport() throws Exception {
+        String body = mockMvc.perform(post("/api/reports/circulation"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("id").asText();
+
+        JsonNode job = objectMapper.readTree(body);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!"SUCCEEDED".equals(job.get("status").asText()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = objectMapper.readTree(mockMvc.perform(get("/api/reports/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        }
+        assertEquals("SUCCEEDED", job.get("status").asText());
+
+        String csv = mockMvc.perform(get("/api/reports/jobs/" + jobId + "/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=circulation_report.csv"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(csv.startsWith("ID,User,Book,Borrow Date,Due Date,Return Date\n"));
+        assertTrue(csv.contains("Report Reader,Report Book"));
+
+        // Unchanged data is answered by the finished job
+        mockMvc.perform(post("/api/reports/CIRCULATION"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(jobId))
+                .andExpect(jsonPath("$.status").value("SUCCEEDED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void getReportJob_ShouldReturnNotFound_ForUnknownJob() throws Exception {
+        mockMvc.perform(get("/api/reports/jobs/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void submitReport_ShouldReturnBadRequest_ForUnknownType() throws Exception {
+        mockMvc.perform(post("/api/reports/inventory"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Report Type"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void submitReport_ShouldBeForbidden_ForUsers() throws Exception {
+        mockMvc.perform(post("/api/reports/overdue"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,96 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+class AvailabilityBitmapTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private AvailabilityBitmap bitmap;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bitmap, "enabled", true);
+        when(bookRepository.findAvailableIdsAfter(anyLong(), any())).thenReturn(List.of(1L, 3L, 10L));
+    }
+
+    @Test
+    void snapshot_ShouldBeNull_UntilLoaded() {
+        assertFalse(bitmap.isReady());
+        assertNull(bitmap.snapshot());
+    }
+
+    @Test
+    void load_ShouldSetBitsOfAvailableBooks() {
+        bitmap.load();
+
+        assertTrue(bitmap.isReady());
+        assertEquals(BitSet.valueOf(new long[]{(1L << 1) | (1L << 3) | (1L << 10)}),
+                BitSet.valueOf(bitmap.snapshot().bitmap()));
+        assertEquals(3, bitmap.snapshot().availableCount());
+    }
+
+    @Test
+    void update_ShouldChangeBits_AndInvalidateEncodedCopy() {
+        bitmap.load();
+        AvailabilityBitmap.Snapshot before = bitmap.snapshot();
+
+        // Setting a bit to the value it already has is not a change
+        bitmap.update(1L, true);
+        assertSame(before, bitmap.snapshot());
+
+        bitmap.update(1L, false);
+        bitmap.update(7L, true);
+
+        AvailabilityBitmap.Snapshot after = bitmap.snapshot();
+        assertNotEquals(before.version(), after.version());
+        assertNotEquals(before.checksum(), after.checksum());
+        BitSet bits = BitSet.valueOf(after.bitmap());
+        assertFalse(bits.get(1));
+        assertTrue(bits.get(7));
+        assertEquals(3, after.availableCount());
+    }
+
+    @Test
+    void snapshot_ShouldInflateToBitmap() throws Exception {
+        bitmap.load();
+        AvailabilityBitmap.Snapshot snapshot = bitmap.snapshot();
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(snapshot.deflated());
+        byte[] inflated = new byte[snapshot.bitmap().length];
+        int length = inflater.inflate(inflated);
+        inflater.end();
+
+        assertEquals(snapshot.bitmap().length, length);
+        assertArrayEquals(snapshot.bitmap(), inflated);
+    }
+
+    @Test
+    void update_ShouldBeIgnored_WhenDisabled() {
+        ReflectionTestUtils.setField(bitmap, "enabled", false);
+        bitmap.load();
+        bitmap.update(5L, true);
+
+        assertFalse(bitmap.isReady());
+        assertNull(bitmap.snapshot());
+    }
+}
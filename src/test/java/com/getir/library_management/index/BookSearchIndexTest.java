@@ -0,0 +1,88 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    // Stands in for the books table
+    private final Map<Long, Book> books = new ConcurrentHashMap<>();
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        books.put(1L, book(1L, "Clean Code"));
+        books.put(2L, book(2L, "Clean Architecture"));
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of());
+        when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false).map(books::get).toList();
+        });
+    }
+
+    @Test
+    void load_ShouldReplayWritesCommittedWhileReading() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenAnswer(invocation -> {
+            // The batch was read before book 1 was renamed and book 2 deleted, whose commits are applied first
+            List<Book> stale = List.of(book(1L, "Clean Code"), book(2L, "Clean Architecture"));
+            Book renamed = book(1L, "Dirty Code");
+            books.put(1L, renamed);
+            index.index(renamed);
+            books.remove(2L);
+            index.remove(2L);
+            return stale;
+        });
+
+        index.load();
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(), titles(index.search("clean", null, null, null, false, PageRequest.of(0, 10))));
+        assertEquals(List.of("Dirty Code"), titles(index.search("dirty", null, null, null, false, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void index_ShouldStayOff_WhenDistributedModeIsOn() {
+        ReflectionTestUtils.setField(index, "distributed", true);
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.copyOf(books.values()));
+
+        index.load();
+        index.index(book(3L, "Clean Agile"));
+
+        assertEquals(0, index.size());
+        assertTrue(index.search("clean", null, null, null, false, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private static List<String> titles(Optional<? extends Iterable<Book>> page) {
+        return StreamSupport.stream(page.orElseThrow().spliterator(), false).map(Book::getTitle).toList();
+    }
+
+    private static Book book(Long id, String title) {
+        return Book.builder().id(id).title(title).author("Robert C. Martin").isbn("isbn-" + id).build();
+    }
+}
@@ -0,0 +1,211 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.analytics.GenreUtilizationDto;
+import com.getir.library_management.dto.analytics.LoanDurationDto;
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.analytics.TopBookDto;
+import com.getir.library_management.repository.BorrowingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class CirculationSnapshotTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @InjectMocks
+    private CirculationSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(snapshot, "enabled", true);
+        when(borrowingRepository.findLoanFactsAfterId(anyLong(), any())).thenReturn(List.of());
+        when(borrowingRepository.findLoanFactsAfterId(eq(0L), any())).thenReturn(List.of(
+                loan(1L, 10L, "Novel", TODAY.minusDays(20), TODAY.minusDays(13), TODAY.minusDays(15)),
+                loan(2L, 10L, "Novel", TODAY.minusDays(10), TODAY.minusDays(3), null),
+                loan(3L, 11L, "Science", TODAY.minusDays(5), TODAY.plusDays(2), null),
+                loan(4L, 12L, null, TODAY.minusDays(40), TODAY.minusDays(33), TODAY.minusDays(30))
+        ));
+        snapshot.load();
+    }
+
+    @Test
+    void load_ShouldReadEveryBorrowing() {
+        assertTrue(snapshot.isReady());
+        assertEquals(4, snapshot.rows());
+        assertEquals(2, snapshot.openLoans());
+    }
+
+    @Test
+    void topBooks_ShouldCountLoansInPeriod_MostBorrowedFirst() {
+        snapshot.loanOpened(loan(5L, 11L, "Science", TODAY, TODAY.plusDays(7), null));
+        snapshot.loanOpened(loan(6L, 11L, "Science", TODAY, TODAY.plusDays(7), null));
+
+        List<TopBookDto> top = snapshot.topBooks(TODAY.minusDays(30), TODAY, 2);
+
+        assertEquals(List.of(11L, 10L), top.stream().map(TopBookDto::getBookId).toList());
+        assertEquals(3, top.get(0).getLoans());
+        assertEquals(2, top.get(1).getLoans());
+        assertTrue(snapshot.topBooks(TODAY.minusDays(60), TODAY.minusDays(50), 5).isEmpty());
+    }
+
+    @Test
+    void genres_ShouldCountActiveAndOverdueLoans() {
+        List<GenreUtilizationDto> genres = snapshot.genres(TODAY);
+
+        assertEquals(List.of("Novel", "Science", CirculationSnapshot.UNCLASSIFIED),
+                genres.stream().map(GenreUtilizationDto::getGenre).toList());
+        GenreUtilizationDto novel = genres.get(0);
+        assertEquals(2, novel.getLoans());
+        assertEquals(1, novel.getActiveLoans());
+        assertEquals(1, novel.getOverdueLoans());
+        assertEquals(0, genres.get(1).getOverdueLoans());
+    }
+
+    @Test
+    void genres_ShouldFollowBookIntoNewGenre() {
+        snapshot.loanOpened(loan(5L, 10L, "Classic", TODAY, TODAY.plusDays(7), null));
+
+        List<GenreUtilizationDto> genres = snapshot.genres(TODAY);
+
+        // All loans of book 10 move to its latest genre; the old one has no loans left
+        assertEquals(List.of("Classic", "Science", CirculationSnapshot.UNCLASSIFIED),
+                genres.stream().map(GenreUtilizationDto::getGenre).toList());
+        assertEquals(3, genres.get(0).getLoans());
+    }
+
+    @Test
+    void genres_ShouldNotFail_WhileBooksMoveIntoNewGenres() throws Exception {
+        Thread writer = new Thread(() -> {
+            for (long id = 100; id < 20_100; id++) {
+                snapshot.loanOpened(loan(id, 10L + id % 3, "Genre " + id, TODAY, TODAY.plusDays(7), null));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<GenreUtilizationDto> genres = snapshot.genres(TODAY);
+            assertTrue(genres.stream().mapToLong(GenreUtilizationDto::getLoans).sum() >= 4);
+        }
+        writer.join();
+
+        assertEquals(20_004, snapshot.genres(TODAY).stream().mapToLong(GenreUtilizationDto::getLoans).sum());
+    }
+
+    @Test
+    void loanClosed_ShouldFeedLoanDuration() {
+        snapshot.loanClosed(2L, TODAY);
+
+        LoanDurationDto duration = snapshot.loanDuration(TODAY.minusDays(20), TODAY);
+
+        assertEquals(2, duration.getReturnedLoans()); // Loan 1 kept 5 days, loan 2 kept 10 days
+        assertEquals(7.5, duration.getAverageDays());
+        assertEquals(1, duration.getLateReturns());
+        assertEquals(1, snapshot.openLoans());
+    }
+
+    @Test
+    void rebuild_ShouldNotDuplicateLoansOpenedBefore() {
+        snapshot.loanOpened(loan(2L, 10L, "Novel", TODAY.minusDays(10), TODAY.minusDays(3), null));
+        snapshot.rebuild();
+
+        assertEquals(4, snapshot.rows());
+        assertEquals(2, snapshot.topBooks(TODAY.minusDays(30), TODAY, 1).get(0).getLoans());
+    }
+
+    @Test
+    void hooks_ShouldHoldNothing_WhenDisabled() {
+        CirculationSnapshot disabled = new CirculationSnapshot(borrowingRepository);
+
+        disabled.load();
+        disabled.loanOpened(loan(5L, 11L, "Science", TODAY, TODAY.plusDays(7), null));
+        disabled.loanClosed(5L, TODAY);
+
+        assertFalse(disabled.isReady());
+        assertEquals(0, disabled.rows());
+    }
+
+    @Test
+    void load_ShouldStayOff_WhenDistributedModeIsOn() {
+        CirculationSnapshot distributed = new CirculationSnapshot(borrowingRepository);
+        ReflectionTestUtils.setField(distributed, "enabled", true);
+        ReflectionTestUtils.setField(distributed, "distributed", true);
+
+        distributed.load();
+        distributed.loanOpened(loan(5L, 11L, "Science", TODAY, TODAY.plusDays(7), null));
+
+        assertFalse(distributed.isReady());
+        assertEquals(0, distributed.rows());
+    }
+
+    // Aggregation times over a large snapshot; run with -Pbenchmark, -Danalytics.benchmark.loans=10000000 for 10M
+    @Test
+    @Tag("benchmark")
+    void aggregations_ShouldBeTimedOverLargeSnapshot() {
+        int loans = Integer.getInteger("analytics.benchmark.loans", 1_000_000);
+        SplittableRandom random = new SplittableRandom(42);
+        String[] genres = {"Novel", "Science", "History", "Poetry", "Children", "Travel", "Art", "Biography"};
+        for (long id = 100; id < 100 + loans; id++) {
+            long book = random.nextInt(100_000);
+            LocalDate borrowed = TODAY.minusDays(random.nextInt(3 * 365));
+            boolean open = random.nextInt(100) == 0;
+            snapshot.loanOpened(loan(id, book, genres[(int) (book % genres.length)], borrowed, borrowed.plusDays(7),
+                    open ? null : borrowed.plusDays(1 + random.nextInt(20))));
+        }
+        assertEquals(loans + 4, snapshot.rows());
+
+        time(loans, "top books", () -> snapshot.topBooks(TODAY.minusDays(365), TODAY, 10));
+        time(loans, "genres", () -> snapshot.genres(TODAY));
+        LoanDurationDto duration = time(loans, "loan duration", () -> snapshot.loanDuration(TODAY.minusDays(365), TODAY));
+        assertTrue(duration.getAverageDays() > 1 && duration.getAverageDays() < 21);
+    }
+
+    // Warms the aggregation up, then logs the average of a few runs
+    private static <T> T time(int loans, String label, Supplier<T> aggregation) {
+        for (int i = 0; i < 5; i++) {
+            aggregation.get();
+        }
+        int runs = 10;
+        T result = null;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            result = aggregation.get();
+        }
+        double millis = (System.nanoTime() - started) / 1e6 / runs;
+        log.info("Circulation analytics, {} over {} loans: {} ms", label, loans, String.format("%.1f", millis));
+        return result;
+    }
+
+    private static LoanFactDto loan(Long id, Long bookId, String genre, LocalDate borrowDate, LocalDate dueDate,
+                                    LocalDate returnDate) {
+        return LoanFactDto.builder()
+                .id(id)
+                .bookId(bookId)
+                .userId(id % 50)
+                .genre(genre)
+                .borrowDate(borrowDate)
+                .dueDate(dueDate)
+                .returnDate(returnDate)
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.analytics.LoanFactDto;
+import com.getir.library_management.dto.book.BookRecommendationDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class CoBorrowingIndexTest {
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private CoBorrowingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "topK", 3);
+        when(borrowingRepository.findLoanFactsAfterId(anyLong(), any())).thenReturn(List.of());
+        when(borrowingRepository.findLoanFactsAfterId(eq(0L), any())).thenReturn(List.of(
+                loan(1L, 100L, 1L),
+                loan(2L, 100L, 2L),
+                loan(3L, 200L, 1L),
+                loan(4L, 200L, 2L),
+                loan(5L, 200L, 3L),
+                loan(6L, 200L, 1L) // Borrowing the same book again adds nothing
+        ));
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of());
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(
+                LongStream.rangeClosed(1, 6).mapToObj(CoBorrowingIndexTest::book).toList());
+        index.load();
+    }
+
+    @Test
+    void recommend_ShouldRankBooksBySharedReaders() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L, 3L), ids(index.recommend(1L, 10).orElseThrow()));
+        assertEquals(2, index.recommend(1L, 10).orElseThrow().get(0).getSharedReaders());
+        assertEquals(List.of(1L, 2L), ids(index.recommend(3L, 10).orElseThrow()));
+        assertEquals(List.of(2L), ids(index.recommend(1L, 1).orElseThrow()));
+    }
+
+    @Test
+    void recommend_ShouldTellUnknownBooksFromBooksWithoutCoBorrowings() {
+        assertEquals(List.of(), index.recommend(6L, 10).orElseThrow());
+        assertTrue(index.recommend(99L, 10).isEmpty());
+    }
+
+    @Test
+    void loanOpened_ShouldUpdateTopListsIncrementally() {
+        List<LoanFactDto> history = new ArrayList<>(borrowingRepository.findLoanFactsAfterId(0L, null));
+        // Reader 300 and 400 tie book 4 with book 2 for book 1; reader 500 overflows the top 3 of book 5
+        long[][] borrows = {{300, 1}, {300, 4}, {400, 1}, {400, 4}, {500, 2}, {500, 3}, {500, 4}, {500, 5}, {500, 6}};
+        for (long[] borrow : borrows) {
+            index.loanOpened(borrow[0], book(borrow[1]));
+            history.add(loan(100L + history.size(), borrow[0], borrow[1]));
+        }
+
+        assertEquals(List.of(2L, 4L, 3L), ids(index.recommend(1L, 10).orElseThrow()));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.recommend(4L, 10).orElseThrow()));
+        assertEquals(List.of(2L, 3L, 4L), ids(index.recommend(5L, 10).orElseThrow()));
+
+        // A model rebuilt from the same history gives the same answers
+        List<List<BookRecommendationDto>> incremental = recommendAll();
+        when(borrowingRepository.findLoanFactsAfterId(eq(0L), any())).thenReturn(history);
+        index.rebuild();
+        assertEquals(incremental, recommendAll());
+    }
+
+    @Test
+    void bookRemoved_ShouldStopRecommendingIt() {
+        index.bookRemoved(2L);
+
+        assertEquals(List.of(3L), ids(index.recommend(1L, 10).orElseThrow()));
+    }
+
+    @Test
+    void hooks_ShouldHoldNothing_WhenDisabled() {
+        CoBorrowingIndex disabled = new CoBorrowingIndex(borrowingRepository, bookRepository);
+
+        disabled.load();
+        disabled.rebuild();
+        disabled.loanOpened(300L, book(1L));
+        disabled.loanOpened(300L, book(2L));
+        disabled.bookSaved(book(3L));
+
+        assertFalse(disabled.isReady());
+        assertEquals(0, disabled.size());
+        assertTrue(disabled.recommend(1L, 10).isEmpty());
+    }
+
+    @Test
+    void load_ShouldStayOff_WhenDistributedModeIsOn() {
+        CoBorrowingIndex distributed = new CoBorrowingIndex(borrowingRepository, bookRepository);
+        ReflectionTestUtils.setField(distributed, "enabled", true);
+        ReflectionTestUtils.setField(distributed, "distributed", true);
+        ReflectionTestUtils.setField(distributed, "topK", 3);
+
+        distributed.load();
+        distributed.rebuild();
+        distributed.loanOpened(300L, book(1L));
+        distributed.loanOpened(300L, book(2L));
+
+        assertFalse(distributed.isReady());
+        assertEquals(0, distributed.size());
+    }
+
+    // Read latency over a model of 20k books and 400k loans; a read is one map lookup and a few small objects.
+    // Run with -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void recommend_ShouldAnswerWellUnderAMillisecond() {
+        ReflectionTestUtils.setField(index, "topK", 20);
+        SplittableRandom random = new SplittableRandom(7);
+        int books = 20_000;
+        for (int i = 0; i < 400_000; i++) {
+            long reader = 1_000 + random.nextInt(50_000);
+            // Readers stay within a few neighbouring shelves, so co-borrowings cluster like real ones
+            long shelf = (reader % 200) * (books / 200);
+            index.loanOpened(reader, book(1 + shelf + random.nextInt(books / 100)));
+        }
+
+        int reads = 200_000;
+        long[] nanos = new long[reads];
+        for (int i = 0; i < reads; i++) {
+            long bookId = 1 + random.nextInt(books);
+            long started = System.nanoTime();
+            index.recommend(bookId, 10);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[reads / 2];
+        long p99 = nanos[reads * 99 / 100];
+        log.info("Recommendations over {} books: p50 {} us, p99 {} us", index.size(),
+                String.format("%.1f", p50 / 1e3), String.format("%.1f", p99 / 1e3));
+        assertTrue(p99 < 1_000_000, "p99 of " + p99 + " ns");
+    }
+
+    private List<List<BookRecommendationDto>> recommendAll() {
+        return LongStream.rangeClosed(1, 6).mapToObj(id -> index.recommend(id, 10).orElseThrow()).toList();
+    }
+
+    private static List<Long> ids(List<BookRecommendationDto> recommendations) {
+        return recommendations.stream().map(BookRecommendationDto::getBookId).toList();
+    }
+
+    private static Book book(long id) {
+        return Book.builder().id(id).title("Book " + id).author("Author").isbn("isbn-" + id).build();
+    }
+
+    private static LoanFactDto loan(Long id, Long userId, Long bookId) {
+        return LoanFactDto.builder().id(id).userId(userId).bookId(bookId).build();
+    }
+}
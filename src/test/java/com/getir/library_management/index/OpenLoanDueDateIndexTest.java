@@ -0,0 +1,144 @@
+package com.getir.library_management.index;
+
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.dto.borrow.OverdueIndexReportDto;
+import com.getir.library_management.repository.BorrowingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OpenLoanDueDateIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @InjectMocks
+    private OpenLoanDueDateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        when(borrowingRepository.findOpenResponsesAfterId(anyLong(), any())).thenReturn(List.of(
+                loan(1L, TODAY.minusDays(3)),
+                loan(2L, TODAY),
+                loan(3L, TODAY.minusDays(1)),
+                loan(4L, TODAY.plusDays(5))
+        ));
+        index.load();
+    }
+
+    @Test
+    void overdue_ShouldServeRowsFromMemory() {
+        List<BorrowResponseDto> overdue = index.overdue(TODAY);
+
+        assertEquals("Kitap 1", overdue.get(0).getBookTitle());
+        // Only the build read the database
+        verify(borrowingRepository, times(1)).findOpenResponsesAfterId(anyLong(), any());
+        verifyNoMoreInteractions(borrowingRepository);
+    }
+
+    @Test
+    void load_ShouldStayOff_WhenDistributedModeIsOn() {
+        OpenLoanDueDateIndex shared = new OpenLoanDueDateIndex(borrowingRepository);
+        ReflectionTestUtils.setField(shared, "enabled", true);
+        ReflectionTestUtils.setField(shared, "distributed", true);
+
+        shared.load();
+        shared.loanOpened(loan(5L, TODAY.minusDays(10)));
+        shared.verify(true);
+
+        assertFalse(shared.isReady());
+        assertEquals(0, shared.size());
+    }
+
+    @Test
+    void hooks_ShouldHoldNothing_WhenDisabled() {
+        OpenLoanDueDateIndex disabled = new OpenLoanDueDateIndex(borrowingRepository);
+
+        disabled.load();
+        disabled.loanOpened(loan(5L, TODAY.minusDays(10)));
+        OverdueIndexReportDto report = disabled.verify(true);
+
+        assertFalse(report.isRepaired());
+        assertEquals(0, disabled.size());
+        assertTrue(disabled.overdue(TODAY).isEmpty());
+    }
+
+    @Test
+    void verify_ShouldReportRenamedBooks_AndReloadThem() {
+        BorrowResponseDto renamed = loan(1L, TODAY.minusDays(3));
+        renamed.setBookTitle("Kitap 1, Second Edition");
+        when(borrowingRepository.findOpenResponsesAfterId(anyLong(), any())).thenReturn(List.of(
+                renamed,
+                loan(2L, TODAY),
+                loan(3L, TODAY.minusDays(1)),
+                loan(4L, TODAY.plusDays(5))
+        ));
+
+        OverdueIndexReportDto report = index.verify(true);
+
+        assertEquals(List.of(1L), report.getMismatched());
+        assertEquals("Kitap 1, Second Edition", index.overdue(TODAY).get(0).getBookTitle());
+    }
+
+    @Test
+    void overdue_ShouldReturnLoansDueBeforeToday_InIdOrder() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 3L), ids(index.overdue(TODAY)));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(index.overdue(TODAY.plusDays(6))));
+    }
+
+    @Test
+    void loanOpenedAndClosed_ShouldMaintainBuckets() {
+        index.loanOpened(loan(5L, TODAY.minusDays(10)));
+        index.loanClosed(1L);
+
+        assertEquals(List.of(3L, 5L), ids(index.overdue(TODAY)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void verify_ShouldReportDifferences_AndRepair() {
+        // Loan 3 was returned and loan 6 opened by another instance
+        index.loanOpened(loan(7L, TODAY.minusDays(2)));
+        when(borrowingRepository.findOpenResponsesAfterId(anyLong(), any())).thenReturn(List.of(
+                loan(1L, TODAY.minusDays(3)),
+                loan(2L, TODAY.plusDays(1)),
+                loan(4L, TODAY.plusDays(5)),
+                loan(6L, TODAY.minusDays(4))
+        ));
+
+        OverdueIndexReportDto report = index.verify(true);
+
+        assertFalse(report.isConsistent());
+        assertEquals(List.of(6L), report.getMissing());
+        assertEquals(List.of(2L), report.getMismatched());
+        assertEquals(List.of(3L, 7L), report.getUnexpected());
+        assertTrue(report.isRepaired());
+        assertEquals(List.of(1L, 6L), ids(index.overdue(TODAY)));
+        assertTrue(index.verify(false).isConsistent());
+    }
+
+    private static BorrowResponseDto loan(Long id, LocalDate dueDate) {
+        return BorrowResponseDto.builder().id(id).userFullName("Ali").bookTitle("Kitap " + id)
+                .borrowDate(dueDate.minusDays(7)).dueDate(dueDate).build();
+    }
+
+    private static List<Long> ids(List<BorrowResponseDto> loans) {
+        return loans.stream().map(BorrowResponseDto::getId).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.getir.library_management.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(2);
+        index.put(1L, new String[]{"Clean Code", "Programming"});
+        index.put(2L, new String[]{"Clean Architecture", null});
+        index.put(3L, new String[]{"Refactoring", "Programming"});
+    }
+
+    @Test
+    void match_ShouldFindCaseInsensitiveSubstrings() {
+        assertArrayEquals(new long[]{1L, 2L}, index.match(new String[]{"CLEAN", null}));
+        assertArrayEquals(new long[]{2L}, index.match(new String[]{"n arch", null}));
+        assertArrayEquals(new long[]{3L}, index.match(new String[]{"factor", "program"}));
+    }
+
+    @Test
+    void match_ShouldVerifyCandidates_WhenTrigramsAppearOutOfOrder() {
+        // "code" and "deco" share every trigram position only in the right order
+        index.put(4L, new String[]{"Codec Decoder", null});
+
+        assertArrayEquals(new long[]{1L, 4L}, index.match(new String[]{"code", null}));
+        assertArrayEquals(new long[]{4L}, index.match(new String[]{"c deco", null}));
+    }
+
+    @Test
+    void match_ShouldLowerCaseLikeTheDatabase() {
+        index.put(5L, new String[]{"Puslu Kıtalar Atlası", "İhsan Oktay Anar"});
+
+        assertArrayEquals(new long[]{5L}, index.match(new String[]{null, "ihsan"}));
+        assertArrayEquals(new long[]{5L}, index.match(new String[]{null, "İHSAN OKTAY"}));
+        assertArrayEquals(new long[]{5L}, index.match(new String[]{"kıtalar", null}));
+    }
+
+    @Test
+    void match_ShouldScanForTermsShorterThanATrigram() {
+        assertArrayEquals(new long[]{1L, 3L}, index.match(new String[]{"c", "pr"}));
+    }
+
+    @Test
+    void match_ShouldNeverMatchNullValues() {
+        // LOWER(NULL) LIKE '%%' is not true, so an empty term still excludes books without the field
+        assertArrayEquals(new long[]{1L, 3L}, index.match(new String[]{null, ""}));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.match(new String[]{"", null}));
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepPostingsUpToDate() {
+        index.put(1L, new String[]{"Dirty Code", "Programming"});
+        index.remove(3L);
+
+        assertArrayEquals(new long[]{2L}, index.match(new String[]{"clean", null}));
+        assertArrayEquals(new long[]{1L}, index.match(new String[]{null, "gram"}));
+        assertEquals(2, index.size());
+    }
+}
@@ -1,5 +1,6 @@
 package com.getir.library_management.repository;
 
+import com.getir.library_management.dto.book.BookAvailabilityDto;
 import com.getir.library_management.entity.Book;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,8 +44,35 @@ class BookRepositoryTest {
         bookRepository.save(Book.builder().title("Clean Code").author("Robert C. Martin").isbn("1234").genre("Software").build());
         bookRepository.save(Book.builder().title("Clean Architecture").author("Robert C. Martin").isbn("5678").genre("Software").build());
 
-        Page<Book> result = bookRepository.searchBooks("clean", null, null, null, PageRequest.of(0, 10));
+        Page<Book> result = bookRepository.searchBooks("clean", null, null, null, false, PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
     }
+
+    @Test
+    void shouldContinueAfterTitleAndId() {
+        Book first = bookRepository.save(Book.builder().title("Clean Code").author("Robert C. Martin").isbn("k-1").build());
+        Book second = bookRepository.save(Book.builder().title("Clean Code").author("Another Author").isbn("k-2").build());
+        Book third = bookRepository.save(Book.builder().title("Domain-Driven Design").author("Eric Evans").isbn("k-3").build());
+
+        List<Book> afterFirst = bookRepository.searchBooksAfterTitle(null, null, "k-", null, false,
+                first.getTitle(), first.getId(), 10);
+
+        assertEquals(List.of(second.getId(), third.getId()), afterFirst.stream().map(Book::getId).toList());
+
+        List<Book> afterSecondById = bookRepository.searchBooksAfterId(null, null, "k-", null, false,
+                second.getId(), 10);
+
+        assertEquals(List.of(third.getId()), afterSecondById.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void shouldFindUnavailableBooks() {
+        Book borrowed = bookRepository.save(Book.builder().title("Dune").author("Frank Herbert").isbn("u-1").genre("Fantasy").availability(false).build());
+        bookRepository.save(Book.builder().title("Emma").author("Jane Austen").isbn("u-2").availability(true).build());
+
+        List<BookAvailabilityDto> unavailable = bookRepository.findUnavailableBooks();
+
+        assertEquals(List.of(new BookAvailabilityDto(borrowed.getId(), "Dune", false, "Fantasy")), unavailable);
+    }
 }
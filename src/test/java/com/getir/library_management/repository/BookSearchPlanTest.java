@@ -0,0 +1,103 @@
+package com.getir.library_management.repository;
+
+import com.getir.library_management.entity.Book;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs EXPLAIN on the SQL that the search specifications actually generate
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.getir.library_management.repository.BookSearchPlanTest$CapturingInspector")
+@ActiveProfiles("test")
+class BookSearchPlanTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.save(Book.builder().title("Clean Code").author("Robert C. Martin").isbn("9780132350884").genre("Programming").build());
+        bookRepository.save(Book.builder().title("Refactoring").author("Martin Fowler").isbn("9780201485677").genre("Programming").build());
+        bookRepository.flush();
+    }
+
+    @Test
+    void fullIsbnSearch_ShouldUseIsbnIndex() {
+        String plan = explain(BookSpecifications.search(null, null, "9780132350884", null), "9780132350884");
+
+        assertIndexScan(plan);
+        assertEquals(1, bookRepository.searchBooks(null, null, "9780132350884", null, false, Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void partialIsbnSearch_ShouldUseIsbnIndex() {
+        String plan = explain(BookSpecifications.search(null, null, "978020", null), "978020%");
+
+        assertIndexScan(plan);
+        assertEquals(1, bookRepository.searchBooks(null, null, "978020", null, false, Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void titleKeyset_ShouldUseTitleIdIndex() {
+        CapturingInspector.STATEMENTS.clear();
+        bookRepository.searchBooksAfterTitle(null, null, null, null, false, "Clean Code", 1L, 11);
+        String sql = CapturingInspector.STATEMENTS.get(CapturingInspector.STATEMENTS.size() - 1);
+
+        String plan = String.join("\n", new JdbcTemplate(dataSource)
+                .queryForList("EXPLAIN " + sql, String.class, "Clean Code", "Clean Code", 1L, 11));
+
+        assertTrue(plan.contains("IDX_BOOKS_TITLE_ID"), plan);
+    }
+
+    @Test
+    void titleSearch_ShouldOnlyEmitTitlePredicate() {
+        String sql = capture(BookSpecifications.search("clean", null, null, null));
+
+        assertTrue(sql.contains("lower(b1_0.title) like"));
+        assertFalse(sql.contains("author like") || sql.contains("isbn like") || sql.contains("genre like"));
+        assertFalse(sql.contains("is null"));
+    }
+
+    private String explain(Specification<Book> specification, Object... parameters) {
+        String sql = capture(specification);
+        List<String> rows = new JdbcTemplate(dataSource).queryForList("EXPLAIN " + sql, String.class, parameters);
+        return String.join("\n", rows);
+    }
+
+    private String capture(Specification<Book> specification) {
+        CapturingInspector.STATEMENTS.clear();
+        bookRepository.findAll(specification);
+        return CapturingInspector.STATEMENTS.get(CapturingInspector.STATEMENTS.size() - 1);
+    }
+
+    private static void assertIndexScan(String plan) {
+        assertTrue(plan.contains("CONSTRAINT_INDEX") || plan.contains("IDX_"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    // Records every SQL statement Hibernate prepares
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
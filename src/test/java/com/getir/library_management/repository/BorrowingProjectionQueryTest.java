@@ -0,0 +1,98 @@
+package com.getir.library_management.repository;
+
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Counts the SQL statements behind the borrowing listings; it must not grow with the number of rows
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class BorrowingProjectionQueryTest {
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        reader = userRepository.save(User.builder().fullName("Ali").email("ali@test.com").password("123").build());
+    }
+
+    @Test
+    void listings_ShouldUseOneStatement_RegardlessOfRowCount() {
+        addOverdueBorrowings(1);
+        long few = countStatements(() -> borrowingRepository.findAllResponses());
+        assertEquals(1, few);
+
+        addOverdueBorrowings(30);
+        assertEquals(few, countStatements(() -> borrowingRepository.findAllResponses()));
+        assertEquals(few, countStatements(() -> borrowingRepository.findResponsesByUserId(reader.getId())));
+        assertEquals(few, countStatements(() -> borrowingRepository.findOverdueResponses(LocalDate.now())));
+    }
+
+    @Test
+    void findOverdueResponses_ShouldJoinUserAndBook() {
+        addOverdueBorrowings(2);
+
+        List<BorrowResponseDto> rows = borrowingRepository.findOverdueResponses(LocalDate.now());
+
+        assertEquals(2, rows.size());
+        assertEquals("Ali", rows.get(0).getUserFullName());
+        assertEquals("Kitap 0", rows.get(0).getBookTitle());
+        assertNull(rows.get(0).getReturnDate());
+    }
+
+    private void addOverdueBorrowings(int count) {
+        long existing = bookRepository.count();
+        for (int i = 0; i < count; i++) {
+            long n = existing + i;
+            Book book = bookRepository.save(Book.builder().title("Kitap " + n).author("Yazar").isbn("isbn-" + n).build());
+            borrowingRepository.save(Borrowing.builder()
+                    .user(reader)
+                    .book(book)
+                    .borrowDate(LocalDate.now().minusDays(10))
+                    .dueDate(LocalDate.now().minusDays(3))
+                    .build());
+        }
+        // Start from an empty persistence context, so cached entities cannot hide lazy loads
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long countStatements(Supplier<List<BorrowResponseDto>> query) {
+        statistics.clear();
+        query.get().forEach(row -> assertNotNull(row.getUserFullName()));
+        return statistics.getPrepareStatementCount();
+    }
+}
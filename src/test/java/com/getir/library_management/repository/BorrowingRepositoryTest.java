@@ -1,11 +1,13 @@
 package com.getir.library_management.repository;
 
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
 import com.getir.library_management.entity.Book;
 import com.getir.library_management.entity.Borrowing;
 import com.getir.library_management.entity.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -81,4 +83,36 @@ class BorrowingRepositoryTest {
         assertNotNull(result);
         assertEquals(book.getId(), result.getBook().getId());
     }
+
+    @Test
+    void shouldContinueUserHistoryBeforeBorrowDateAndId() {
+        User user = userRepository.save(User.builder().fullName("Ayse").email("ayse@test.com").password("123").build());
+        User other = userRepository.save(User.builder().fullName("Can").email("can@test.com").password("123").build());
+        LocalDate today = LocalDate.now();
+        Borrowing oldest = borrow(user, "Eski", "111", today.minusDays(3));
+        Borrowing sameDayFirst = borrow(user, "Orta 1", "222", today.minusDays(1));
+        Borrowing sameDaySecond = borrow(user, "Orta 2", "333", today.minusDays(1));
+        borrow(other, "Baska", "444", today.minusDays(2));
+
+        List<BorrowResponseDto> first = borrowingRepository.findHistoryByUser(user.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of(sameDaySecond.getId(), sameDayFirst.getId()), first.stream().map(BorrowResponseDto::getId).toList());
+
+        BorrowResponseDto last = first.get(1);
+        List<BorrowResponseDto> next = borrowingRepository.findHistoryByUserBefore(
+                user.getId(), last.getBorrowDate(), last.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of(oldest.getId()), next.stream().map(BorrowResponseDto::getId).toList());
+
+        assertEquals(4, borrowingRepository.findHistory(PageRequest.of(0, 10)).size());
+        assertEquals(2, borrowingRepository.findHistoryBefore(today.minusDays(1), sameDayFirst.getId(), PageRequest.of(0, 10)).size());
+    }
+
+    private Borrowing borrow(User user, String title, String isbn, LocalDate borrowDate) {
+        Book book = bookRepository.save(Book.builder().title(title).author("Yazar").isbn(isbn).build());
+        return borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(borrowDate)
+                .dueDate(borrowDate.plusDays(7))
+                .build());
+    }
 }
@@ -120,6 +120,32 @@ class AuthServiceImplTest {
         assertEquals("jwt-token", response.getToken());
     }
 
+    @Test
+    void login_ShouldRehashPassword_WhenWorkFactorIsOutdated() {
+        // Arrange
+        LoginRequestDto request = new LoginRequestDto();
+        request.setEmail("john.doe@getir.com");
+        request.setPassword("Secure@123");
+
+        User user = User.builder()
+                .email("john.doe@getir.com")
+                .password("oldCostHash")
+                .build();
+
+        when(userRepository.findByEmail(request.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(request.getPassword(), "oldCostHash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("oldCostHash")).thenReturn(true);
+        when(passwordEncoder.encode(request.getPassword())).thenReturn("currentCostHash");
+        when(jwtService.generateToken(user)).thenReturn("jwt-token");
+
+        // Act
+        authService.login(request);
+
+        // Assert
+        assertEquals("currentCostHash", user.getPassword());
+        verify(userRepository).save(user);
+    }
+
     @Test
     void login_ShouldThrowException_WhenUserNotFound() {
         // Arrange
@@ -0,0 +1,127 @@
+package com.getir.library_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.service.impl.AvailabilityEventBus;
+import com.getir.library_management.service.impl.AvailabilityEventBus.AvailabilityFrame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AvailabilityEventBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<AvailabilityEventBus> buses = new ArrayList<>();
+
+    private StringRedisTemplate redisTemplate;
+    private AvailabilityEventBus sender;
+    private AvailabilityEventBus receiver;
+    private SimpleMeterRegistry registry;
+    private final List<BookAvailabilityDto> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        sender = bus();
+        receiver = bus();
+        registry = new SimpleMeterRegistry();
+        receiver.bindTo(registry);
+        receiver.subscribe(received::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(AvailabilityEventBus::stop);
+    }
+
+    @Test
+    void publish_ShouldSendUpdatesInNumberedFrames() throws Exception {
+        for (long book = 1; book <= 5; book++) {
+            sender.publish(update(book));
+        }
+        sender.start();
+
+        List<AvailabilityFrame> frames = sentFrames(2);
+        assertEquals(1, frames.get(0).firstSequence());
+        assertEquals(List.of(update(1L), update(2L), update(3L)), frames.get(0).updates());
+        assertEquals(4, frames.get(1).firstSequence());
+        assertEquals(List.of(update(4L), update(5L)), frames.get(1).updates());
+        assertEquals(frames.get(0).origin(), frames.get(1).origin());
+    }
+
+    @Test
+    void onMessage_ShouldDeliverEachUpdateOnce_AndIgnoreOwnFrames() throws Exception {
+        sender.publish(update(1L));
+        sender.publish(update(2L));
+        sender.publish(update(3L));
+        sender.start();
+        String frame = objectMapper.writeValueAsString(sentFrames(1).get(0));
+        String origin = sentFrames(1).get(0).origin();
+
+        receiver.onMessage(frame);
+        receiver.onMessage(frame);
+        // Overlaps the first frame by one update
+        receiver.onMessage(objectMapper.writeValueAsString(
+                new AvailabilityFrame(origin, 3, List.of(update(3L), update(4L)))));
+        sender.onMessage(frame);
+
+        assertEquals(List.of(update(1L), update(2L), update(3L), update(4L)), received);
+        assertEquals(4, registry.get("availability.bus.events.received").functionCounter().count());
+        assertEquals(4, registry.get("availability.bus.events.duplicate").functionCounter().count());
+    }
+
+    @Test
+    void onMessage_ShouldCountUpdatesLostBetweenFrames() throws Exception {
+        receiver.onMessage(objectMapper.writeValueAsString(new AvailabilityFrame("other", 1, List.of(update(1L)))));
+        receiver.onMessage(objectMapper.writeValueAsString(new AvailabilityFrame("other", 5, List.of(update(5L)))));
+        receiver.onMessage("not a frame");
+
+        assertEquals(List.of(update(1L), update(5L)), received);
+        assertEquals(3, registry.get("availability.bus.events.missed").functionCounter().count());
+    }
+
+    @Test
+    void publish_ShouldDoNothing_WhenDistributedModeIsOff() {
+        AvailabilityEventBus local = new AvailabilityEventBus(redisTemplate, objectMapper, false, "availability",
+                3, Duration.ofMillis(20), 16);
+        local.start();
+
+        local.publish(update(1L));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private AvailabilityEventBus bus() {
+        AvailabilityEventBus bus = new AvailabilityEventBus(redisTemplate, objectMapper, true, "availability",
+                3, Duration.ofMillis(20), 16);
+        buses.add(bus);
+        return bus;
+    }
+
+    // Waits for the sender's frames and decodes them
+    private List<AvailabilityFrame> sentFrames(int count) throws Exception {
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, timeout(5_000).times(count)).convertAndSend(eq("availability"), messages.capture());
+        List<AvailabilityFrame> frames = new ArrayList<>();
+        for (String message : messages.getAllValues()) {
+            frames.add(objectMapper.readValue(message, AvailabilityFrame.class));
+        }
+        return frames;
+    }
+
+    private static BookAvailabilityDto update(Long bookId) {
+        return new BookAvailabilityDto(bookId, "Book " + bookId, false, "Fantasy");
+    }
+}
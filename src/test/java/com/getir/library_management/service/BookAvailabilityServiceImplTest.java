@@ -0,0 +1,344 @@
+package com.getir.library_management.service;
+
+import com.getir.library_management.dto.book.AvailabilityBitmapFrameDto;
+import com.getir.library_management.dto.book.AvailabilityFilterDto;
+import com.getir.library_management.dto.book.AvailabilitySnapshotDto;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
+import com.getir.library_management.exception.custom.InvalidSubscriptionFilterException;
+import com.getir.library_management.index.AvailabilityBitmap;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.service.impl.AvailabilityEventBus;
+import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookAvailabilityServiceImplTest {
+
+    private AvailabilityEventBus eventBus;
+    private BookRepository bookRepository;
+    private AvailabilityBitmap availabilityBitmap;
+    private BookAvailabilityServiceImpl service;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = mock(AvailabilityEventBus.class);
+        bookRepository = mock(BookRepository.class);
+        availabilityBitmap = mock(AvailabilityBitmap.class);
+        service = new BookAvailabilityServiceImpl(eventBus, bookRepository, availabilityBitmap, 3, 4, 8);
+        registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+    }
+
+    @Test
+    void publish_ShouldDeliverEveryUpdate_ToSubscriberWithDemand() throws InterruptedException {
+        Client client = subscribe(Long.MAX_VALUE);
+
+        // Each update is delivered before the next one, so none of them is conflated
+        List<BookAvailabilityDto> updates = List.of(update(1L, false), update(2L, false), update(1L, true));
+        for (int i = 0; i < updates.size(); i++) {
+            service.publishAvailabilityUpdate(updates.get(i));
+            int delivered = i + 1;
+            await(() -> client.received.size() == delivered);
+        }
+
+        assertEquals(List.of(update(1L, false), update(2L, false), update(1L, true)), client.received);
+    }
+
+    @Test
+    void publish_ShouldKeepOnlyLatestStatePerBook_ForLaggingSubscriber() throws InterruptedException {
+        Client lagging = subscribe(0);
+
+        service.publishAvailabilityUpdate(update(1L, false));
+        service.publishAvailabilityUpdate(update(2L, false));
+        service.publishAvailabilityUpdate(update(1L, true));
+        service.publishAvailabilityUpdate(update(1L, false));
+        assertEquals(2, registry.get("availability.stream.queue.depth").gauge().value());
+        assertEquals(2, registry.get("availability.stream.events.conflated").functionCounter().count());
+
+        lagging.request(10);
+
+        // The newer state of book 1 moved behind book 2, keeping event ids in order
+        await(() -> lagging.received.size() == 2);
+        assertEquals(List.of(update(2L, false), update(1L, false)), lagging.received);
+        assertEquals(List.of(2L, 4L), lagging.sequences());
+        assertEquals(0, registry.get("availability.stream.queue.depth").gauge().value());
+    }
+
+    @Test
+    void publish_ShouldDisconnectHopelesslyLaggingSubscriber_WithoutHoldingBackOthers() throws InterruptedException {
+        Client stuck = subscribe(0);
+        Client live = subscribe(Long.MAX_VALUE);
+
+        for (long book = 1; book <= 4; book++) {
+            service.publishAvailabilityUpdate(update(book, false));
+        }
+
+        await(() -> stuck.completed);
+        await(() -> live.received.size() == 4);
+        assertTrue(stuck.received.isEmpty());
+        assertFalse(live.completed);
+        assertEquals(4, registry.get("availability.stream.events.dropped").functionCounter().count());
+        assertEquals(1, registry.get("availability.stream.subscribers.disconnected").functionCounter().count());
+        assertEquals(1, registry.get("availability.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void publish_ShouldRouteUpdatesOnlyToMatchingSubscribers_OnceEach() throws InterruptedException {
+        Client everything = subscribe(Long.MAX_VALUE);
+        Client byBook = subscribe(new AvailabilityFilterDto(Set.of(1L), null));
+        Client byGenre = subscribe(new AvailabilityFilterDto(null, Set.of(" FANTASY ")));
+        Client both = subscribe(new AvailabilityFilterDto(Set.of(1L), Set.of("fantasy")));
+
+        service.publishAvailabilityUpdate(update(1L, false, "Fantasy"));
+        await(() -> both.received.size() == 1 && byGenre.received.size() == 1);
+        service.publishAvailabilityUpdate(update(2L, false, "Fantasy"));
+        await(() -> both.received.size() == 2 && byGenre.received.size() == 2);
+        service.publishAvailabilityUpdate(update(3L, false, "History"));
+        await(() -> everything.received.size() == 3);
+
+        assertEquals(List.of(1L), bookIds(byBook));
+        assertEquals(List.of(1L, 2L), bookIds(byGenre));
+        assertEquals(List.of(1L, 2L), bookIds(both));
+        assertEquals(List.of(1L, 2L, 3L), bookIds(everything));
+        assertEquals(3, registry.get("availability.stream.events.published").functionCounter().count());
+        assertEquals(8, registry.get("availability.stream.events.routed").functionCounter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesOfOtherInstances_ShouldReachLocalSubscribers_AndLocalUpdatesShouldBeSentToThem() throws InterruptedException {
+        ArgumentCaptor<Consumer<BookAvailabilityDto>> remote = ArgumentCaptor.forClass(Consumer.class);
+        verify(eventBus).subscribe(remote.capture());
+        Client byBook = subscribe(new AvailabilityFilterDto(Set.of(7L), null));
+
+        remote.getValue().accept(update(7L, false, "Fantasy"));
+        remote.getValue().accept(update(8L, false, "Fantasy"));
+        await(() -> byBook.received.size() == 1);
+        service.publishAvailabilityUpdate(update(7L, true, "Fantasy"));
+
+        await(() -> byBook.received.size() == 2);
+        assertEquals(List.of(update(7L, false, "Fantasy"), update(7L, true, "Fantasy")), byBook.received);
+        verify(eventBus).publish(update(7L, true, "Fantasy"));
+    }
+
+    @Test
+    void cancel_ShouldRemoveSubscriberFromRouting() throws InterruptedException {
+        Client byBook = subscribe(new AvailabilityFilterDto(Set.of(1L), Set.of("fantasy")));
+        Client other = subscribe(new AvailabilityFilterDto(Set.of(1L), null));
+
+        byBook.cancel();
+        service.publishAvailabilityUpdate(update(1L, false, "Fantasy"));
+
+        await(() -> other.received.size() == 1);
+        assertTrue(byBook.received.isEmpty());
+        assertEquals(1, registry.get("availability.stream.subscribers").gauge().value());
+        assertEquals(1, registry.get("availability.stream.events.routed").functionCounter().count());
+    }
+
+    @Test
+    void subscribe_ShouldRejectFilterAboveLimit() {
+        AvailabilityFilterDto filter = new AvailabilityFilterDto(Set.of(1L, 2L, 3L), Set.of("fantasy", "history"));
+
+        assertThrows(InvalidSubscriptionFilterException.class, () -> service.getAvailabilityStream(filter));
+    }
+
+    @Test
+    void reconnect_ShouldReplayOnlyMissedEvents_LatestStatePerBook() throws InterruptedException {
+        Client first = subscribe(Long.MAX_VALUE);
+        service.publishAvailabilityUpdate(update(1L, false));
+        await(() -> first.received.size() == 1);
+        String lastEventId = first.events.get(0).id();
+        first.cancel();
+
+        service.publishAvailabilityUpdate(update(2L, false));
+        service.publishAvailabilityUpdate(update(3L, false));
+        service.publishAvailabilityUpdate(update(2L, true));
+        Client resumed = subscribe(AvailabilityFilterDto.ALL, lastEventId);
+        service.publishAvailabilityUpdate(update(1L, true));
+
+        await(() -> resumed.received.size() == 3);
+        assertEquals(List.of(update(3L, false), update(2L, true), update(1L, true)), resumed.received);
+        assertEquals(List.of(3L, 4L, 5L), resumed.sequences());
+        assertEquals(1, registry.get("availability.stream.reconnects.replayed").functionCounter().count());
+        assertEquals(2, registry.get("availability.stream.events.replayed").functionCounter().count());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void reconnect_ShouldOnlyReplayEventsMatchingFilter() throws InterruptedException {
+        Client first = subscribe(Long.MAX_VALUE);
+        service.publishAvailabilityUpdate(update(1L, false, "Fantasy"));
+        await(() -> first.received.size() == 1);
+        first.cancel();
+
+        service.publishAvailabilityUpdate(update(2L, false, "History"));
+        service.publishAvailabilityUpdate(update(3L, false, "Fantasy"));
+        Client resumed = subscribe(new AvailabilityFilterDto(null, Set.of("fantasy")), first.events.get(0).id());
+
+        await(() -> resumed.received.size() == 1);
+        assertEquals(List.of(update(3L, false, "Fantasy")), resumed.received);
+    }
+
+    @Test
+    void reconnect_ShouldSendSnapshot_WhenMissedEventsAreNoLongerBuffered() throws InterruptedException {
+        when(bookRepository.findUnavailableBooks()).thenReturn(List.of(
+                update(9L, false, "Fantasy"), update(4L, false, "History"), update(2L, false, "Fantasy")));
+        Client first = subscribe(Long.MAX_VALUE);
+        service.publishAvailabilityUpdate(update(1L, false));
+        await(() -> first.received.size() == 1);
+        first.cancel();
+        // Pushes the first missed event out of the replay buffer of 8 events
+        for (int i = 0; i < 9; i++) {
+            service.publishAvailabilityUpdate(update(2L, i % 2 == 0));
+        }
+
+        Client resumed = subscribe(new AvailabilityFilterDto(Set.of(4L), Set.of("fantasy")), first.events.get(0).id());
+        service.publishAvailabilityUpdate(update(4L, true, "History"));
+
+        await(() -> resumed.events.size() == 2);
+        ServerSentEvent<?> snapshot = resumed.events.get(0);
+        assertEquals(BookAvailabilityServiceImpl.SNAPSHOT_EVENT, snapshot.event());
+        assertEquals(new AvailabilitySnapshotDto(List.of(2L, 4L, 9L)), snapshot.data());
+        assertEquals(List.of(update(4L, true, "History")), resumed.received);
+        assertEquals(List.of(10L, 11L), resumed.sequences());
+        assertEquals(1, registry.get("availability.stream.reconnects.snapshot").functionCounter().count());
+    }
+
+    @Test
+    void reconnect_ShouldSendSnapshot_ForEventIdOfAnotherInstance() throws InterruptedException {
+        when(bookRepository.findUnavailableBooks()).thenReturn(List.of());
+        service.publishAvailabilityUpdate(update(1L, false));
+
+        Client resumed = subscribe(AvailabilityFilterDto.ALL, "otherinstance-1");
+
+        await(() -> resumed.events.size() == 1);
+        assertEquals(new AvailabilitySnapshotDto(List.of()), resumed.events.get(0).data());
+        assertEquals(List.of(1L), resumed.sequences());
+    }
+
+    @Test
+    void subscribe_ShouldStartWithBitmapFrame_WhenInitialSnapshotIsRequested() throws InterruptedException {
+        byte[] deflated = {1, 2, 3};
+        when(availabilityBitmap.snapshot()).thenReturn(
+                new AvailabilityBitmap.Snapshot(1, new byte[]{6}, deflated, 42L, 2));
+        service.publishAvailabilityUpdate(update(1L, false));
+
+        Client client = new Client(Long.MAX_VALUE);
+        service.getAvailabilityEvents(AvailabilityFilterDto.ALL, null, true).subscribe(client);
+        service.publishAvailabilityUpdate(update(2L, true));
+
+        await(() -> client.events.size() == 2);
+        ServerSentEvent<?> frame = client.events.get(0);
+        assertEquals(BookAvailabilityServiceImpl.BITMAP_EVENT, frame.event());
+        assertEquals(new AvailabilityBitmapFrameDto(AvailabilityBitmapFrameDto.DEFLATE_BASE64,
+                Base64.getEncoder().encodeToString(deflated), 2), frame.data());
+        assertEquals(List.of(1L, 2L), client.sequences());
+        assertEquals(List.of(update(2L, true)), client.received);
+        assertEquals(1, registry.get("availability.stream.snapshots.initial").functionCounter().count());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliver_ShouldUpdateBitmap_ForLocalAndRemoteUpdates() {
+        ArgumentCaptor<Consumer<BookAvailabilityDto>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(eventBus).subscribe(listener.capture());
+
+        service.publishAvailabilityUpdate(update(1L, false));
+        listener.getValue().accept(update(2L, true));
+
+        verify(availabilityBitmap).update(1L, false);
+        verify(availabilityBitmap).update(2L, true);
+    }
+
+    private Client subscribe(long initialDemand) {
+        Client client = new Client(initialDemand);
+        service.getAvailabilityEvents(AvailabilityFilterDto.ALL, null, false).subscribe(client);
+        return client;
+    }
+
+    private Client subscribe(AvailabilityFilterDto filter) {
+        return subscribe(filter, null);
+    }
+
+    private Client subscribe(AvailabilityFilterDto filter, String lastEventId) {
+        Client client = new Client(Long.MAX_VALUE);
+        service.getAvailabilityEvents(filter, lastEventId, false).subscribe(client);
+        return client;
+    }
+
+    private static List<Long> bookIds(Client client) {
+        return client.received.stream().map(BookAvailabilityDto::bookId).toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+
+    private static BookAvailabilityDto update(Long bookId, boolean available) {
+        return new BookAvailabilityDto(bookId, "Book " + bookId, available);
+    }
+
+    private static BookAvailabilityDto update(Long bookId, boolean available, String genre) {
+        return new BookAvailabilityDto(bookId, "Book " + bookId, available, genre);
+    }
+
+    // Subscriber that only requests what the test asks for, like a client that stopped reading
+    private static final class Client extends BaseSubscriber<ServerSentEvent<?>> {
+        private final long initialDemand;
+        private final List<ServerSentEvent<?>> events = new CopyOnWriteArrayList<>();
+        private final List<BookAvailabilityDto> received = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        private Client(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialDemand > 0) {
+                request(initialDemand);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<?> value) {
+            events.add(value);
+            if (value.data() instanceof BookAvailabilityDto update) {
+                received.add(update);
+            }
+        }
+
+        // Sequence part of the received event ids
+        private List<Long> sequences() {
+            return events.stream()
+                    .map(event -> Long.parseLong(event.id().substring(event.id().lastIndexOf('-') + 1)))
+                    .toList();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 
 package com.getir.library_management.service;
 
+import com.getir.library_management.cache.SearchCacheGenerations;
+import com.getir.library_management.dto.book.AvailabilityBitmapDto;
+import com.getir.library_management.dto.book.BookAvailabilityDto;
 import com.getir.library_management.dto.book.BookResponseDto;
 import com.getir.library_management.dto.book.CreateBookRequestDto;
 import com.getir.library_management.dto.book.UpdateBookRequestDto;
 import com.getir.library_management.entity.Book;
+import com.getir.library_management.exception.custom.AvailabilityNotReadyException;
 import com.getir.library_management.exception.custom.BookAlreadyExistsException;
 import com.getir.library_management.exception.custom.BookNotFoundException;
+import com.getir.library_management.index.AvailabilityBitmap;
+import com.getir.library_management.index.BookSearchIndex;
+import com.getir.library_management.index.CoBorrowingIndex;
 import com.getir.library_management.logging.audit.AuditLogService;
 import com.getir.library_management.logging.audit.CurrentUserService;
 import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
 import com.getir.library_management.service.impl.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +32,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -38,6 +49,16 @@ class BookServiceImplTest {
     private CurrentUserService currentUserService;
     @Mock
     private AuditLogService auditLogService;
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    @Mock
+    private SearchCacheGenerations searchCacheGenerations;
+    @Mock
+    private CoBorrowingIndex coBorrowingIndex;
+    @Mock
+    private AvailabilityBitmap availabilityBitmap;
+    @Mock
+    private BookAvailabilityServiceImpl bookAvailabilityService;
 
     @InjectMocks
     private BookServiceImpl bookService;
@@ -51,7 +72,7 @@ class BookServiceImplTest {
     void addBook_ShouldAddSuccessfully() {
         CreateBookRequestDto request = new CreateBookRequestDto("Title", "Author", "123456", "Genre", "2022", true);
         Book book = Book.builder().title("Title").author("Author").isbn("123456").build();
-        Book savedBook = Book.builder().id(1L).title("Title").author("Author").isbn("123456").build();
+        Book savedBook = Book.builder().id(1L).title("Title").author("Author").isbn("123456").availability(true).build();
         BookResponseDto responseDto = new BookResponseDto(1L, "Title", "Author", "123456", "Genre", "2022", true);
 
         when(bookRepository.existsByIsbn("123456")).thenReturn(false);
@@ -61,6 +82,9 @@ class BookServiceImplTest {
 
         BookResponseDto result = bookService.addBook(request);
         assertEquals("123456", result.getIsbn());
+        verify(bookSearchIndex).index(savedBook);
+        verify(searchCacheGenerations).touch(savedBook);
+        verify(bookAvailabilityService).publishAvailabilityUpdate(new BookAvailabilityDto(1L, "Title", true, null));
     }
 
     @Test
@@ -92,6 +116,27 @@ class BookServiceImplTest {
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
         bookService.deleteBook(1L);
         verify(bookRepository).delete(book);
+        verify(bookSearchIndex).remove(1L);
+        verify(searchCacheGenerations).touch(book);
+        verify(bookAvailabilityService).publishAvailabilityUpdate(new BookAvailabilityDto(1L, null, false, null));
+    }
+
+    @Test
+    void getAvailabilityBitmap_ShouldReturnSnapshot_WhenReady() {
+        byte[] bitmap = {0b0000_0110};
+        when(availabilityBitmap.snapshot()).thenReturn(new AvailabilityBitmap.Snapshot(3, bitmap, new byte[]{1}, 42L, 2));
+
+        AvailabilityBitmapDto result = bookService.getAvailabilityBitmap();
+
+        assertArrayEquals(bitmap, result.bitmap());
+        assertEquals(42L, result.checksum());
+        assertEquals(2, result.availableCount());
+    }
+
+    @Test
+    void getAvailabilityBitmap_ShouldThrow_WhenNotReady() {
+        when(availabilityBitmap.snapshot()).thenReturn(null);
+        assertThrows(AvailabilityNotReadyException.class, () -> bookService.getAvailabilityBitmap());
     }
 
     @Test
@@ -144,10 +189,26 @@ class BookServiceImplTest {
         Page<Book> page = new PageImpl<>(List.of(book));
         PageRequest pageable = PageRequest.of(0, 10);
 
-        when(bookRepository.searchBooks(null, null, null, null, pageable)).thenReturn(page);
+        when(bookRepository.searchBooks(null, null, null, null, false, pageable)).thenReturn(page);
         when(modelMapper.map(book, BookResponseDto.class)).thenReturn(dto);
 
-        Page<BookResponseDto> result = bookService.searchBooks(null, null, null, null, pageable);
+        Page<BookResponseDto> result = bookService.searchBooks(null, null, null, null, false, pageable);
         assertEquals(1, result.getTotalElements());
     }
+
+    @Test
+    void searchBooks_ShouldUseIndex_WhenItCanAnswer() {
+        Book book = Book.builder().id(1L).title("Clean Code").build();
+        BookResponseDto dto = new BookResponseDto(1L, "Clean Code", "a", "123", "", "", true);
+        PageRequest pageable = PageRequest.of(0, 10);
+
+        when(bookSearchIndex.search("clean", null, null, null, true, pageable))
+                .thenReturn(Optional.of(new PageImpl<>(List.of(book), pageable, 1)));
+        when(modelMapper.map(book, BookResponseDto.class)).thenReturn(dto);
+
+        Page<BookResponseDto> result = bookService.searchBooks("clean", null, null, null, true, pageable);
+
+        assertEquals("Clean Code", result.getContent().get(0).getTitle());
+        verify(bookRepository, never()).searchBooks(any(), any(), any(), any(), anyBoolean(), any());
+    }
 }
@@ -0,0 +1,128 @@
+package com.getir.library_management.service;
+
+import com.getir.library_management.dto.borrow.BorrowRequestDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.Borrowing;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.exception.custom.BookUnavailableException;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.service.interfaces.BorrowingService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Races many threads on a single hot book against the real database and transaction manager
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+class BorrowingConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private List<Long> userIds;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        userIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            userIds.add(userRepository.save(User.builder()
+                    .fullName("Reader " + i)
+                    .email(UUID.randomUUID() + "@getir.com")
+                    .password("secret")
+                    .build()).getId());
+        }
+        bookId = bookRepository.save(Book.builder()
+                .title("Hot Book")
+                .author("Popular Author")
+                .isbn(UUID.randomUUID().toString())
+                .availability(true)
+                .build()).getId();
+    }
+
+    @Test
+    void concurrentBorrows_ShouldLetExactlyOneSucceed() throws Exception {
+        AtomicInteger unavailable = new AtomicInteger();
+        List<BorrowResponseDto> succeeded = ConcurrentRace.run(THREADS, index -> {
+            try {
+                return borrowingService.borrowBook(request(userIds.get(index)));
+            } catch (BookUnavailableException e) {
+                unavailable.incrementAndGet();
+                return null;
+            }
+        });
+
+        assertEquals(1, succeeded.size());
+        assertEquals(THREADS - 1, unavailable.get());
+        assertEquals(1, borrowingRepository.findByBookId(bookId).size());
+        assertFalse(bookRepository.findById(bookId).orElseThrow().isAvailability());
+    }
+
+    @Test
+    void borrowReturnCycles_ShouldNeverOverlapOnHotBook() throws Exception {
+        int attemptsPerThread = 50;
+        AtomicInteger borrows = new AtomicInteger();
+
+        long started = System.nanoTime();
+        ConcurrentRace.run(THREADS, index -> {
+            for (int i = 0; i < attemptsPerThread; i++) {
+                try {
+                    BorrowResponseDto borrowed = borrowingService.borrowBook(request(userIds.get(index)));
+                    borrows.incrementAndGet();
+                    borrowingService.returnBook(borrowed.getId());
+                } catch (BookUnavailableException e) {
+                    Thread.onSpinWait();
+                }
+            }
+            return null;
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        List<Borrowing> borrowings = borrowingRepository.findByBookId(bookId);
+        log.info("Hot book: {} borrows out of {} attempts in {} s ({} borrows/s, {} threads)",
+                borrows.get(), THREADS * attemptsPerThread, String.format("%.2f", seconds),
+                Math.round(borrows.get() / seconds), THREADS);
+
+        // Every successful borrow left exactly one row, and all of them were closed again
+        assertTrue(borrows.get() > 0);
+        assertEquals(borrows.get(), borrowings.size());
+        assertTrue(borrowings.stream().allMatch(b -> b.getReturnDate() != null));
+        assertTrue(bookRepository.findById(bookId).orElseThrow().isAvailability());
+    }
+
+    private BorrowRequestDto request(Long userId) {
+        BorrowRequestDto request = new BorrowRequestDto();
+        request.setUserId(userId);
+        request.setBookId(bookId);
+        return request;
+    }
+}
@@ -1,5 +1,6 @@
 package com.getir.library_management.service;
 
+import com.getir.library_management.cache.SearchCacheGenerations;
 import com.getir.library_management.dto.borrow.BorrowRequestDto;
 import com.getir.library_management.dto.borrow.BorrowResponseDto;
 import com.getir.library_management.entity.Book;
@@ -12,10 +13,14 @@ import com.getir.library_management.exception.custom.UserNotFoundException;
 import com.getir.library_management.logging.audit.AuditLogService;
 import com.getir.library_management.logging.audit.CurrentUserService;
 import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.index.CirculationSnapshot;
+import com.getir.library_management.index.CoBorrowingIndex;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
 import com.getir.library_management.repository.BorrowingRepository;
 import com.getir.library_management.repository.UserRepository;
 import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
 import com.getir.library_management.service.impl.BorrowingServiceImpl;
+import com.getir.library_management.service.interfaces.ReportJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -43,6 +48,16 @@ class BorrowingServiceImplTest {
     private AuditLogService auditLogService;
     @Mock
     private CurrentUserService currentUserService;
+    @Mock
+    private SearchCacheGenerations searchCacheGenerations;
+    @Mock
+    private OpenLoanDueDateIndex openLoanDueDateIndex;
+    @Mock
+    private ReportJobService reportJobService;
+    @Mock
+    private CirculationSnapshot circulationSnapshot;
+    @Mock
+    private CoBorrowingIndex coBorrowingIndex;
 
     @InjectMocks
     private BorrowingServiceImpl borrowingService;
@@ -64,13 +79,14 @@ class BorrowingServiceImplTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
-        when(bookRepository.save(any())).thenReturn(book);
+        when(bookRepository.markBorrowed(2L)).thenReturn(1);
         when(borrowingRepository.save(any())).thenReturn(saved);
 
         BorrowResponseDto response = borrowingService.borrowBook(request);
 
         assertEquals("Kitap", response.getBookTitle());
         assertEquals("Ali", response.getUserFullName());
+        verify(bookRepository, never()).save(any());
     }
 
     @Test
@@ -106,8 +122,10 @@ class BorrowingServiceImplTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+        when(bookRepository.markBorrowed(any())).thenReturn(0);
 
         assertThrows(BookUnavailableException.class, () -> borrowingService.borrowBook(request));
+        verify(borrowingRepository, never()).save(any());
     }
 
     @Test
@@ -117,13 +135,24 @@ class BorrowingServiceImplTest {
         Borrowing borrowing = Borrowing.builder().id(1L).user(user).book(book).borrowDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7)).build();
 
         when(borrowingRepository.findById(1L)).thenReturn(Optional.of(borrowing));
-        when(bookRepository.save(any())).thenReturn(book);
-        when(borrowingRepository.save(any())).thenReturn(borrowing);
+        when(borrowingRepository.markReturned(eq(1L), any())).thenReturn(1);
 
         BorrowResponseDto response = borrowingService.returnBook(1L);
 
         assertEquals("Kitap", response.getBookTitle());
         assertNotNull(response.getReturnDate());
+        verify(bookRepository).markReturned(any());
+    }
+
+    @Test
+    void returnBook_ShouldThrow_WhenAlreadyReturned() {
+        Borrowing borrowing = Borrowing.builder().id(1L).book(Book.builder().id(2L).build()).returnDate(LocalDate.now()).build();
+
+        when(borrowingRepository.findById(1L)).thenReturn(Optional.of(borrowing));
+        when(borrowingRepository.markReturned(eq(1L), any())).thenReturn(0);
+
+        assertThrows(BorrowingNotFoundException.class, () -> borrowingService.returnBook(1L));
+        verify(bookRepository, never()).markReturned(any());
     }
 
     @Test
@@ -134,49 +163,64 @@ class BorrowingServiceImplTest {
 
     @Test
     void getAllBorrowings_ShouldReturnList() {
-        User user = User.builder().fullName("Ali").build();
-        Book book = Book.builder().title("Kitap").build();
-        Borrowing b = Borrowing.builder().id(1L).user(user).book(book).borrowDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7)).build();
+        BorrowResponseDto row = BorrowResponseDto.builder().id(1L).userFullName("Ali").bookTitle("Kitap")
+                .borrowDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7)).build();
 
-        when(borrowingRepository.findAll()).thenReturn(List.of(b));
+        when(borrowingRepository.findAllResponses()).thenReturn(List.of(row));
 
         List<BorrowResponseDto> result = borrowingService.getAllBorrowings();
 
         assertEquals(1, result.size());
         assertEquals("Kitap", result.get(0).getBookTitle());
+        verify(borrowingRepository, never()).findAll();
     }
 
     @Test
     void getBorrowingsByUser_ShouldReturnList() {
-        User user = User.builder().id(1L).fullName("Ali").build();
-        Book book = Book.builder().title("Kitap").build();
-        Borrowing b = Borrowing.builder().id(1L).user(user).book(book).borrowDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7)).build();
+        BorrowResponseDto row = BorrowResponseDto.builder().id(1L).userFullName("Ali").bookTitle("Kitap")
+                .borrowDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7)).build();
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(borrowingRepository.findByUserId(1L)).thenReturn(List.of(b));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(borrowingRepository.findResponsesByUserId(1L)).thenReturn(List.of(row));
 
         List<BorrowResponseDto> result = borrowingService.getBorrowingsByUser(1L);
 
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getBorrowingsByUser_ShouldThrow_WhenUserNotFound() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> borrowingService.getBorrowingsByUser(1L));
+    }
+
     @Test
     void getOverdueBooks_ShouldReturnList() {
-        User user = User.builder().fullName("Ali").build();
-        Book book = Book.builder().title("Kitap").build();
-        Borrowing overdue = Borrowing.builder()
+        BorrowResponseDto overdue = BorrowResponseDto.builder()
                 .id(1L)
-                .user(user)
-                .book(book)
+                .userFullName("Ali")
+                .bookTitle("Kitap")
                 .borrowDate(LocalDate.now().minusDays(10))
                 .dueDate(LocalDate.now().minusDays(1))
                 .build();
 
-        when(borrowingRepository.findByReturnDateIsNullAndDueDateBefore(any()))
+        when(borrowingRepository.findOverdueResponses(any()))
                 .thenReturn(List.of(overdue));
 
         List<BorrowResponseDto> result = borrowingService.getOverdueBooks();
 
         assertEquals(1, result.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOverdueBooks_ShouldUseIndex_WhenReady() {
+        BorrowResponseDto overdue = BorrowResponseDto.builder().id(1L).bookTitle("Kitap").dueDate(LocalDate.now().minusDays(1)).build();
+
+        when(openLoanDueDateIndex.isReady()).thenReturn(true);
+        when(openLoanDueDateIndex.overdue(any())).thenReturn(List.of(overdue));
+
+        assertEquals(List.of(overdue), borrowingService.getOverdueBooks());
+        verify(borrowingRepository, never()).findOverdueResponses(any());
+    }
+}
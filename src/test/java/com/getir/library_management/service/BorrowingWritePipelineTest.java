@@ -0,0 +1,299 @@
+package com.getir.library_management.service;
+
+import com.getir.library_management.dto.borrow.BorrowRequestDto;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.entity.Book;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.exception.custom.BookUnavailableException;
+import com.getir.library_management.exception.custom.BorrowingBusyException;
+import com.getir.library_management.exception.custom.BorrowingNotFoundException;
+import com.getir.library_management.exception.custom.UserNotFoundException;
+import com.getir.library_management.index.CoBorrowingIndex;
+import com.getir.library_management.logging.audit.AuditLogService;
+import com.getir.library_management.repository.BookRepository;
+import com.getir.library_management.repository.BorrowingRepository;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.service.impl.BookAvailabilityServiceImpl;
+import com.getir.library_management.service.impl.BorrowingServiceImpl;
+import com.getir.library_management.service.impl.BorrowingWritePipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+// Runs the group-commit writer against the real database and compares it with the per-request path
+@Slf4j
+@SpringBootTest(properties = {
+        "library.borrowing.write-pipeline.enabled=true",
+        "library.borrowing.write-pipeline.max-wait=2ms",
+        "library.borrowing.write-pipeline.queue-capacity=" + BorrowingWritePipelineTest.QUEUE_CAPACITY,
+        "library.borrowing.write-pipeline.timeout=2s"
+})
+@ActiveProfiles("test")
+class BorrowingWritePipelineTest {
+
+    static final int QUEUE_CAPACITY = 32;
+
+    private static final int THREADS = 16;
+    private static final String STALLING_ACTOR = "stall@test.com";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+    @Autowired
+    private BorrowingServiceImpl borrowingService;
+    @Autowired
+    private BorrowingWritePipeline pipeline;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private AuditLogService auditLogService;
+    @SpyBean
+    private CoBorrowingIndex coBorrowingIndex;
+    @SpyBean
+    private BookAvailabilityServiceImpl bookAvailabilityService;
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch writerStalled = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+    private List<Long> userIds;
+    private List<Long> bookIds;
+
+    @BeforeEach
+    void setUp() {
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        userIds = new ArrayList<>();
+        bookIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            userIds.add(userRepository.save(User.builder()
+                    .fullName("Reader " + i)
+                    .email(UUID.randomUUID() + "@getir.com")
+                    .password("secret")
+                    .build()).getId());
+            bookIds.add(bookRepository.save(Book.builder()
+                    .title("Book " + i)
+                    .author("Author")
+                    .isbn(UUID.randomUUID().toString())
+                    .availability(true)
+                    .build()).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseWriter.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void borrowAndReturn_ShouldReturnEachCallerItsOwnResult() {
+        BorrowResponseDto borrowed = pipeline.borrow(request(userIds.get(0), bookIds.get(0)), "reader@test.com");
+        assertEquals("Reader 0", borrowed.getUserFullName());
+        assertEquals("Book 0", borrowed.getBookTitle());
+        assertFalse(bookRepository.findById(bookIds.get(0)).orElseThrow().isAvailability());
+
+        BorrowResponseDto returned = pipeline.returnBook(borrowed.getId(), "reader@test.com");
+        assertNotNull(returned.getReturnDate());
+        assertTrue(bookRepository.findById(bookIds.get(0)).orElseThrow().isAvailability());
+
+        assertThrows(BorrowingNotFoundException.class, () -> pipeline.returnBook(borrowed.getId(), "reader@test.com"));
+        assertThrows(UserNotFoundException.class, () -> pipeline.borrow(request(-1L, bookIds.get(1)), "reader@test.com"));
+    }
+
+    @Test
+    void concurrentBorrowsOfHotBook_ShouldLetExactlyOneSucceed() throws Exception {
+        AtomicInteger unavailable = new AtomicInteger();
+
+        List<BorrowResponseDto> succeeded = ConcurrentRace.run(THREADS, index -> {
+            try {
+                return pipeline.borrow(request(userIds.get(index), bookIds.get(0)), "reader@test.com");
+            } catch (BookUnavailableException e) {
+                unavailable.incrementAndGet();
+                return null;
+            }
+        });
+
+        assertEquals(1, succeeded.size());
+        assertEquals(THREADS - 1, unavailable.get());
+        assertEquals(1, borrowingRepository.findByBookId(bookIds.get(0)).size());
+    }
+
+    @Test
+    void failingCommand_ShouldFailAlone_WhenBatchIsAppliedOneByOne() throws Exception {
+        doThrow(new IllegalStateException("Index unavailable"))
+                .when(coBorrowingIndex).loanOpened(any(), argThat(book -> bookIds.get(1).equals(book.getId())));
+        stallWriter();
+
+        // Both commands wait for the writer, so they are applied in one batch
+        Future<BorrowResponseDto> failing = borrowInBackground(1);
+        Future<BorrowResponseDto> healthy = borrowInBackground(2);
+        awaitQueued(2);
+        releaseWriter.countDown();
+
+        assertEquals("Book 2", healthy.get(10, TimeUnit.SECONDS).getBookTitle());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(bookRepository.findById(bookIds.get(1)).orElseThrow().isAvailability());
+        assertEquals(1, borrowingRepository.findByBookId(bookIds.get(2)).size());
+    }
+
+    @Test
+    void failureAfterCommit_ShouldNotApplyTheBatchAgain() throws Exception {
+        doThrow(new IllegalStateException("Broker unavailable")).when(bookAvailabilityService)
+                .publishAvailabilityUpdate(argThat(update -> bookIds.get(1).equals(update.bookId())));
+        stallWriter();
+
+        Future<BorrowResponseDto> first = borrowInBackground(1);
+        Future<BorrowResponseDto> second = borrowInBackground(2);
+        awaitQueued(2);
+        releaseWriter.countDown();
+
+        // Both borrows committed; the callers get them instead of a replay that finds the books taken
+        assertEquals("Book 1", first.get(10, TimeUnit.SECONDS).getBookTitle());
+        assertEquals("Book 2", second.get(10, TimeUnit.SECONDS).getBookTitle());
+        assertEquals(1, borrowingRepository.findByBookId(bookIds.get(1)).size());
+        assertEquals(1, borrowingRepository.findByBookId(bookIds.get(2)).size());
+    }
+
+    @Test
+    void failingAudit_ShouldStillAnswerTheCaller_AndKeepTheWriterRunning() {
+        doThrow(new IllegalStateException("Audit log unavailable"))
+                .when(auditLogService).logAction(eq("broken@test.com"), any(), any());
+
+        assertEquals("Book 1", pipeline.borrow(request(userIds.get(1), bookIds.get(1)), "broken@test.com").getBookTitle());
+        assertEquals("Book 2", pipeline.borrow(request(userIds.get(2), bookIds.get(2)), "reader@test.com").getBookTitle());
+    }
+
+    @Test
+    void borrow_ShouldBeRejectedAtOnce_WhenQueueIsFull() throws Exception {
+        stallWriter();
+        List<Future<BorrowResponseDto>> queued = new ArrayList<>();
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            queued.add(callers.submit(() -> pipeline.borrow(request(-1L, bookIds.get(0)), "reader@test.com")));
+        }
+        awaitQueued(QUEUE_CAPACITY);
+        double rejected = meterRegistry.get("borrowing.writes.rejected").functionCounter().count();
+
+        assertThrows(BorrowingBusyException.class,
+                () -> pipeline.borrow(request(userIds.get(0), bookIds.get(0)), "reader@test.com"));
+        assertEquals(rejected + 1, meterRegistry.get("borrowing.writes.rejected").functionCounter().count());
+
+        // The queued commands are still applied once the writer moves on
+        releaseWriter.countDown();
+        for (Future<BorrowResponseDto> command : queued) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> command.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(UserNotFoundException.class, failure.getCause());
+        }
+    }
+
+    @Test
+    void borrow_ShouldBeWithdrawn_WhenNotPickedUpInTime() throws Exception {
+        Future<BorrowResponseDto> stalling = stallWriter();
+
+        long started = System.nanoTime();
+        assertThrows(BorrowingBusyException.class,
+                () -> pipeline.borrow(request(userIds.get(0), bookIds.get(0)), "reader@test.com"));
+        assertTrue(System.nanoTime() - started >= TimeUnit.SECONDS.toNanos(2));
+
+        releaseWriter.countDown();
+        stalling.get(10, TimeUnit.SECONDS);
+        // The withdrawn borrow never reached the database
+        assertTrue(borrowingRepository.findByBookId(bookIds.get(0)).isEmpty());
+        assertTrue(bookRepository.findById(bookIds.get(0)).orElseThrow().isAvailability());
+    }
+
+    @Test
+    void throughput_ShouldBeReportedForPipelineAndDirectPath() throws Exception {
+        int cycles = 40;
+        double direct = measure("per-request", cycles, (user, book) -> {
+            BorrowResponseDto borrowed = borrowingService.borrowBook(request(user, book));
+            borrowingService.returnBook(borrowed.getId());
+        });
+        double pipelined = measure("pipeline", cycles, (user, book) -> {
+            BorrowResponseDto borrowed = pipeline.borrow(request(user, book), "reader@test.com");
+            pipeline.returnBook(borrowed.getId(), "reader@test.com");
+        });
+
+        assertTrue(direct > 0 && pipelined > 0);
+        assertEquals(THREADS * cycles * 2L, borrowingRepository.count());
+        assertTrue(borrowingRepository.findAll().stream().allMatch(b -> b.getReturnDate() != null));
+    }
+
+    // Every thread runs borrow/return cycles on its own book; logs and returns the write operations per second
+    private double measure(String label, int cycles, Cycle cycle) throws Exception {
+        long started = System.nanoTime();
+        ConcurrentRace.run(THREADS, index -> {
+            for (int i = 0; i < cycles; i++) {
+                cycle.run(userIds.get(index), bookIds.get(index));
+            }
+            return null;
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double perSecond = THREADS * cycles * 2 / seconds;
+        log.info("Borrowing writes, {}: {} operations in {} s ({} ops/s, {} threads)",
+                label, THREADS * cycles * 2, String.format("%.2f", seconds), Math.round(perSecond), THREADS);
+        return perSecond;
+    }
+
+    // Borrows the last book as a caller whose audit entry blocks the writer until the test releases it
+    private Future<BorrowResponseDto> stallWriter() throws InterruptedException {
+        doAnswer(invocation -> {
+            writerStalled.countDown();
+            releaseWriter.await(30, TimeUnit.SECONDS);
+            return null;
+        }).when(auditLogService).logAction(eq(STALLING_ACTOR), any(), any());
+        Future<BorrowResponseDto> stalling = callers.submit(() ->
+                pipeline.borrow(request(userIds.get(THREADS - 1), bookIds.get(THREADS - 1)), STALLING_ACTOR));
+        assertTrue(writerStalled.await(10, TimeUnit.SECONDS));
+        return stalling;
+    }
+
+    private Future<BorrowResponseDto> borrowInBackground(int index) {
+        return callers.submit(() -> pipeline.borrow(request(userIds.get(index), bookIds.get(index)), "reader@test.com"));
+    }
+
+    // Waits until the given number of commands sit in the queue of the stalled writer
+    private void awaitQueued(int commands) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("borrowing.writes.queued").gauge().value() < commands && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(commands, (int) meterRegistry.get("borrowing.writes.queued").gauge().value());
+    }
+
+    private static BorrowRequestDto request(Long userId, Long bookId) {
+        BorrowRequestDto request = new BorrowRequestDto();
+        request.setUserId(userId);
+        request.setBookId(bookId);
+        return request;
+    }
+
+    private interface Cycle {
+        void run(Long userId, Long bookId);
+    }
+}
@@ -1,16 +1,19 @@
 package com.getir.library_management.service;
 
-import com.getir.library_management.entity.Book;
-import com.getir.library_management.entity.Borrowing;
-import com.getir.library_management.entity.User;
+import com.getir.library_management.dto.borrow.BorrowResponseDto;
+import com.getir.library_management.index.OpenLoanDueDateIndex;
 import com.getir.library_management.repository.BorrowingRepository;
 import com.getir.library_management.service.impl.OverdueReportServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,6 +22,8 @@ class OverdueReportServiceImplTest {
 
     @Mock
     private BorrowingRepository borrowingRepository;
+    @Mock
+    private OpenLoanDueDateIndex openLoanDueDateIndex;
 
     @InjectMocks
     private OverdueReportServiceImpl reportService;
@@ -31,18 +36,16 @@ class OverdueReportServiceImplTest {
     @Test
     void generateOverdueBooksCsv_ShouldReturnCorrectCsvContent() {
         // Arrange
-        User user = User.builder().id(1L).fullName("Ali").build();
-        Book book = Book.builder().id(1L).title("Kitap").build();
-        Borrowing borrowing = Borrowing.builder()
+        BorrowResponseDto borrowing = BorrowResponseDto.builder()
                 .id(10L)
-                .user(user)
-                .book(book)
+                .userFullName("Ali")
+                .bookTitle("Kitap")
                 .borrowDate(LocalDate.of(2024, 5, 1))
                 .dueDate(LocalDate.of(2024, 5, 8))
                 .returnDate(null)
                 .build();
 
-        when(borrowingRepository.findByReturnDateIsNullAndDueDateBefore(any()))
+        when(borrowingRepository.findOverdueResponses(any()))
                 .thenReturn(List.of(borrowing));
 
         // Act
@@ -59,6 +62,61 @@ class OverdueReportServiceImplTest {
         assertTrue(lines[1].contains("2024-05-08"));
 
         verify(borrowingRepository, times(1))
-                .findByReturnDateIsNullAndDueDateBefore(any());
+                .findOverdueResponses(any());
+    }
+
+    @Test
+    void writeOverdueBooksCsv_ShouldQuoteFieldsWithSeparators() throws Exception {
+        BorrowResponseDto borrowing = BorrowResponseDto.builder()
+                .id(7L)
+                .userFullName("Doe, Jane")
+                .bookTitle("The \"Quoted\" Book")
+                .borrowDate(LocalDate.of(2024, 5, 1))
+                .dueDate(LocalDate.of(2024, 5, 8))
+                .build();
+        when(borrowingRepository.streamOverdueResponses(any())).thenReturn(Stream.of(borrowing));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeOverdueBooksCsv(out);
+
+        assertEquals("ID,User,Book,Borrow Date,Due Date\n"
+                + "7,\"Doe, Jane\",\"The \"\"Quoted\"\" Book\",2024-05-01,2024-05-08\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeOverdueBooksCsv_ShouldStreamAMillionRowsWithoutCollectingThem() throws Exception {
+        int rows = 1_000_000;
+        LocalDate borrowDate = LocalDate.of(2024, 5, 1);
+        // Rows are generated lazily, so nothing holds them unless the export does
+        Stream<BorrowResponseDto> overdue = Stream.iterate(1L, id -> id + 1).limit(rows)
+                .map(id -> new BorrowResponseDto(id, "Reader " + id, "Book " + id, borrowDate, borrowDate.plusDays(7), null));
+        when(borrowingRepository.streamOverdueResponses(any())).thenReturn(overdue);
+
+        CountingOutputStream out = new CountingOutputStream();
+        reportService.writeOverdueBooksCsv(out);
+
+        assertEquals(rows + 1, out.lines);
+        assertTrue(out.bytes > rows * 40L);
+    }
+
+    // Discards the export while counting its bytes and lines
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
     }
 }
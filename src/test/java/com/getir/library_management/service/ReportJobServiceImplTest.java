@@ -0,0 +1,176 @@
+package com.getir.library_management.service;
+
+import com.getir.library_management.dto.report.ReportJobDto;
+import com.getir.library_management.dto.report.ReportJobStatus;
+import com.getir.library_management.dto.report.ReportType;
+import com.getir.library_management.exception.custom.ReportJobNotFoundException;
+import com.getir.library_management.exception.custom.ReportJobsBusyException;
+import com.getir.library_management.exception.custom.ReportNotReadyException;
+import com.getir.library_management.service.impl.ReportJobServiceImpl;
+import com.getir.library_management.service.impl.ReportJobStore;
+import com.getir.library_management.service.interfaces.OverdueReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportJobServiceImplTest {
+
+    @TempDir
+    private Path directory;
+
+    private OverdueReportService overdueReportService;
+    private ReportJobStore store;
+    private ReportJobServiceImpl reportJobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        overdueReportService = mock(OverdueReportService.class);
+        doAnswer(invocation -> write(invocation.getArgument(0), "ID,User\n1,Ali\n"))
+                .when(overdueReportService).writeOverdueBooksCsv(any());
+        doAnswer(invocation -> write(invocation.getArgument(0), "ID,User,Book\n"))
+                .when(overdueReportService).writeCirculationCsv(any());
+        store = new ReportJobStore(null, null, false, Duration.ofHours(1));
+        reportJobService = new ReportJobServiceImpl(overdueReportService, store, directory, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportJobService.shutdown();
+    }
+
+    @Test
+    void submit_ShouldShareOneComputation_ForConcurrentRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return write(invocation.getArgument(0), "ID\n");
+        }).when(overdueReportService).writeOverdueBooksCsv(any());
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ReportJobDto>> submitted = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                submitted.add(callers.submit(() -> reportJobService.submit(ReportType.OVERDUE)));
+            }
+            String jobId = submitted.get(0).get().getId();
+            for (Future<ReportJobDto> future : submitted) {
+                assertEquals(jobId, future.get().getId());
+            }
+            release.countDown();
+            assertEquals(ReportJobStatus.SUCCEEDED, await(jobId).getStatus());
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(overdueReportService, times(1)).writeOverdueBooksCsv(any());
+    }
+
+    @Test
+    void submit_ShouldReuseFinishedReport_UntilLoansChange() throws Exception {
+        String first = reportJobService.submit(ReportType.OVERDUE).getId();
+        ReportJobDto finished = await(first);
+        Path file = reportJobService.getReportFile(first);
+        assertEquals("ID,User\n1,Ali\n", Files.readString(file));
+        assertEquals(Files.size(file), finished.getSizeBytes());
+
+        assertEquals(first, reportJobService.submit(ReportType.OVERDUE).getId());
+        verify(overdueReportService, times(1)).writeOverdueBooksCsv(any());
+
+        reportJobService.loansChanged();
+        String second = reportJobService.submit(ReportType.OVERDUE).getId();
+
+        assertNotEquals(first, second);
+        assertEquals(ReportJobStatus.SUCCEEDED, await(second).getStatus());
+        assertFalse(Files.exists(file));
+        assertThrows(ReportJobNotFoundException.class, () -> reportJobService.getJob(first));
+        verify(overdueReportService, times(2)).writeOverdueBooksCsv(any());
+    }
+
+    @Test
+    void submit_ShouldRetry_AfterFailedJob() throws Exception {
+        doThrow(new IOException("disk full")).doAnswer(invocation -> write(invocation.getArgument(0), "ID\n"))
+                .when(overdueReportService).writeOverdueBooksCsv(any());
+
+        String failed = reportJobService.submit(ReportType.OVERDUE).getId();
+        ReportJobDto failure = await(failed);
+        assertEquals(ReportJobStatus.FAILED, failure.getStatus());
+        assertEquals("disk full", failure.getError());
+        assertThrows(ReportNotReadyException.class, () -> reportJobService.getReportFile(failed));
+
+        String retried = reportJobService.submit(ReportType.OVERDUE).getId();
+        assertNotEquals(failed, retried);
+        assertEquals(ReportJobStatus.SUCCEEDED, await(retried).getStatus());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void submit_ShouldThrowBusy_WhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return write(invocation.getArgument(0), "ID\n");
+        }).when(overdueReportService).writeOverdueBooksCsv(any());
+
+        String running = reportJobService.submit(ReportType.OVERDUE).getId();
+        reportJobService.submit(ReportType.CIRCULATION);
+        reportJobService.loansChanged();
+
+        assertThrows(ReportJobsBusyException.class, () -> reportJobService.submit(ReportType.OVERDUE));
+        assertThrows(ReportNotReadyException.class, () -> reportJobService.getReportFile(running));
+        release.countDown();
+        assertEquals(ReportJobStatus.SUCCEEDED, await(running).getStatus());
+    }
+
+    @Test
+    void jobsOfOneInstance_ShouldBeServedByAnother_SharingTheStore() throws Exception {
+        ReportJobServiceImpl other = new ReportJobServiceImpl(overdueReportService, store, directory, 1, 1);
+        try {
+            String jobId = reportJobService.submit(ReportType.OVERDUE).getId();
+            assertEquals(ReportJobStatus.SUCCEEDED, await(other, jobId).getStatus());
+            assertEquals("ID,User\n1,Ali\n", Files.readString(other.getReportFile(jobId)));
+            assertEquals(jobId, other.submit(ReportType.OVERDUE).getId());
+
+            // A borrow on the other instance outdates the finished report here too
+            other.loansChanged();
+            assertNotEquals(jobId, reportJobService.submit(ReportType.OVERDUE).getId());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    // Polls a job like a client would, until it has finished
+    private ReportJobDto await(String jobId) throws InterruptedException {
+        return await(reportJobService, jobId);
+    }
+
+    private static ReportJobDto await(ReportJobServiceImpl service, String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ReportJobDto job = service.getJob(jobId);
+        while (job.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = service.getJob(jobId);
+        }
+        assertNotNull(job.getFinishedAt(), "Report job did not finish");
+        return job;
+    }
+
+    private static Void write(OutputStream out, String content) throws IOException {
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        return null;
+    }
+}
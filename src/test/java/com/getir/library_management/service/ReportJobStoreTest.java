@@ -0,0 +1,90 @@
+package com.getir.library_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getir.library_management.dto.report.ReportJobStatus;
+import com.getir.library_management.dto.report.ReportType;
+import com.getir.library_management.service.impl.ReportJobStore;
+import com.getir.library_management.service.impl.ReportJobStore.StoredJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReportJobStoreTest {
+
+    // Stands in for Redis, shared by the stores of two instances
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    private ReportJobStore first;
+    private ReportJobStore second;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(i -> redis.get(i.<String>getArgument(0)));
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(i -> redis.putIfAbsent(i.getArgument(0), i.getArgument(1)) == null);
+        when(values.getAndSet(anyString(), anyString()))
+                .thenAnswer(i -> redis.put(i.getArgument(0), i.getArgument(1)));
+        when(values.increment(anyString()))
+                .thenAnswer(i -> Long.parseLong(redis.merge(i.getArgument(0), "1",
+                        (a, b) -> String.valueOf(Long.parseLong(a) + 1))));
+        doAnswer(i -> redis.put(i.getArgument(0), i.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyString())).thenAnswer(i -> redis.remove(i.<String>getArgument(0)) != null);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        first = new ReportJobStore(redisTemplate, objectMapper, true, Duration.ofHours(1));
+        second = new ReportJobStore(redisTemplate, objectMapper, true, Duration.ofHours(1));
+    }
+
+    @Test
+    void jobsSavedByOneInstance_ShouldBeFoundByAnother() {
+        first.save(StoredJob.queued("job-1", ReportType.OVERDUE, "OVERDUE:0").succeeded("job-1.csv", 42));
+
+        StoredJob job = second.find("job-1").orElseThrow();
+        assertEquals(ReportJobStatus.SUCCEEDED, job.status());
+        assertEquals("job-1.csv", job.fileName());
+        assertEquals(42L, job.sizeBytes());
+
+        second.delete("job-1");
+        assertTrue(first.find("job-1").isEmpty());
+    }
+
+    @Test
+    void claim_ShouldBeHeldByTheFirstJob_UntilReleased() {
+        assertEquals("job-1", first.claim(ReportType.OVERDUE, "OVERDUE:0", "job-1"));
+        assertEquals("job-1", second.claim(ReportType.OVERDUE, "OVERDUE:0", "job-2"));
+
+        // Only the owner can give the claim up
+        second.release(ReportType.OVERDUE, "OVERDUE:0", "job-2");
+        assertEquals("job-1", second.claim(ReportType.OVERDUE, "OVERDUE:0", "job-2"));
+
+        first.release(ReportType.OVERDUE, "OVERDUE:0", "job-1");
+        assertEquals("job-2", second.claim(ReportType.OVERDUE, "OVERDUE:0", "job-2"));
+    }
+
+    @Test
+    void dataVersion_ShouldBeBumpedForAllInstances() {
+        assertEquals(0, second.dataVersion());
+        first.bumpDataVersion();
+        assertEquals(1, second.dataVersion());
+    }
+
+    @Test
+    void replaceLatest_ShouldReturnTheJobOfTheOtherInstance() {
+        assertNull(first.replaceLatest(ReportType.CIRCULATION, "job-1"));
+        assertEquals("job-1", second.replaceLatest(ReportType.CIRCULATION, "job-2"));
+    }
+}
@@ -2,10 +2,14 @@ package com.getir.library_management.service;
 
 import com.getir.library_management.dto.user.UpdateUserRequestDto;
 import com.getir.library_management.dto.user.UserResponseDto;
+import com.getir.library_management.entity.Role;
 import com.getir.library_management.entity.User;
+import com.getir.library_management.entity.UserTombstone;
 import com.getir.library_management.exception.custom.UserNotFoundException;
 import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.repository.UserTombstoneRepository;
 import com.getir.library_management.service.impl.UserServiceImpl;
+import com.getir.library_management.util.TokenRevocationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -28,6 +32,12 @@ class UserServiceImplTest {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -71,6 +81,31 @@ class UserServiceImplTest {
         // Assert
         assertEquals("updated@getir.com", result.getEmail());
         verify(userRepository).save(existingUser);
+        assertEquals(1, existingUser.getTokenVersion());
+        verify(tokenRevocationRegistry).revokeBefore(userId, 1);
+    }
+
+    @Test
+    void updateUser_ShouldKeepTokensAndRole_WhenOnlyNameChanges() {
+        Long userId = 1L;
+        UpdateUserRequestDto request = new UpdateUserRequestDto();
+        request.setId(userId);
+        request.setFullName("Renamed");
+        request.setEmail("same@getir.com");
+        // The documented example value; profile edits never change the role
+        request.setRole(Role.ROLE_USER);
+
+        User existingUser = User.builder().id(userId).fullName("Old Name").email("same@getir.com")
+                .role(Role.ROLE_LIBRARIAN).build();
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
+        when(userRepository.save(any(User.class))).thenReturn(existingUser);
+
+        userService.updateUser(userId, request);
+
+        assertEquals(Role.ROLE_LIBRARIAN, existingUser.getRole());
+        assertEquals(0, existingUser.getTokenVersion());
+        verifyNoInteractions(tokenRevocationRegistry);
     }
 
     @Test
@@ -129,6 +164,7 @@ class UserServiceImplTest {
 
         assertTrue(user.isMarkedAsDeleted());
         verify(userRepository).save(user);
+        verify(tokenRevocationRegistry).revokeAll(userId);
     }
 
     @Test
@@ -141,6 +177,10 @@ class UserServiceImplTest {
         userService.hardDeleteUser(userId);
 
         verify(userRepository).delete(user);
+        ArgumentCaptor<UserTombstone> tombstone = ArgumentCaptor.forClass(UserTombstone.class);
+        verify(userTombstoneRepository).save(tombstone.capture());
+        assertEquals(userId, tombstone.getValue().getUserId());
+        verify(tokenRevocationRegistry).revokeAll(userId);
     }
 
     @Test
@@ -0,0 +1,107 @@
+package com.getir.library_management.util;
+
+import com.getir.library_management.exception.custom.AuthenticationBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void shouldDelegateHashingAndUpgradeCheck() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 2, 4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("1234");
+
+        assertTrue(encoder.matches("1234", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+        assertTrue(new BoundedPasswordEncoder(new BCryptPasswordEncoder(6), 1, 1, Duration.ofSeconds(1)).upgradeEncoding(hash));
+    }
+
+    @Test
+    void shouldFailFast_WhenLoginStormSaturatesThePool() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(release), 2, 3, Duration.ofSeconds(10));
+
+        int stormSize = 20;
+        ExecutorService requestThreads = Executors.newFixedThreadPool(stormSize);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> logins = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < stormSize; i++) {
+            logins.add(requestThreads.submit(() -> {
+                try {
+                    encoder.matches("1234", "hash");
+                } catch (AuthenticationBusyException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+
+        // Everything beyond the 2 running + 3 queued hashes is rejected without waiting for the slow ones
+        while (rejected.get() < stormSize - 5 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+            Thread.sleep(5);
+        }
+        assertEquals(stormSize - 5, rejected.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        for (Future<?> login : logins) {
+            login.get(5, TimeUnit.SECONDS);
+        }
+        requestThreads.shutdown();
+        assertEquals(stormSize - 5, rejected.get());
+    }
+
+    @Test
+    void shouldReject_WhenHashingExceedsTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(release), 1, 1, Duration.ofMillis(50));
+
+        assertThrows(AuthenticationBusyException.class, () -> encoder.encode("1234"));
+        release.countDown();
+    }
+
+    // Encoder whose hashing blocks until the latch is released, standing in for an expensive BCrypt call
+    private PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                await();
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                await();
+                return true;
+            }
+
+            private void await() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
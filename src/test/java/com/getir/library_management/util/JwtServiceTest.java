@@ -0,0 +1,66 @@
+package com.getir.library_management.util;
+
+import com.getir.library_management.entity.Role;
+import com.getir.library_management.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtService jwtService;
+
+    private final User user = User.builder()
+            .id(7L)
+            .fullName("Ali")
+            .email("ali@getir.com")
+            .role(Role.ROLE_USER)
+            .tokenVersion(2)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(100);
+        jwtService = new JwtService(verifiedTokenCache);
+        ReflectionTestUtils.setField(jwtService, "secret", "a2V5LWZvci1naXRodWItaXNzdWUtZGVtbzEyMzQ1Njc4OQ==");
+        jwtService.init();
+    }
+
+    @Test
+    void extractClaims_ShouldContainIdentityClaims() {
+        Claims claims = jwtService.extractClaims(jwtService.generateToken(user));
+
+        assertEquals("ali@getir.com", claims.getSubject());
+        assertEquals(7L, claims.get(JwtService.USER_ID_CLAIM, Long.class));
+        assertEquals("ROLE_USER", claims.get(JwtService.ROLE_CLAIM, String.class));
+        assertEquals(2, claims.get(JwtService.TOKEN_VERSION_CLAIM, Integer.class));
+    }
+
+    @Test
+    void extractClaims_ShouldServeRepeatedTokenFromCache() {
+        String token = jwtService.generateToken(user);
+
+        jwtService.extractUsername(token);
+        jwtService.extractUsername(token);
+        jwtService.extractUsername(token);
+
+        assertEquals(1, verifiedTokenCache.getMissCount());
+        assertEquals(2, verifiedTokenCache.getHitCount());
+        assertEquals(1, verifiedTokenCache.size());
+    }
+
+    @Test
+    void extractClaims_ShouldRejectTamperedToken() {
+        String token = jwtService.generateToken(user);
+        jwtService.extractClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.extractClaims(tampered));
+    }
+}
@@ -0,0 +1,72 @@
+package com.getir.library_management.util;
+
+import com.getir.library_management.cache.CacheInvalidationBus;
+import com.getir.library_management.cache.CacheInvalidationBus.CacheInvalidation;
+import com.getir.library_management.entity.User;
+import com.getir.library_management.entity.UserTombstone;
+import com.getir.library_management.repository.UserRepository;
+import com.getir.library_management.repository.UserTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationRegistryTest {
+
+    private CacheInvalidationBus bus;
+    private TokenRevocationRegistry registry;
+    private Consumer<CacheInvalidation> remote;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        UserTombstoneRepository userTombstoneRepository = mock(UserTombstoneRepository.class);
+        bus = mock(CacheInvalidationBus.class);
+        when(userRepository.findByMarkedAsDeletedTrueOrTokenVersionGreaterThan(0)).thenReturn(List.of(
+                User.builder().id(1L).tokenVersion(2).build(),
+                User.builder().id(2L).markedAsDeleted(true).build()));
+        when(userTombstoneRepository.findAll()).thenReturn(List.of(new UserTombstone(3L, LocalDateTime.now())));
+
+        registry = new TokenRevocationRegistry(userRepository, userTombstoneRepository, bus);
+        registry.load();
+
+        ArgumentCaptor<Consumer<CacheInvalidation>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).subscribe(listener.capture());
+        remote = listener.getValue();
+    }
+
+    @Test
+    void load_ShouldRestoreVersionBumps_SoftDeletes_AndHardDeletes() {
+        assertTrue(registry.isRevoked(1L, 1));
+        assertFalse(registry.isRevoked(1L, 2));
+        assertTrue(registry.isRevoked(2L, 5));
+        // The row of user 3 is gone; its tombstone keeps the tokens revoked
+        assertTrue(registry.isRevoked(3L, 0));
+        assertFalse(registry.isRevoked(4L, 0));
+    }
+
+    @Test
+    void revokeBefore_ShouldApplyLocally_AndBroadcast() {
+        registry.revokeBefore(4L, 1);
+
+        assertTrue(registry.isRevoked(4L, 0));
+        verify(bus).publishTokenRevocation(4L, 1);
+    }
+
+    @Test
+    void revocationsOfOtherInstances_ShouldBeApplied_AndNeverLowerAVersion() {
+        remote.accept(new CacheInvalidation("other", null, null, null, Map.of(4L, 3)));
+        remote.accept(new CacheInvalidation("other", null, null, null, Map.of(4L, 2)));
+
+        assertTrue(registry.isRevoked(4L, 2));
+        assertFalse(registry.isRevoked(4L, 3));
+    }
+}